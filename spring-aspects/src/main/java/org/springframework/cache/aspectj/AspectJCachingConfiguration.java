@@ -43,6 +43,7 @@ public class AspectJCachingConfiguration extends AbstractCachingConfiguration {
 	public AnnotationCacheAspect cacheAspect() {
 		AnnotationCacheAspect cacheAspect = AnnotationCacheAspect.aspectOf();
 		cacheAspect.configure(this.errorHandler, this.keyGenerator, this.cacheResolver, this.cacheManager);
+		applyEnableCachingSettings(cacheAspect);
 		return cacheAspect;
 	}
 
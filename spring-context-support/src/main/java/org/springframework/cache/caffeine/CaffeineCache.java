@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
 
@@ -134,6 +137,32 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		this.cache.invalidateAll();
 	}
 
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Object> values = (this.cache instanceof LoadingCache ?
+				((LoadingCache<Object, Object>) this.cache).getAll(keys) : this.cache.getAllPresent(keys));
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(values.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = toValueWrapper(values.get(key));
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(entries.size());
+		entries.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+		this.cache.putAll(storeValues);
+	}
+
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.cache.invalidateAll(keys);
+	}
+
 	@Override
 	public boolean invalidate() {
 		boolean notEmpty = !this.cache.asMap().isEmpty();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,11 @@
 
 package org.springframework.cache.ehcache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import net.sf.ehcache.Ehcache;
@@ -150,6 +155,31 @@ public class EhCacheCache implements Cache {
 		this.cache.removeAll();
 	}
 
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Element> elements = this.cache.getAll(keys);
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(elements.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = toValueWrapper(elements.get(key));
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		List<Element> elements = new ArrayList<>(entries.size());
+		entries.forEach((key, value) -> elements.add(new Element(key, value)));
+		this.cache.putAll(elements);
+	}
+
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.cache.removeAll(keys);
+	}
+
 	@Override
 	public boolean invalidate() {
 		boolean notEmpty = (this.cache.getSize() > 0);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.cache.jcache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import javax.cache.Cache;
@@ -117,6 +121,31 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 		this.cache.removeAll();
 	}
 
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Object> values = this.cache.getAll(new LinkedHashSet<>(keys));
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(values.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = toValueWrapper(values.get(key));
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(entries.size());
+		entries.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+		this.cache.putAll(storeValues);
+	}
+
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.cache.removeAll(new LinkedHashSet<>(keys));
+	}
+
 	@Override
 	public boolean invalidate() {
 		boolean notEmpty = this.cache.iterator().hasNext();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.springframework.cache.Cache;
@@ -30,7 +32,8 @@ import org.springframework.util.Assert;
  * {@link TransactionSynchronizationManager}, performing the actual cache
  * put/evict/clear operation only in the after-commit phase of a successful
  * transaction. If no transaction is active, {@link #put}, {@link #evict} and
- * {@link #clear} operations will be performed immediately, as usual.
+ * {@link #clear} operations will be performed immediately, as usual. The same
+ * applies to the bulk variants {@link #putAll} and {@link #evictAll}.
  *
  * <p><b>Note:</b> Use of immediate operations such as {@link #putIfAbsent} and
  * {@link #evictIfPresent} cannot be deferred to the after-commit phase of a
@@ -132,6 +135,41 @@ public class TransactionAwareCacheDecorator implements Cache {
 		return this.targetCache.evictIfPresent(key);
 	}
 
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return this.targetCache.getAll(keys);
+	}
+
+	@Override
+	public void putAll(final Map<?, ?> entries) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					TransactionAwareCacheDecorator.this.targetCache.putAll(entries);
+				}
+			});
+		}
+		else {
+			this.targetCache.putAll(entries);
+		}
+	}
+
+	@Override
+	public void evictAll(final Collection<?> keys) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					TransactionAwareCacheDecorator.this.targetCache.evictAll(keys);
+				}
+			});
+		}
+		else {
+			this.targetCache.evictAll(keys);
+		}
+	}
+
 	@Override
 	public void clear() {
 		if (TransactionSynchronizationManager.isSynchronizationActive()) {
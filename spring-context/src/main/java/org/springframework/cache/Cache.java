@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.springframework.lang.Nullable;
@@ -206,6 +209,63 @@ public interface Cache {
 		return false;
 	}
 
+	/**
+	 * Return the values to which this cache maps the given keys.
+	 * <p>The default implementation delegates to {@link #get(Object)} for
+	 * each key. Cache providers are encouraged to look up all keys in a
+	 * single operation, avoiding a round trip per key.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key that this cache contains a mapping for
+	 * to a {@link ValueWrapper} holding its (potentially {@code null}) value;
+	 * keys without a mapping are not contained in the map
+	 * @since 5.2.19
+	 * @see #get(Object)
+	 */
+	default Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Associate each of the given values with its key in this cache.
+	 * <p>The default implementation delegates to {@link #put(Object, Object)}
+	 * for each entry. Cache providers are encouraged to store all entries in
+	 * a single operation, avoiding a round trip per entry.
+	 * <p>Actual registration may be performed in an asynchronous or deferred
+	 * fashion, with subsequent lookups possibly not seeing the entries yet.
+	 * This may for example be the case with transactional cache decorators.
+	 * @param entries the keys and (potentially {@code null}) values to store
+	 * @since 5.2.19
+	 * @see #put(Object, Object)
+	 */
+	default void putAll(Map<?, ?> entries) {
+		entries.forEach(this::put);
+	}
+
+	/**
+	 * Evict the mappings for the given keys from this cache if present.
+	 * <p>The default implementation delegates to {@link #evict(Object)}
+	 * for each key. Cache providers are encouraged to evict all keys in
+	 * a single operation, avoiding a round trip per key.
+	 * <p>Actual eviction may be performed in an asynchronous or deferred
+	 * fashion, with subsequent lookups possibly still seeing the entries.
+	 * This may for example be the case with transactional cache decorators.
+	 * @param keys the keys whose mappings are to be removed from the cache
+	 * @since 5.2.19
+	 * @see #evict(Object)
+	 */
+	default void evictAll(Collection<?> keys) {
+		for (Object key : keys) {
+			evict(key);
+		}
+	}
+
 
 	/**
 	 * A (wrapper) object representing a cache value.
@@ -16,11 +16,13 @@
 
 package org.springframework.cache.annotation;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheAspectSupport;
 import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.cache.interceptor.CacheResolver;
 import org.springframework.cache.interceptor.KeyGenerator;
@@ -30,6 +32,7 @@ import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Abstract base {@code @Configuration} class providing common structure
@@ -95,4 +98,20 @@ public abstract class AbstractCachingConfiguration implements ImportAware {
 		this.errorHandler = config::errorHandler;
 	}
 
+	/**
+	 * Apply the settings of the {@link EnableCaching} attributes to the
+	 * given cache aspect.
+	 * @since 5.2.19
+	 */
+	protected void applyEnableCachingSettings(CacheAspectSupport cacheAspect) {
+		if (this.enableCaching != null) {
+			cacheAspect.setAsyncResultCaching(this.enableCaching.getBoolean("asyncResultCaching"));
+			cacheAspect.setSingleFlight(this.enableCaching.getBoolean("singleFlight"));
+			String earlyRefreshAfter = this.enableCaching.getString("earlyRefreshAfter");
+			if (StringUtils.hasText(earlyRefreshAfter)) {
+				cacheAspect.setEarlyRefreshAfter(Duration.parse(earlyRefreshAfter.trim()));
+			}
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,4 +179,28 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * Cache the entries of the returned {@link java.util.Map} individually, using
+	 * the elements of the method's {@link java.util.Collection} argument as keys.
+	 * Only the keys without a cached value are passed on to the underlying method,
+	 * and the values it returns are merged with the cached ones. This requires:
+	 * <ol>
+	 * <li>A {@code Collection} as the only parameter and a {@code Map} return type:
+	 * other arguments would not be reflected in the keys</li>
+	 * <li>No {@link #key()} or {@link #keyGenerator()}: the elements are the keys</li>
+	 * <li>{@link #unless()} and {@link #sync()} are not supported</li>
+	 * <li>Only one cache may be specified</li>
+	 * <li>No other cache-related operation can be combined</li>
+	 * </ol>
+	 * Values are retrieved and stored through the bulk operations of the cache.
+	 * Passing the reduced collection of keys on to the underlying method relies
+	 * on the interceptor handing its actual argument array to the cache aspect,
+	 * as is the case with proxy-based caching; otherwise, the method is invoked
+	 * with all keys whenever any of them is missing.
+	 * @since 5.2.19
+	 * @see org.springframework.cache.Cache#getAll(java.util.Collection)
+	 * @see org.springframework.cache.Cache#putAll(java.util.Map)
+	 */
+	boolean multiKey() default false;
+
 }
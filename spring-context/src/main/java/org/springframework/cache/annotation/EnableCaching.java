@@ -204,4 +204,34 @@ public @interface EnableCaching {
 	 */
 	int order() default Ordered.LOWEST_PRECEDENCE;
 
+	/**
+	 * Indicate whether methods returning a {@code CompletableFuture}, a
+	 * {@code CompletionStage} or a reactive type should be cached based on
+	 * their resolved value rather than the returned handle.
+	 * <p>The default is {@code false}.
+	 * @since 5.2.19
+	 * @see org.springframework.cache.interceptor.CacheAspectSupport#setAsyncResultCaching
+	 */
+	boolean asyncResultCaching() default false;
+
+	/**
+	 * Indicate whether {@code @Cacheable(sync=true)} operations should coalesce
+	 * concurrent loads of the same key within the cache aspect, rather than
+	 * relying on the locking of the cache provider.
+	 * <p>The default is {@code false}.
+	 * @since 5.2.19
+	 * @see org.springframework.cache.interceptor.CacheAspectSupport#setSingleFlight
+	 */
+	boolean singleFlight() default false;
+
+	/**
+	 * The age after which entries loaded by single-flight operations should be
+	 * refreshed, as an ISO-8601 duration such as {@code "PT50S"}.
+	 * <p>The default is empty, not refreshing entries early.
+	 * @since 5.2.19
+	 * @see #singleFlight()
+	 * @see org.springframework.cache.interceptor.CacheAspectSupport#setEarlyRefreshAfter
+	 */
+	String earlyRefreshAfter() default "";
+
 }
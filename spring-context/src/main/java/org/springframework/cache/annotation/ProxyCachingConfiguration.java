@@ -62,6 +62,7 @@ public class ProxyCachingConfiguration extends AbstractCachingConfiguration {
 	public CacheInterceptor cacheInterceptor() {
 		CacheInterceptor interceptor = new CacheInterceptor();
 		interceptor.configure(this.errorHandler, this.keyGenerator, this.cacheResolver, this.cacheManager);
+		applyEnableCachingSettings(interceptor);
 		interceptor.setCacheOperationSource(cacheOperationSource());
 		return interceptor;
 	}
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.config;
 
+import java.time.Duration;
+
 import org.w3c.dom.Element;
 
 import org.springframework.aop.config.AopNamespaceUtils;
@@ -133,6 +135,19 @@ class AnnotationDrivenCacheBeanDefinitionParser implements BeanDefinitionParser
 		}
 	}
 
+	private static void parseCacheSettings(Element element, BeanDefinition def) {
+		if (element.hasAttribute("async-result-caching")) {
+			def.getPropertyValues().add("asyncResultCaching", element.getAttribute("async-result-caching"));
+		}
+		if (element.hasAttribute("single-flight")) {
+			def.getPropertyValues().add("singleFlight", element.getAttribute("single-flight"));
+		}
+		String earlyRefreshAfter = element.getAttribute("early-refresh-after");
+		if (StringUtils.hasText(earlyRefreshAfter)) {
+			def.getPropertyValues().add("earlyRefreshAfter", Duration.parse(earlyRefreshAfter.trim()));
+		}
+	}
+
 
 	/**
 	 * Configure the necessary infrastructure to support the Spring's caching annotations.
@@ -155,6 +170,7 @@ class AnnotationDrivenCacheBeanDefinitionParser implements BeanDefinitionParser
 				interceptorDef.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
 				parseCacheResolution(element, interceptorDef, false);
 				parseErrorHandler(element, interceptorDef);
+				parseCacheSettings(element, interceptorDef);
 				CacheNamespaceHandler.parseKeyGenerator(element, interceptorDef);
 				interceptorDef.getPropertyValues().add("cacheOperationSources", new RuntimeBeanReference(sourceName));
 				String interceptorName = parserContext.getReaderContext().registerWithGeneratedName(interceptorDef);
@@ -193,6 +209,7 @@ class AnnotationDrivenCacheBeanDefinitionParser implements BeanDefinitionParser
 				def.setBeanClassName(CACHE_ASPECT_CLASS_NAME);
 				def.setFactoryMethodName("aspectOf");
 				parseCacheResolution(element, def, false);
+				parseCacheSettings(element, def);
 				CacheNamespaceHandler.parseKeyGenerator(element, def);
 				parserContext.registerBeanComponent(new BeanComponentDefinition(def, CacheManagementConfigUtils.CACHE_ASPECT_BEAN_NAME));
 			}
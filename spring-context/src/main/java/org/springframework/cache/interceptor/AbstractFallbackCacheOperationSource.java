@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,7 +20,10 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
@@ -30,6 +33,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.core.MethodClassKey;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Abstract implementation of {@link CacheOperation} that caches attributes
@@ -46,6 +50,13 @@ import org.springframework.util.ClassUtils;
  * used. If it is ever desirable to allow dynamic changing of cacheable
  * attributes (which is very unlikely), caching could be made configurable.
  *
+ * <p>As of 5.2.19, the cache operations of a class that turns out to be
+ * cacheable are determined for all of its methods in one go, typically while
+ * the caching advisor gets matched during bean creation, and looked up from
+ * a per-class table on invocation. Non-cacheable classes are not scanned
+ * beyond the methods actually looked up, and key-based caching remains in
+ * place for subclasses with a custom {@link #getCacheKey} implementation.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @since 3.1
@@ -73,6 +84,18 @@ public abstract class AbstractFallbackCacheOperationSource implements CacheOpera
 	 */
 	private final Map<Object, Collection<CacheOperation>> attributeCache = new ConcurrentHashMap<>(1024);
 
+	/**
+	 * Immutable tables of CacheOperations for all methods of a target class,
+	 * keyed by target class.
+	 * <p>As this base class is not marked Serializable, the cache will be recreated
+	 * after serialization - provided that the concrete subclass is Serializable.
+	 */
+	private final Map<Class<?>, Map<Method, Collection<CacheOperation>>> attributeTableCache =
+			new ConcurrentHashMap<>(256);
+
+	/** Whether {@link #getCacheKey} has not been overridden, allowing for attribute tables. */
+	private final boolean attributeTablesEnabled = !isCacheKeyOverridden(getClass());
+
 
 	/**
 	 * Determine the caching attribute for this method invocation.
@@ -89,6 +112,16 @@ public abstract class AbstractFallbackCacheOperationSource implements CacheOpera
 			return null;
 		}
 
+		if (targetClass != null && this.attributeTablesEnabled) {
+			Map<Method, Collection<CacheOperation>> attributeTable = this.attributeTableCache.get(targetClass);
+			if (attributeTable != null) {
+				Collection<CacheOperation> cached = attributeTable.get(method);
+				if (cached != null) {
+					return (cached != NULL_CACHING_ATTRIBUTE ? cached : null);
+				}
+			}
+		}
+
 		Object cacheKey = getCacheKey(method, targetClass);
 		Collection<CacheOperation> cached = this.attributeCache.get(cacheKey);
 
@@ -96,18 +129,57 @@ public abstract class AbstractFallbackCacheOperationSource implements CacheOpera
 			return (cached != NULL_CACHING_ATTRIBUTE ? cached : null);
 		}
 		else {
-			Collection<CacheOperation> cacheOps = computeCacheOperations(method, targetClass);
-			if (cacheOps != null) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Adding cacheable method '" + method.getName() + "' with attribute: " + cacheOps);
-				}
-				this.attributeCache.put(cacheKey, cacheOps);
+			Collection<CacheOperation> cacheOps = resolveCacheOperations(method, targetClass);
+			this.attributeCache.put(cacheKey, cacheOps);
+			if (cacheOps != NULL_CACHING_ATTRIBUTE && targetClass != null && this.attributeTablesEnabled &&
+					!this.attributeTableCache.containsKey(targetClass)) {
+				this.attributeTableCache.putIfAbsent(targetClass, buildAttributeTable(targetClass));
 			}
-			else {
-				this.attributeCache.put(cacheKey, NULL_CACHING_ATTRIBUTE);
+			return (cacheOps != NULL_CACHING_ATTRIBUTE ? cacheOps : null);
+		}
+	}
+
+	/**
+	 * Determine the cache operations for every method of the given cacheable
+	 * class, as well as for the methods it inherits or implements, skipping
+	 * methods that fail to resolve (their lookup reports the error instead).
+	 */
+	private Map<Method, Collection<CacheOperation>> buildAttributeTable(Class<?> targetClass) {
+		Set<Method> methods = new LinkedHashSet<>();
+		Collections.addAll(methods, ReflectionUtils.getAllDeclaredMethods(targetClass));
+		for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+			Collections.addAll(methods, ifc.getMethods());
+		}
+		Map<Method, Collection<CacheOperation>> attributeTable = new HashMap<>(methods.size() * 2);
+		for (Method method : methods) {
+			if (method.getDeclaringClass() != Object.class) {
+				try {
+					attributeTable.put(method, resolveCacheOperations(method, targetClass));
+				}
+				catch (RuntimeException ex) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Failed to precompute cache operations for method '" +
+								ClassUtils.getQualifiedMethodName(method, targetClass) + "': " + ex);
+					}
+				}
 			}
-			return cacheOps;
 		}
+		return Collections.unmodifiableMap(attributeTable);
+	}
+
+	/**
+	 * Compute the caching attribute for the given method and target class,
+	 * returning the canonical {@code NULL_CACHING_ATTRIBUTE} if none found.
+	 */
+	private Collection<CacheOperation> resolveCacheOperations(Method method, @Nullable Class<?> targetClass) {
+		Collection<CacheOperation> cacheOps = computeCacheOperations(method, targetClass);
+		if (cacheOps == null) {
+			return NULL_CACHING_ATTRIBUTE;
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Adding cacheable method '" + method.getName() + "' with attribute: " + cacheOps);
+		}
+		return cacheOps;
 	}
 
 	/**
@@ -122,6 +194,11 @@ public abstract class AbstractFallbackCacheOperationSource implements CacheOpera
 		return new MethodClassKey(method, targetClass);
 	}
 
+	private static boolean isCacheKeyOverridden(Class<?> sourceClass) {
+		Method method = ReflectionUtils.findMethod(sourceClass, "getCacheKey", Method.class, Class.class);
+		return (method != null && method.getDeclaringClass() != AbstractFallbackCacheOperationSource.class);
+	}
+
 	@Nullable
 	private Collection<CacheOperation> computeCacheOperations(Method method, @Nullable Class<?> targetClass) {
 		// Don't allow no-public methods as required.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,11 +26,18 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -44,11 +52,15 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.ObjectUtils;
@@ -70,6 +82,16 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>If {@link #setAsyncResultCaching "asyncResultCaching"} is enabled, methods
+ * returning a {@link CompletableFuture} or {@link CompletionStage}, or - if
+ * Reactor is present - a reactive type supported by the {@link ReactiveAdapterRegistry},
+ * are cached based on their resolved value rather than the returned handle:
+ * the cache is consulted when the returned future is created or the returned
+ * publisher is subscribed to, and populated once the result has been resolved.
+ * Multi-value publishers are cached as a {@link List} of their elements.
+ * Concurrent misses for the same key of a {@code @Cacheable} operation share
+ * a single invocation of the method.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -84,12 +106,34 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
 	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
 
+	/** Pending invocations per cache key, shared by async result caching and single-flight loading. */
+	private final Map<Object, CompletableFuture<Object>> inFlightInvocations = new ConcurrentHashMap<>(64);
+
+	@Nullable
+	private final ReactiveCachingHandler reactiveCachingHandler =
+			(reactorPresent ? new ReactiveCachingHandler() : null);
+
+	private final Map<Cache, Map<Object, LoadMetadata>> loadMetadata = new ConcurrentHashMap<>(16);
+
+	private boolean asyncResultCaching = false;
+
+	private boolean singleFlight = false;
+
+	@Nullable
+	private Duration earlyRefreshAfter;
+
+	private double earlyRefreshBeta = 1.0;
+
 	@Nullable
 	private CacheOperationSource cacheOperationSource;
 
@@ -195,6 +239,99 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Set whether methods returning a {@link CompletableFuture}, a {@link CompletionStage}
+	 * or a reactive type should be cached based on their resolved value, with
+	 * concurrent {@code @Cacheable} misses for the same key sharing a single
+	 * invocation of the method.
+	 * <p>Note that this changes what gets stored in the cache for such methods:
+	 * their values rather than the returned handles, with multi-value publishers
+	 * being stored as a {@link List} of their elements. Cache expressions referring
+	 * to {@code #result} see the resolved value as well.
+	 * <p>Default is "false", caching the returned future or publisher as-is.
+	 * @since 5.2.19
+	 */
+	public void setAsyncResultCaching(boolean asyncResultCaching) {
+		this.asyncResultCaching = asyncResultCaching;
+	}
+
+	/**
+	 * Return whether methods with asynchronous return types are cached based
+	 * on their resolved value.
+	 * @since 5.2.19
+	 */
+	public boolean isAsyncResultCaching() {
+		return this.asyncResultCaching;
+	}
+
+	/**
+	 * Set whether {@code @Cacheable(sync=true)} operations should coalesce
+	 * concurrent loads of the same key within this cache aspect, rather than
+	 * relying on the locking of {@link Cache#get(Object, java.util.concurrent.Callable)}.
+	 * <p>With single-flight loading, the first caller missing a key invokes the
+	 * method and puts the result into the cache, while concurrent callers for the
+	 * same key wait for that result. No lock of the cache provider is held during
+	 * the load, so loads for unrelated keys never block each other. Note that
+	 * concurrent loads are only coalesced within the current JVM.
+	 * <p>Default is "false", delegating to the cache provider.
+	 * @since 5.2.19
+	 * @see #setEarlyRefreshAfter
+	 */
+	public void setSingleFlight(boolean singleFlight) {
+		this.singleFlight = singleFlight;
+	}
+
+	/**
+	 * Return whether {@code @Cacheable(sync=true)} operations coalesce concurrent
+	 * loads within this cache aspect.
+	 * @since 5.2.19
+	 */
+	public boolean isSingleFlight() {
+		return this.singleFlight;
+	}
+
+	/**
+	 * Set the age after which entries loaded by single-flight {@code @Cacheable(sync=true)}
+	 * operations should be refreshed, protecting against a stampede of loads once
+	 * the entry expires in the underlying cache.
+	 * <p>Entries are refreshed probabilistically ahead of the given age: the longer
+	 * the previous load took and the closer the entry gets to the given age, the more
+	 * likely a caller is to refresh it, while all other callers keep receiving the
+	 * cached value. This should therefore be somewhat shorter than the time-to-live
+	 * of the cache. Only applies if {@link #setSingleFlight single-flight} loading
+	 * is enabled.
+	 * <p>By default, no early refresh happens.
+	 * @since 5.2.19
+	 * @see #setEarlyRefreshBeta
+	 */
+	public void setEarlyRefreshAfter(@Nullable Duration earlyRefreshAfter) {
+		Assert.isTrue(earlyRefreshAfter == null || !earlyRefreshAfter.isNegative(),
+				"Early refresh age must not be negative");
+		this.earlyRefreshAfter = earlyRefreshAfter;
+	}
+
+	/**
+	 * Return the age after which single-flight loaded entries are refreshed, if any.
+	 * @since 5.2.19
+	 */
+	@Nullable
+	public Duration getEarlyRefreshAfter() {
+		return this.earlyRefreshAfter;
+	}
+
+	/**
+	 * Set the factor by which refreshes are brought forward, relative to the
+	 * duration of the previous load. Values above 1.0 favor earlier refreshes,
+	 * values below 1.0 favor later ones.
+	 * <p>By default this is 1.0.
+	 * @since 5.2.19
+	 * @see #setEarlyRefreshAfter
+	 */
+	public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+		Assert.isTrue(earlyRefreshBeta >= 0, "Early refresh beta must not be negative");
+		this.earlyRefreshBeta = earlyRefreshBeta;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -372,6 +509,33 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		// Special handling of asynchronous return types, caching their resolved value
+		if (this.asyncResultCaching) {
+			Class<?> returnType = method.getReturnType();
+			if (CompletableFuture.class == returnType || CompletionStage.class == returnType) {
+				return executeAsync(method, contexts, () -> {
+					Object returnValue = invokeOperation(invoker);
+					return (returnValue != null ? ((CompletionStage<?>) returnValue).toCompletableFuture() :
+							CompletableFuture.completedFuture(null));
+				});
+			}
+			if (this.reactiveCachingHandler != null && this.reactiveCachingHandler.isReactiveType(returnType)) {
+				return this.reactiveCachingHandler.execute(invoker, method, contexts);
+			}
+		}
+
+		// Special handling of multi-key invocation
+		if (contexts.isMultiKey()) {
+			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
+			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+				return handleMultiKeyGet(invoker, method, context.getCaches().iterator().next(), contexts);
+			}
+			else {
+				// No caching required, only call the underlying method
+				return invokeOperation(invoker);
+			}
+		}
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
@@ -379,7 +543,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
 				try {
-					return wrapCacheValue(method, handleSynchronizedGet(invoker, key, cache));
+					return wrapCacheValue(method, (this.singleFlight ?
+							handleSingleFlightGet(invoker, key, cache) : handleSynchronizedGet(invoker, key, cache)));
 				}
 				catch (Cache.ValueRetrievalException ex) {
 					// Directly propagate ThrowableWrapper from the invoker,
@@ -436,6 +601,90 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return returnValue;
 	}
 
+	/**
+	 * Execute the cache operations for a method with an asynchronous result,
+	 * applying puts and late evictions once the result has been resolved.
+	 * @param method the method being invoked
+	 * @param contexts the cache operation contexts
+	 * @param invocation the invocation of the underlying method, adapting its
+	 * return value to a future for the resolved value
+	 * @return a future for the resolved value, either from the cache or from
+	 * the (possibly shared) invocation of the underlying method, which is never
+	 * handed out to more than one caller
+	 */
+	private CompletableFuture<?> executeAsync(Method method, CacheOperationContexts contexts,
+			Supplier<CompletableFuture<?>> invocation) {
+
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+				CacheOperationExpressionEvaluator.NO_RESULT);
+
+		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
+		if (cacheHit != null && !hasCachePut(contexts)) {
+			return CompletableFuture.completedFuture(cacheHit.get());
+		}
+
+		List<CachePutRequest> cachePutRequests = new LinkedList<>();
+		if (cacheHit == null) {
+			collectPutRequests(contexts.get(CacheableOperation.class),
+					CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+		}
+
+		// Share a pending invocation for the same key of a plain @Cacheable miss
+		Object inFlightKey = null;
+		CompletableFuture<Object> sharedResult = null;
+		if (!cachePutRequests.isEmpty() && contexts.get(CachePutOperation.class).isEmpty()) {
+			CachePutRequest cachePutRequest = cachePutRequests.get(0);
+			inFlightKey = getInFlightKey(cachePutRequest.context.getCaches(), cachePutRequest.key);
+			sharedResult = new CompletableFuture<>();
+			CompletableFuture<Object> inFlight = this.inFlightInvocations.putIfAbsent(inFlightKey, sharedResult);
+			if (inFlight != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Joining pending invocation for cache key '" + cachePutRequest.key + "'");
+				}
+				// Keep callers from completing or cancelling the shared future
+				return inFlight.thenApply(Function.identity());
+			}
+		}
+
+		CompletableFuture<?> result;
+		try {
+			result = invocation.get();
+		}
+		catch (RuntimeException | Error ex) {
+			if (sharedResult != null) {
+				this.inFlightInvocations.remove(inFlightKey, sharedResult);
+				sharedResult.completeExceptionally(ex);
+			}
+			throw ex;
+		}
+
+		Object keyToRelease = inFlightKey;
+		CompletableFuture<Object> resultToComplete = sharedResult;
+		return result.whenComplete((value, ex) -> {
+			try {
+				if (ex == null) {
+					// Collect any explicit @CachePuts, then process all put requests and late evictions
+					collectPutRequests(contexts.get(CachePutOperation.class), value, cachePutRequests);
+					for (CachePutRequest cachePutRequest : cachePutRequests) {
+						cachePutRequest.apply(value);
+					}
+					processCacheEvicts(contexts.get(CacheEvictOperation.class), false, value);
+				}
+			}
+			finally {
+				if (resultToComplete != null) {
+					this.inFlightInvocations.remove(keyToRelease, resultToComplete);
+					if (ex != null) {
+						resultToComplete.completeExceptionally(ex);
+					}
+					else {
+						resultToComplete.complete(value);
+					}
+				}
+			}
+		});
+	}
+
 	@Nullable
 	private Object handleSynchronizedGet(CacheOperationInvoker invoker, Object key, Cache cache) {
 		InvocationAwareResult invocationResult = new InvocationAwareResult();
@@ -452,6 +701,172 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return result;
 	}
 
+	@Nullable
+	private Object handleMultiKeyGet(CacheOperationInvoker invoker, Method method, Cache cache,
+			CacheOperationContexts contexts) {
+
+		int index = contexts.getMultiKeyArgumentIndex();
+		Object[] args = contexts.getArgs();
+		Collection<?> keys = (Collection<?>) args[index];
+		if (CollectionUtils.isEmpty(keys)) {
+			return invokeOperation(invoker);
+		}
+
+		Map<Object, Cache.ValueWrapper> cached = doGetAll(cache, keys);
+		Collection<Object> missingKeys = CollectionFactory.createCollection(
+				method.getParameterTypes()[index], keys.size());
+		for (Object key : keys) {
+			if (!cached.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+
+		Map<?, ?> loaded = Collections.emptyMap();
+		if (!missingKeys.isEmpty()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("No cache entries for " + missingKeys.size() + " of " + keys.size() +
+						" keys in cache '" + cache.getName() + "'");
+			}
+			Object[] argsToUse = args.clone();
+			argsToUse[index] = missingKeys;
+			Object returnValue = invokeOperation(() -> invoker.invoke(argsToUse));
+			if (returnValue != null) {
+				loaded = (Map<?, ?>) returnValue;
+				doPutAll(cache, loaded);
+			}
+			if (cached.isEmpty()) {
+				return returnValue;
+			}
+		}
+		else if (logger.isTraceEnabled()) {
+			logger.trace("Cache entries for all " + keys.size() + " keys found in cache '" + cache.getName() + "'");
+		}
+
+		Map<Object, Object> result = CollectionFactory.createMap(method.getReturnType(), keys.size());
+		for (Object key : keys) {
+			Cache.ValueWrapper wrapper = cached.get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper.get());
+			}
+			else if (loaded.containsKey(key)) {
+				result.put(key, loaded.get(key));
+			}
+		}
+		return result;
+	}
+
+	@Nullable
+	private Object handleSingleFlightGet(CacheOperationInvoker invoker, Object key, Cache cache) {
+		Object loadKey = getInFlightKey(Collections.singleton(cache), key);
+		Cache.ValueWrapper cached = doGet(cache, key);
+		if (cached != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Cache entry for key '" + key + "' found in cache '" + cache.getName() + "'");
+			}
+			if (isEarlyRefreshDue(cache, key)) {
+				CompletableFuture<Object> load = new CompletableFuture<>();
+				if (this.inFlightInvocations.putIfAbsent(loadKey, load) == null) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Refreshing cache entry for key '" + key + "' in cache '" + cache.getName() + "'");
+					}
+					return load(invoker, key, cache, loadKey, load);
+				}
+			}
+			return cached.get();
+		}
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("No cache entry for key '" + key + "' in cache " + cache.getName());
+		}
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> inFlight = this.inFlightInvocations.putIfAbsent(loadKey, load);
+		if (inFlight != null) {
+			return awaitLoad(inFlight);
+		}
+		// Another load may have completed in the meantime
+		cached = doGet(cache, key);
+		if (cached != null) {
+			this.inFlightInvocations.remove(loadKey, load);
+			load.complete(cached.get());
+			return cached.get();
+		}
+		return load(invoker, key, cache, loadKey, load);
+	}
+
+	@Nullable
+	private Object load(CacheOperationInvoker invoker, Object key, Cache cache,
+			Object loadKey, CompletableFuture<Object> load) {
+
+		try {
+			long start = System.nanoTime();
+			Object value = unwrapReturnValue(invokeOperation(invoker));
+			doPut(cache, key, value);
+			if (this.earlyRefreshAfter != null) {
+				long end = System.nanoTime();
+				this.loadMetadata.computeIfAbsent(cache, c -> new ConcurrentReferenceHashMap<>(64))
+						.put(key, new LoadMetadata(end, end - start));
+			}
+			load.complete(value);
+			return value;
+		}
+		catch (RuntimeException | Error ex) {
+			load.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlightInvocations.remove(loadKey, load);
+		}
+	}
+
+	@Nullable
+	private Object awaitLoad(CompletableFuture<Object> load) {
+		try {
+			return load.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for concurrent load of cache entry", ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CacheOperationInvoker.ThrowableWrapper(cause);
+		}
+	}
+
+	/**
+	 * Determine whether the entry for the given key should be refreshed ahead
+	 * of its configured age, based on the duration of its previous load.
+	 */
+	private boolean isEarlyRefreshDue(Cache cache, Object key) {
+		Duration refreshAfter = this.earlyRefreshAfter;
+		if (refreshAfter == null) {
+			return false;
+		}
+		Map<Object, LoadMetadata> cacheMetadata = this.loadMetadata.get(cache);
+		LoadMetadata metadata = (cacheMetadata != null ? cacheMetadata.get(key) : null);
+		if (metadata == null) {
+			return false;
+		}
+		long age = System.nanoTime() - metadata.loadedAt;
+		double random = 1.0 - ThreadLocalRandom.current().nextDouble();  // (0, 1]
+		return (age - metadata.loadDuration * this.earlyRefreshBeta * Math.log(random) >= refreshAfter.toNanos());
+	}
+
+	/**
+	 * Build the key under which a pending invocation for the given cache key
+	 * is registered, so that the invocation gets shared by all callers that
+	 * are about to populate the same entry.
+	 */
+	private static Object getInFlightKey(Collection<? extends Cache> caches, Object key) {
+		return new SimpleKey(caches.toArray(), key);
+	}
+
 	@Nullable
 	private Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
 		if (method.getReturnType() == Optional.class &&
@@ -503,6 +918,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (operation.isCacheWide()) {
 				logInvalidating(context, operation, null);
 				doClear(cache, operation.isBeforeInvocation());
+				this.loadMetadata.remove(cache);
 			}
 			else {
 				if (key == null) {
@@ -510,6 +926,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				}
 				logInvalidating(context, operation, key);
 				doEvict(cache, key, operation.isBeforeInvocation());
+				Map<Object, LoadMetadata> cacheMetadata = this.loadMetadata.get(cache);
+				if (cacheMetadata != null) {
+					cacheMetadata.remove(key);
+				}
 			}
 		}
 	}
@@ -607,6 +1027,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final boolean sync;
 
+		private final Object[] args;
+
+		private final int multiKeyArgumentIndex;
+
 		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
 				Object[] args, Object target, Class<?> targetClass) {
 
@@ -615,6 +1039,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
 			}
 			this.sync = determineSyncFlag(method);
+			this.args = args;
+			this.multiKeyArgumentIndex = determineMultiKeyArgumentIndex(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -626,6 +1052,18 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.sync;
 		}
 
+		public boolean isMultiKey() {
+			return (this.multiKeyArgumentIndex >= 0);
+		}
+
+		public Object[] getArgs() {
+			return this.args;
+		}
+
+		public int getMultiKeyArgumentIndex() {
+			return this.multiKeyArgumentIndex;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -661,6 +1099,100 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			return false;
 		}
+
+		private int determineMultiKeyArgumentIndex(Method method) {
+			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
+			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
+				return -1;
+			}
+			boolean multiKeyEnabled = false;
+			for (CacheOperationContext cacheOperationContext : cacheOperationContexts) {
+				if (((CacheableOperation) cacheOperationContext.getOperation()).isMultiKey()) {
+					multiKeyEnabled = true;
+					break;
+				}
+			}
+			if (!multiKeyEnabled) {
+				return -1;
+			}
+			if (this.contexts.size() > 1 || cacheOperationContexts.size() > 1) {
+				throw new IllegalStateException(
+						"@Cacheable(multiKey=true) cannot be combined with other cache operations on '" + method + "'");
+			}
+			CacheOperationContext cacheOperationContext = cacheOperationContexts.iterator().next();
+			CacheableOperation operation = (CacheableOperation) cacheOperationContext.getOperation();
+			if (cacheOperationContext.getCaches().size() > 1) {
+				throw new IllegalStateException(
+						"@Cacheable(multiKey=true) only allows a single cache on '" + operation + "'");
+			}
+			if (StringUtils.hasText(operation.getKey()) || StringUtils.hasText(operation.getKeyGenerator())) {
+				throw new IllegalStateException(
+						"@Cacheable(multiKey=true) does not support key or keyGenerator attributes on '" + operation + "'");
+			}
+			if (StringUtils.hasText(operation.getUnless()) || operation.isSync()) {
+				throw new IllegalStateException(
+						"@Cacheable(multiKey=true) does not support unless or sync attributes on '" + operation + "'");
+			}
+			if (!Map.class.isAssignableFrom(method.getReturnType())) {
+				throw new IllegalStateException(
+						"@Cacheable(multiKey=true) requires a Map return type on '" + method + "'");
+			}
+			// Further arguments would not be reflected in the keys, sharing entries across their values
+			if (method.getParameterCount() != 1 || !Collection.class.isAssignableFrom(method.getParameterTypes()[0])) {
+				throw new IllegalStateException(
+						"@Cacheable(multiKey=true) requires a single Collection parameter and no other parameters on '" +
+						method + "'");
+			}
+			return 0;
+		}
+	}
+
+
+	private static final class LoadMetadata {
+
+		final long loadedAt;
+
+		final long loadDuration;
+
+		LoadMetadata(long loadedAt, long loadDuration) {
+			this.loadedAt = loadedAt;
+			this.loadDuration = loadDuration;
+		}
+	}
+
+
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private class ReactiveCachingHandler {
+
+		private final ReactiveAdapterRegistry registry = ReactiveAdapterRegistry.getSharedInstance();
+
+		public boolean isReactiveType(Class<?> returnType) {
+			ReactiveAdapter adapter = this.registry.getAdapter(returnType);
+			return (adapter != null && !adapter.isNoValue());
+		}
+
+		public Object execute(CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+			ReactiveAdapter adapter = this.registry.getAdapter(method.getReturnType());
+			Assert.state(adapter != null, "No ReactiveAdapter found");
+			if (adapter.isMultiValue()) {
+				Flux<?> flux = Flux.defer(() -> Mono.fromFuture(executeAsync(method, contexts, () -> {
+					Object returnValue = invokeOperation(invoker);
+					return (returnValue != null ? Flux.from(adapter.toPublisher(returnValue)).collectList().toFuture() :
+							CompletableFuture.completedFuture(null));
+				})).flatMapIterable(list -> (Iterable<?>) list));
+				return adapter.fromPublisher(flux);
+			}
+			else {
+				Mono<?> mono = Mono.defer(() -> Mono.fromFuture(executeAsync(method, contexts, () -> {
+					Object returnValue = invokeOperation(invoker);
+					return (returnValue != null ? Mono.from(adapter.toPublisher(returnValue)).toFuture() :
+							CompletableFuture.completedFuture(null));
+				})));
+				return adapter.fromPublisher(mono);
+			}
+		}
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache.interceptor;
 
+import java.util.Collection;
+import java.util.Map;
+
 import org.springframework.cache.Cache;
 import org.springframework.lang.Nullable;
 
@@ -45,6 +48,24 @@ public interface CacheErrorHandler {
 	 */
 	void handleCacheGetError(RuntimeException exception, Cache cache, Object key);
 
+	/**
+	 * Handle the given runtime exception thrown by the cache provider when
+	 * retrieving the items with the specified {@code keys}, possibly
+	 * rethrowing it as a fatal exception.
+	 * <p>The default implementation calls {@link #handleCacheGetError}
+	 * for each of the given keys.
+	 * @param exception the exception thrown by the cache provider
+	 * @param cache the cache
+	 * @param keys the keys used to get the items
+	 * @since 5.2.19
+	 * @see Cache#getAll(Collection)
+	 */
+	default void handleCacheGetAllError(RuntimeException exception, Cache cache, Collection<?> keys) {
+		for (Object key : keys) {
+			handleCacheGetError(exception, cache, key);
+		}
+	}
+
 	/**
 	 * Handle the given runtime exception thrown by the cache provider when
 	 * updating an item with the specified {@code key} and {@code value},
@@ -57,6 +78,24 @@ public interface CacheErrorHandler {
 	 */
 	void handleCachePutError(RuntimeException exception, Cache cache, Object key, @Nullable Object value);
 
+	/**
+	 * Handle the given runtime exception thrown by the cache provider when
+	 * updating the items for the specified {@code entries}, possibly
+	 * rethrowing it as a fatal exception.
+	 * <p>The default implementation calls {@link #handleCachePutError}
+	 * for each of the given entries.
+	 * @param exception the exception thrown by the cache provider
+	 * @param cache the cache
+	 * @param entries the keys and values used to update the items
+	 * @since 5.2.19
+	 * @see Cache#putAll(Map)
+	 */
+	default void handleCachePutAllError(RuntimeException exception, Cache cache, Map<?, ?> entries) {
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			handleCachePutError(exception, cache, entry.getKey(), entry.getValue());
+		}
+	}
+
 	/**
 	 * Handle the given runtime exception thrown by the cache provider when
 	 * clearing an item with the specified {@code key}, possibly rethrowing
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Cache} implementation fronting a (typically remote) target cache
+ * with a local cache, serving repeated reads of hot keys from the local tier.
+ *
+ * <p>Reads consult the local cache first and populate it from the target
+ * cache on a miss, without replacing an existing local entry. Writes and
+ * evictions are applied to the target cache and then remove the key from
+ * the local cache, so that the next read picks up the new value. Note that
+ * the local cache may still serve stale values: a read that fetched the
+ * previous value from the target cache before a concurrent write may put
+ * that value into the local cache after the write has removed the key.
+ * Such an entry remains until the key gets written or invalidated again,
+ * or until the local cache expires it, so local caches should be configured
+ * with a time-to-live that bounds the acceptable staleness.
+ *
+ * <p>Since the local cache only reflects changes made through this instance,
+ * modifications from other processes have to be propagated through
+ * {@link #invalidateLocal(Object)} and {@link #invalidateLocal()}, e.g. in
+ * response to messages emitted by an invalidation callback.
+ *
+ * <p>Note: {@code null} values are never stored in the local cache, so every
+ * read of a key that is mapped to {@code null} goes to the target cache.
+ *
+ * @since 5.2.19
+ * @see TwoLevelCacheManager
+ */
+public class TwoLevelCache implements Cache {
+
+	private final Cache localCache;
+
+	private final Cache targetCache;
+
+	@Nullable
+	private final BiConsumer<String, Object> invalidationCallback;
+
+
+	/**
+	 * Create a new TwoLevelCache for the given local and target caches.
+	 * @param localCache the local cache to serve reads from
+	 * @param targetCache the target cache to delegate to
+	 */
+	public TwoLevelCache(Cache localCache, Cache targetCache) {
+		this(localCache, targetCache, null);
+	}
+
+	/**
+	 * Create a new TwoLevelCache for the given local and target caches.
+	 * @param localCache the local cache to serve reads from
+	 * @param targetCache the target cache to delegate to
+	 * @param invalidationCallback a callback to notify with the name of this
+	 * cache and the affected key (or {@code null} for the entire cache) after
+	 * every put or eviction, e.g. for propagating invalidations to the local
+	 * caches of other processes
+	 */
+	public TwoLevelCache(Cache localCache, Cache targetCache,
+			@Nullable BiConsumer<String, Object> invalidationCallback) {
+
+		Assert.notNull(localCache, "Local cache must not be null");
+		Assert.notNull(targetCache, "Target cache must not be null");
+		this.localCache = localCache;
+		this.targetCache = targetCache;
+		this.invalidationCallback = invalidationCallback;
+	}
+
+
+	/**
+	 * Return the local cache that reads are served from.
+	 */
+	public Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	/**
+	 * Return the target cache that this cache delegates to.
+	 */
+	public Cache getTargetCache() {
+		return this.targetCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.targetCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.targetCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper == null) {
+			wrapper = this.targetCache.get(key);
+			if (wrapper != null) {
+				populateLocal(key, wrapper.get());
+			}
+		}
+		return wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		T value = this.targetCache.get(key, valueLoader);
+		populateLocal(key, value);
+		return value;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.targetCache.put(key, value);
+		this.localCache.evict(key);
+		notifyInvalidation(key);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ValueWrapper existing = this.targetCache.putIfAbsent(key, value);
+		if (existing == null) {
+			this.localCache.evict(key);
+			notifyInvalidation(key);
+		}
+		else {
+			populateLocal(key, existing.get());
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.targetCache.evict(key);
+		this.localCache.evict(key);
+		notifyInvalidation(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		boolean evicted = this.targetCache.evictIfPresent(key);
+		evicted |= this.localCache.evictIfPresent(key);
+		notifyInvalidation(key);
+		return evicted;
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> localValues = this.localCache.getAll(keys);
+		if (localValues.size() == keys.size()) {
+			return localValues;
+		}
+		List<Object> missingKeys = new ArrayList<>(keys.size() - localValues.size());
+		for (Object key : keys) {
+			if (!localValues.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		Map<Object, ValueWrapper> targetValues = this.targetCache.getAll(missingKeys);
+		targetValues.forEach((key, wrapper) -> populateLocal(key, wrapper.get()));
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = localValues.get(key);
+			if (wrapper == null) {
+				wrapper = targetValues.get(key);
+			}
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		this.targetCache.putAll(entries);
+		this.localCache.evictAll(entries.keySet());
+		entries.keySet().forEach(this::notifyInvalidation);
+	}
+
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.targetCache.evictAll(keys);
+		this.localCache.evictAll(keys);
+		keys.forEach(this::notifyInvalidation);
+	}
+
+	@Override
+	public void clear() {
+		this.targetCache.clear();
+		this.localCache.clear();
+		notifyInvalidation(null);
+	}
+
+	@Override
+	public boolean invalidate() {
+		boolean invalidated = this.targetCache.invalidate();
+		invalidated |= this.localCache.invalidate();
+		notifyInvalidation(null);
+		return invalidated;
+	}
+
+	/**
+	 * Remove the given key from the local cache only, e.g. after a
+	 * modification of the target cache by another process.
+	 * @param key the key to invalidate
+	 */
+	public void invalidateLocal(Object key) {
+		this.localCache.evict(key);
+	}
+
+	/**
+	 * Clear the local cache only, e.g. after the target cache has
+	 * been cleared by another process.
+	 */
+	public void invalidateLocal() {
+		this.localCache.clear();
+	}
+
+	private void populateLocal(Object key, @Nullable Object value) {
+		if (value != null) {
+			this.localCache.putIfAbsent(key, value);
+		}
+	}
+
+	private void notifyInvalidation(@Nullable Object key) {
+		if (this.invalidationCallback != null) {
+			this.invalidationCallback.accept(getName(), key);
+		}
+	}
+
+}
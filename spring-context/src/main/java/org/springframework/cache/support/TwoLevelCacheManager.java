@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation that fronts the caches of a (typically
+ * remote) target {@link CacheManager} with the caches of a local one, e.g.
+ * a JCache-based target with a bounded Caffeine-based local tier. Reads of
+ * hot keys are then served from the local cache, avoiding the round trip
+ * and serialization cost of the target cache.
+ *
+ * <p>Each cache is exposed as a {@link TwoLevelCache}, using the local cache
+ * of the same name. Caches that the local cache manager does not provide
+ * are exposed as the plain target cache. Make sure to bound the size and
+ * lifetime of the local caches, since they only see changes made in the
+ * current process: use an {@link #setInvalidationCallback invalidation
+ * callback} for broadcasting changes and {@link #invalidateLocal} for
+ * applying changes received from other processes.
+ *
+ * <p>For transaction-aware caching, wrap this cache manager in a
+ * {@code TransactionAwareCacheManagerProxy} rather than making the target
+ * cache manager transaction-aware, so that writes to both tiers are deferred
+ * until after a successful commit.
+ *
+ * @since 5.2.19
+ * @see TwoLevelCache
+ */
+public class TwoLevelCacheManager extends AbstractCacheManager {
+
+	private final CacheManager localCacheManager;
+
+	private final CacheManager targetCacheManager;
+
+	@Nullable
+	private BiConsumer<String, Object> invalidationCallback;
+
+
+	/**
+	 * Create a new TwoLevelCacheManager for the given local and target cache managers.
+	 * @param localCacheManager the cache manager providing the local caches
+	 * @param targetCacheManager the cache manager providing the target caches
+	 */
+	public TwoLevelCacheManager(CacheManager localCacheManager, CacheManager targetCacheManager) {
+		Assert.notNull(localCacheManager, "Local CacheManager must not be null");
+		Assert.notNull(targetCacheManager, "Target CacheManager must not be null");
+		this.localCacheManager = localCacheManager;
+		this.targetCacheManager = targetCacheManager;
+	}
+
+
+	/**
+	 * Set a callback to notify with the cache name and the affected key (or
+	 * {@code null} for the entire cache) after every put or eviction through
+	 * this cache manager, e.g. for publishing invalidation messages to other
+	 * processes sharing the same target caches.
+	 * <p>Needs to be set before the caches are initialized.
+	 */
+	public void setInvalidationCallback(@Nullable BiConsumer<String, Object> invalidationCallback) {
+		this.invalidationCallback = invalidationCallback;
+	}
+
+	/**
+	 * Remove the given key from the local cache of the given name, or clear
+	 * that local cache if no key is specified. To be called when receiving
+	 * invalidations from other processes.
+	 * @param cacheName the name of the cache
+	 * @param key the key to invalidate, or {@code null} for the entire cache
+	 */
+	public void invalidateLocal(String cacheName, @Nullable Object key) {
+		Cache localCache = this.localCacheManager.getCache(cacheName);
+		if (localCache != null) {
+			if (key != null) {
+				localCache.evict(key);
+			}
+			else {
+				localCache.clear();
+			}
+		}
+	}
+
+
+	@Override
+	protected Collection<? extends Cache> loadCaches() {
+		Collection<String> cacheNames = this.targetCacheManager.getCacheNames();
+		List<Cache> caches = new ArrayList<>(cacheNames.size());
+		for (String name : cacheNames) {
+			Cache cache = getMissingCache(name);
+			if (cache != null) {
+				caches.add(cache);
+			}
+		}
+		return caches;
+	}
+
+	@Override
+	@Nullable
+	protected Cache getMissingCache(String name) {
+		Cache targetCache = this.targetCacheManager.getCache(name);
+		if (targetCache == null) {
+			return null;
+		}
+		Cache localCache = this.localCacheManager.getCache(name);
+		return (localCache != null ? new TwoLevelCache(localCache, targetCache, this.invalidationCallback) :
+				targetCache);
+	}
+
+}
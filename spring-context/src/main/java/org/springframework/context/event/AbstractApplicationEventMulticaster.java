@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.context.event;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -33,12 +35,15 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Abstract implementation of the {@link ApplicationEventMulticaster} interface,
@@ -67,6 +72,10 @@ public abstract class AbstractApplicationEventMulticaster
 
 	final Map<ListenerCacheKey, CachedListenerRetriever> retrieverCache = new ConcurrentHashMap<>(64);
 
+	final Map<EventClassKey, CachedListenerRetriever> retrieverIndex = new ConcurrentHashMap<>(64);
+
+	private final boolean retrieverIndexEnabled = !isListenerLookupOverridden(getClass());
+
 	@Nullable
 	private ClassLoader beanClassLoader;
 
@@ -109,7 +118,7 @@ public abstract class AbstractApplicationEventMulticaster
 				this.defaultRetriever.applicationListeners.remove(singletonTarget);
 			}
 			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
+			invalidateRetrievers(listener, singletonTarget, true);
 		}
 	}
 
@@ -117,7 +126,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void addApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.defaultRetriever) {
 			this.defaultRetriever.applicationListenerBeans.add(listenerBeanName);
-			this.retrieverCache.clear();
+			clearRetrievers();
 		}
 	}
 
@@ -125,7 +134,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.defaultRetriever) {
 			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			invalidateRetrievers(listener, null, false);
 		}
 	}
 
@@ -133,7 +142,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void removeApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.defaultRetriever) {
 			this.defaultRetriever.applicationListenerBeans.remove(listenerBeanName);
-			this.retrieverCache.clear();
+			clearRetrievers();
 		}
 	}
 
@@ -142,8 +151,56 @@ public abstract class AbstractApplicationEventMulticaster
 		synchronized (this.defaultRetriever) {
 			this.defaultRetriever.applicationListeners.clear();
 			this.defaultRetriever.applicationListenerBeans.clear();
-			this.retrieverCache.clear();
+			clearRetrievers();
+		}
+	}
+
+
+	/**
+	 * Invalidate the cached retrievers affected by the addition or removal of
+	 * the given listener, keeping all other cache entries intact.
+	 * <p>Retrievers that are not fully populated yet get invalidated in any case,
+	 * since they may have been populated from an outdated set of listeners.
+	 * @param listener the listener that has been added or removed
+	 * @param singletonTarget the target of a proxied listener that has been
+	 * replaced by the given listener, if any
+	 * @param added whether the given listener has been added or removed
+	 */
+	private void invalidateRetrievers(ApplicationListener<?> listener, @Nullable Object singletonTarget, boolean added) {
+		Iterator<Map.Entry<ListenerCacheKey, CachedListenerRetriever>> it = this.retrieverCache.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<ListenerCacheKey, CachedListenerRetriever> entry = it.next();
+			ListenerCacheKey cacheKey = entry.getKey();
+			CachedListenerRetriever retriever = entry.getValue();
+			Set<ApplicationListener<?>> applicationListeners = retriever.applicationListeners;
+			boolean affected;
+			if (applicationListeners == null || retriever.applicationListenerBeans == null) {
+				affected = true;
+			}
+			else if (added) {
+				affected = (applicationListeners.contains(singletonTarget) ||
+						supportsEvent(listener, cacheKey.eventType, cacheKey.sourceType));
+			}
+			else {
+				affected = applicationListeners.contains(listener);
+			}
+			if (affected) {
+				retriever.invalidated = true;
+				it.remove();
+			}
+		}
+		this.retrieverIndex.values().removeIf(retriever -> retriever.invalidated);
+	}
+
+	/**
+	 * Invalidate all cached retrievers.
+	 */
+	private void clearRetrievers() {
+		for (CachedListenerRetriever retriever : this.retrieverCache.values()) {
+			retriever.invalidated = true;
 		}
+		this.retrieverCache.clear();
+		this.retrieverIndex.clear();
 	}
 
 
@@ -204,6 +261,82 @@ public abstract class AbstractApplicationEventMulticaster
 		return retrieveApplicationListeners(eventType, sourceType, newRetriever);
 	}
 
+	/**
+	 * Return a Collection of ApplicationListeners matching the given event,
+	 * with the event type derived from the event instance itself.
+	 * <p>Events whose type is fully determined by their class - and by the class
+	 * of the payload in case of a {@link PayloadApplicationEvent} - are looked up
+	 * by class, resolving their {@link ResolvableType} only on the first lookup.
+	 * If {@link #getApplicationListeners(ApplicationEvent, ResolvableType)} is
+	 * overridden, it is invoked with the resolved type for every event instead.
+	 * @param event the event to be propagated
+	 * @return a Collection of ApplicationListeners
+	 * @since 5.2.19
+	 * @see ResolvableType#forInstance(Object)
+	 */
+	protected Collection<ApplicationListener<?>> getApplicationListeners(ApplicationEvent event) {
+		Object source = event.getSource();
+		Class<?> sourceType = (source != null ? source.getClass() : null);
+		EventClassKey indexKey = (this.retrieverIndexEnabled ? createIndexKey(event, sourceType) : null);
+		if (indexKey != null) {
+			CachedListenerRetriever indexedRetriever = this.retrieverIndex.get(indexKey);
+			if (indexedRetriever != null && !indexedRetriever.invalidated) {
+				Collection<ApplicationListener<?>> result = indexedRetriever.getApplicationListeners();
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+
+		ResolvableType eventType = ResolvableType.forInstance(event);
+		Collection<ApplicationListener<?>> result = getApplicationListeners(event, eventType);
+		if (indexKey != null) {
+			CachedListenerRetriever retriever = this.retrieverCache.get(new ListenerCacheKey(eventType, sourceType));
+			// An invalidated retriever may still get indexed in case of a concurrent
+			// invalidation, but will be ignored and replaced on the next lookup then.
+			if (retriever != null && !retriever.invalidated && retriever.getApplicationListeners() != null) {
+				this.retrieverIndex.put(indexKey, retriever);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Create a key for the retriever index, if the type of the given event is
+	 * fully determined by the class of the event - and the class of the payload
+	 * in case of a {@link PayloadApplicationEvent}.
+	 * @return the index key, or {@code null} if the event cannot be indexed
+	 */
+	@Nullable
+	private EventClassKey createIndexKey(ApplicationEvent event, @Nullable Class<?> sourceType) {
+		Class<?> eventClass = event.getClass();
+		if (this.beanClassLoader != null && (!ClassUtils.isCacheSafe(eventClass, this.beanClassLoader) ||
+				(sourceType != null && !ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
+			return null;
+		}
+		Class<?> payloadType = null;
+		if (eventClass == PayloadApplicationEvent.class) {
+			Object payload = ((PayloadApplicationEvent<?>) event).getPayload();
+			if (payload instanceof ResolvableTypeProvider) {
+				return null;
+			}
+			payloadType = payload.getClass();
+			if (this.beanClassLoader != null && !ClassUtils.isCacheSafe(payloadType, this.beanClassLoader)) {
+				return null;
+			}
+		}
+		else if (event instanceof ResolvableTypeProvider) {
+			return null;
+		}
+		return new EventClassKey(eventClass, payloadType, sourceType);
+	}
+
+	private static boolean isListenerLookupOverridden(Class<?> multicasterClass) {
+		Method method = ReflectionUtils.findMethod(multicasterClass, "getApplicationListeners",
+				ApplicationEvent.class, ResolvableType.class);
+		return (method != null && method.getDeclaringClass() != AbstractApplicationEventMulticaster.class);
+	}
+
 	/**
 	 * Actually retrieve the application listeners for the given event and source type.
 	 * @param eventType the event type
@@ -418,6 +551,54 @@ public abstract class AbstractApplicationEventMulticaster
 	}
 
 
+	/**
+	 * Index key for ListenerRetrievers, based on event class, payload class
+	 * and source type, for events whose default event type is determined by
+	 * those classes alone.
+	 */
+	private static final class EventClassKey {
+
+		private final Class<?> eventClass;
+
+		@Nullable
+		private final Class<?> payloadType;
+
+		@Nullable
+		private final Class<?> sourceType;
+
+		public EventClassKey(Class<?> eventClass, @Nullable Class<?> payloadType, @Nullable Class<?> sourceType) {
+			this.eventClass = eventClass;
+			this.payloadType = payloadType;
+			this.sourceType = sourceType;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof EventClassKey)) {
+				return false;
+			}
+			EventClassKey otherKey = (EventClassKey) other;
+			return (this.eventClass == otherKey.eventClass && this.payloadType == otherKey.payloadType &&
+					this.sourceType == otherKey.sourceType);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.eventClass.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.payloadType)) * 29 +
+					ObjectUtils.nullSafeHashCode(this.sourceType);
+		}
+
+		@Override
+		public String toString() {
+			return "EventClassKey [eventClass = " + this.eventClass.getName() + ", payloadType = " +
+					this.payloadType + ", sourceType = " + this.sourceType + "]";
+		}
+	}
+
+
 	/**
 	 * Helper class that encapsulates a specific set of target listeners,
 	 * allowing for efficient retrieval of pre-filtered listeners.
@@ -425,6 +606,12 @@ public abstract class AbstractApplicationEventMulticaster
 	 */
 	private class CachedListenerRetriever {
 
+		/**
+		 * Set once this retriever got removed from the cache due to a change
+		 * of registered listeners, so that it won't be served from the index.
+		 */
+		public volatile boolean invalidated;
+
 		@Nullable
 		public volatile Set<ApplicationListener<?>> applicationListeners;
 
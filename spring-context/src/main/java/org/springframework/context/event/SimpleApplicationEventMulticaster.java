@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,16 +16,32 @@
 
 package org.springframework.context.event;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -41,12 +57,25 @@ import org.springframework.util.ErrorHandler;
  * but adds minimal overhead. Specify an alternative task executor to have
  * listeners executed in different threads, for example from a thread pool.
  *
+ * <p>Alternatively, {@linkplain #setParallelDispatch parallel dispatch} invokes
+ * listeners of the same order in parallel through the task executor, while
+ * listeners of a later order only get invoked once all listeners of the previous
+ * order have completed. {@link #multicastEventAsync} dispatches an event that way
+ * without waiting for the listeners, returning a handle for their completion.
+ * Events published by a listener that is itself invoked in parallel are
+ * dispatched to their listeners in the calling thread, in order to not block
+ * an executor thread on further tasks for the same executor.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @see #setTaskExecutor
  */
-public class SimpleApplicationEventMulticaster extends AbstractApplicationEventMulticaster {
+public class SimpleApplicationEventMulticaster extends AbstractApplicationEventMulticaster
+		implements InitializingBean {
+
+	private static final ThreadLocal<Boolean> parallelListenerInvocation =
+			new NamedThreadLocal<>("Parallel application listener invocation");
 
 	@Nullable
 	private Executor taskExecutor;
@@ -54,6 +83,16 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Nullable
 	private ErrorHandler errorHandler;
 
+	private boolean parallelDispatch = false;
+
+	private long listenerTimeout = -1;
+
+	@Nullable
+	private TaskScheduler timeoutScheduler;
+
+	@Nullable
+	private BiConsumer<ApplicationListener<?>, Duration> listenerLatencyCallback;
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -121,17 +160,111 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.errorHandler;
 	}
 
+	/**
+	 * Set whether {@link #multicastEvent} should invoke listeners of the same
+	 * order in parallel through the {@linkplain #setTaskExecutor task executor},
+	 * one order after the other, waiting for all listeners to complete.
+	 * <p>By default this is {@code false}, invoking each listener individually
+	 * through the task executor, if any, without waiting for its completion.
+	 * <p>In parallel dispatch mode, an exception thrown by a listener lets the
+	 * remaining listeners of the same order complete, skips the listeners of
+	 * later orders, and is propagated to the publisher of the event, unless
+	 * handled by the {@linkplain #setErrorHandler error handler}.
+	 * <p>Since the publishing thread is blocked until all listeners have completed,
+	 * an event published from within a listener invoked in parallel is dispatched
+	 * to its listeners one after the other in the calling thread instead, without
+	 * applying the {@linkplain #setListenerTimeout listener timeout}: waiting for
+	 * further tasks on the executor from one of its own threads could otherwise
+	 * exhaust a bounded thread pool.
+	 * <p>Requires a {@linkplain #setTaskExecutor task executor}, as verified by
+	 * {@link #afterPropertiesSet()}.
+	 * @since 5.2.19
+	 * @see #multicastEventAsync(ApplicationEvent, ResolvableType)
+	 * @see org.springframework.core.annotation.Order
+	 */
+	public void setParallelDispatch(boolean parallelDispatch) {
+		this.parallelDispatch = parallelDispatch;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds to wait for an individual listener in
+	 * parallel dispatch mode, after which it is considered as failed with a
+	 * {@link TimeoutException}. Note that the listener itself keeps running.
+	 * For events published through {@link #multicastEvent}, the timeout is
+	 * reported as an {@link IllegalStateException} with the TimeoutException
+	 * as its cause.
+	 * <p>By default this is -1, waiting for listeners indefinitely.
+	 * Requires a {@linkplain #setTimeoutScheduler timeout scheduler}, as verified
+	 * by {@link #afterPropertiesSet()}.
+	 * @since 5.2.19
+	 */
+	public void setListenerTimeout(long listenerTimeout) {
+		this.listenerTimeout = listenerTimeout;
+	}
+
+	/**
+	 * Set the {@link TaskScheduler} to enforce the
+	 * {@linkplain #setListenerTimeout listener timeout} with.
+	 * <p>By default, the {@linkplain #setTaskExecutor task executor} is used
+	 * if it is a {@code TaskScheduler} as well.
+	 * @since 5.2.19
+	 * @see org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler
+	 */
+	public void setTimeoutScheduler(@Nullable TaskScheduler timeoutScheduler) {
+		this.timeoutScheduler = timeoutScheduler;
+	}
+
+	/**
+	 * Set a callback to notify with the execution time of every listener
+	 * invocation, e.g. for recording per-listener latency in a metrics registry.
+	 * <p>By default, no execution times are measured.
+	 * @since 5.2.19
+	 */
+	public void setListenerLatencyCallback(@Nullable BiConsumer<ApplicationListener<?>, Duration> callback) {
+		this.listenerLatencyCallback = callback;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.parallelDispatch && getTaskExecutor() == null) {
+			throw new IllegalArgumentException("Property 'taskExecutor' is required for parallel dispatch");
+		}
+		if (this.listenerTimeout > 0 && this.timeoutScheduler == null &&
+				!(getTaskExecutor() instanceof TaskScheduler)) {
+			throw new IllegalArgumentException("Property 'timeoutScheduler' is required for a listener timeout " +
+					"unless the 'taskExecutor' is a TaskScheduler");
+		}
+	}
+
 
 	@Override
 	public void multicastEvent(ApplicationEvent event) {
-		multicastEvent(event, resolveDefaultEventType(event));
+		multicastEvent(event, null);
 	}
 
 	@Override
 	public void multicastEvent(final ApplicationEvent event, @Nullable ResolvableType eventType) {
-		ResolvableType type = (eventType != null ? eventType : resolveDefaultEventType(event));
-		Executor executor = getTaskExecutor();
-		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+		if (this.parallelDispatch && parallelListenerInvocation.get() == null) {
+			try {
+				multicastEventAsync(event, eventType).join();
+			}
+			catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				// e.g. a TimeoutException for a listener exceeding the listener timeout
+				throw new IllegalStateException("Failed to dispatch event [" + event + "]: " + cause, cause);
+			}
+			return;
+		}
+		// Nested parallel dispatch from an executor thread: invoke listeners in place
+		Executor executor = (!this.parallelDispatch ? getTaskExecutor() : null);
+		for (ApplicationListener<?> listener : getMatchingListeners(event, eventType)) {
 			if (executor != null) {
 				executor.execute(() -> invokeListener(listener, event));
 			}
@@ -141,8 +274,107 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		}
 	}
 
-	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
-		return ResolvableType.forInstance(event);
+	/**
+	 * Multicast the given application event to appropriate listeners in parallel,
+	 * grouped by their order, without waiting for the listeners to complete.
+	 * <p>Listeners of the same order are invoked in parallel through the
+	 * {@linkplain #setTaskExecutor task executor}; listeners of a later order
+	 * only get invoked once all listeners of the previous order have completed.
+	 * @param event the event to multicast
+	 * @param eventType the type of event (can be {@code null})
+	 * @return a future completed once all listeners have completed, or completed
+	 * exceptionally with the first exception thrown by a listener, in which case
+	 * listeners of later orders are skipped
+	 * @since 5.2.19
+	 * @see #setParallelDispatch
+	 * @see #setListenerTimeout
+	 */
+	public CompletableFuture<Void> multicastEventAsync(ApplicationEvent event, @Nullable ResolvableType eventType) {
+		Executor executor = getTaskExecutor();
+		Assert.state(executor != null, "Parallel dispatch requires a task executor");
+		CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
+		for (List<ApplicationListener<?>> group : groupByOrder(getMatchingListeners(event, eventType))) {
+			result = result.thenCompose(previous -> invokeListenersInParallel(group, event, executor));
+		}
+		return result;
+	}
+
+	private Collection<ApplicationListener<?>> getMatchingListeners(
+			ApplicationEvent event, @Nullable ResolvableType eventType) {
+
+		// Without a given type, look up the listeners by event class first
+		return (eventType != null ? getApplicationListeners(event, eventType) : getApplicationListeners(event));
+	}
+
+	private List<List<ApplicationListener<?>>> groupByOrder(Collection<ApplicationListener<?>> listeners) {
+		List<List<ApplicationListener<?>>> groups = new ArrayList<>();
+		List<ApplicationListener<?>> group = null;
+		ApplicationListener<?> previous = null;
+		for (ApplicationListener<?> listener : listeners) {
+			if (group == null || AnnotationAwareOrderComparator.INSTANCE.compare(previous, listener) != 0) {
+				group = new ArrayList<>();
+				groups.add(group);
+			}
+			group.add(listener);
+			previous = listener;
+		}
+		return groups;
+	}
+
+	private CompletableFuture<Void> invokeListenersInParallel(
+			List<ApplicationListener<?>> listeners, ApplicationEvent event, Executor executor) {
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[listeners.size()];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = invokeListenerAsync(listeners.get(i), event, executor);
+		}
+		return CompletableFuture.allOf(futures);
+	}
+
+	private CompletableFuture<Void> invokeListenerAsync(
+			ApplicationListener<?> listener, ApplicationEvent event, Executor executor) {
+
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		long timeout = this.listenerTimeout;
+		if (timeout > 0) {
+			ScheduledFuture<?> timeoutFuture = getTimeoutScheduler().schedule(() -> future.completeExceptionally(
+					new TimeoutException("Listener [" + listener + "] did not complete within " + timeout + " ms")),
+					new Date(System.currentTimeMillis() + timeout));
+			future.whenComplete((result, ex) -> timeoutFuture.cancel(false));
+		}
+		try {
+			executor.execute(() -> {
+				boolean nested = (parallelListenerInvocation.get() != null);
+				if (!nested) {
+					parallelListenerInvocation.set(Boolean.TRUE);
+				}
+				try {
+					invokeListener(listener, event);
+					future.complete(null);
+				}
+				catch (Throwable ex) {
+					future.completeExceptionally(ex);
+				}
+				finally {
+					if (!nested) {
+						parallelListenerInvocation.remove();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			future.completeExceptionally(ex);
+		}
+		return future;
+	}
+
+	private TaskScheduler getTimeoutScheduler() {
+		if (this.timeoutScheduler != null) {
+			return this.timeoutScheduler;
+		}
+		Executor executor = getTaskExecutor();
+		Assert.state(executor instanceof TaskScheduler, "Listener timeout requires a timeout scheduler");
+		return (TaskScheduler) executor;
 	}
 
 	/**
@@ -152,17 +384,26 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	 * @since 4.1
 	 */
 	protected void invokeListener(ApplicationListener<?> listener, ApplicationEvent event) {
+		BiConsumer<ApplicationListener<?>, Duration> latencyCallback = this.listenerLatencyCallback;
+		long startTime = (latencyCallback != null ? System.nanoTime() : 0);
 		ErrorHandler errorHandler = getErrorHandler();
-		if (errorHandler != null) {
-			try {
-				doInvokeListener(listener, event);
+		try {
+			if (errorHandler != null) {
+				try {
+					doInvokeListener(listener, event);
+				}
+				catch (Throwable err) {
+					errorHandler.handleError(err);
+				}
 			}
-			catch (Throwable err) {
-				errorHandler.handleError(err);
+			else {
+				doInvokeListener(listener, event);
 			}
 		}
-		else {
-			doInvokeListener(listener, event);
+		finally {
+			if (latencyCallback != null) {
+				latencyCallback.accept(listener, Duration.ofNanos(System.nanoTime() - startTime));
+			}
 		}
 	}
 
@@ -391,7 +391,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		}
 		else {
 			applicationEvent = new PayloadApplicationEvent<>(this, event);
-			if (eventType == null) {
+			// The default multicaster resolves the type lazily, only if not known for the payload class yet
+			if (eventType == null && !(this.applicationEventMulticaster instanceof SimpleApplicationEventMulticaster)) {
 				eventType = ((PayloadApplicationEvent<?>) applicationEvent).getResolvableType();
 			}
 		}
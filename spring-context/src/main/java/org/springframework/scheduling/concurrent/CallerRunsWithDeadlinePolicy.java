@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link RejectedExecutionHandler} that waits up to a given deadline for space
+ * in the executor's queue, and runs a rejected task in the submitting thread
+ * if no space becomes available in time.
+ *
+ * <p>In contrast to {@link ThreadPoolExecutor.CallerRunsPolicy}, short bursts
+ * are absorbed without occupying the submitting thread with the execution of
+ * a task, while sustained overload still throttles submitters. Only applies
+ * to executors with a bounded queue, e.g. a {@link ThreadPoolTaskExecutor}
+ * with a positive {@link ThreadPoolTaskExecutor#setQueueCapacity "queueCapacity"}.
+ *
+ * <p>Tasks rejected by an executor that has been shut down are not executed
+ * but rejected with a {@link RejectedExecutionException}.
+ *
+ * @since 5.2.19
+ * @see ThreadPoolTaskExecutor#setRejectedExecutionHandler
+ * @see LoadSheddingPolicy
+ */
+public class CallerRunsWithDeadlinePolicy implements RejectedExecutionHandler {
+
+	private final long deadlineMillis;
+
+
+	/**
+	 * Create a new CallerRunsWithDeadlinePolicy.
+	 * @param deadlineMillis the maximum time to wait for space in the queue,
+	 * in milliseconds
+	 */
+	public CallerRunsWithDeadlinePolicy(long deadlineMillis) {
+		Assert.isTrue(deadlineMillis >= 0, "Deadline must not be negative");
+		this.deadlineMillis = deadlineMillis;
+	}
+
+
+	@Override
+	public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("Executor [" + executor + "] has been shut down");
+		}
+		try {
+			if (this.deadlineMillis > 0 && executor.getQueue().offer(task, this.deadlineMillis, TimeUnit.MILLISECONDS)) {
+				// Re-check for a concurrent shutdown, which would leave the task in the queue
+				if (executor.isShutdown() && executor.remove(task)) {
+					throw new RejectedExecutionException("Executor [" + executor + "] has been shut down");
+				}
+				return;
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for space in queue", ex);
+		}
+		task.run();
+	}
+
+}
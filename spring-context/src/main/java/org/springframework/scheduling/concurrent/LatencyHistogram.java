@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free histogram of latencies, as recorded by {@link TaskExecutionMetrics}.
+ *
+ * <p>Values are counted in log-linear buckets: every power-of-two range of
+ * nanoseconds is split into 8 linear sub-buckets, so that percentiles are
+ * reported with a relative error of at most 12.5%, using a fixed amount of
+ * memory regardless of the number of recorded values.
+ *
+ * @since 5.2.19
+ * @see TaskExecutionMetrics
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder total = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+
+	/**
+	 * Record the given latency.
+	 * @param nanos the latency in nanoseconds (negative values are recorded as 0)
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		this.buckets.incrementAndGet(bucketIndex(value));
+		this.count.increment();
+		this.total.add(value);
+		this.max.accumulate(value);
+	}
+
+	/**
+	 * Return the number of recorded latencies.
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Return the mean of all recorded latencies, or {@link Duration#ZERO} if none.
+	 */
+	public Duration getMean() {
+		long count = this.count.sum();
+		return (count > 0 ? Duration.ofNanos(this.total.sum() / count) : Duration.ZERO);
+	}
+
+	/**
+	 * Return the highest recorded latency, or {@link Duration#ZERO} if none.
+	 */
+	public Duration getMax() {
+		return Duration.ofNanos(this.max.get());
+	}
+
+	/**
+	 * Return the latency at the given percentile, that is, the upper bound of
+	 * the bucket that contains the given percentage of all recorded latencies.
+	 * @param percentile the percentile, between 0 and 100 (e.g. 99.9)
+	 * @return the latency at the given percentile, or {@link Duration#ZERO} if
+	 * no latencies have been recorded
+	 */
+	public Duration getPercentile(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+		long[] counts = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = this.buckets.get(i);
+			count += counts[i];
+		}
+		if (count == 0) {
+			return Duration.ZERO;
+		}
+		long rank = Math.max((long) Math.ceil(count * percentile / 100), 1);
+		long max = this.max.get();
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Duration.ofNanos(Math.min(bucketUpperBound(i), max));
+			}
+		}
+		return Duration.ofNanos(max);
+	}
+
+
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+
+
+	@Override
+	public String toString() {
+		return "count = " + getCount() + ", mean = " + getMean() + ", p50 = " + getPercentile(50) +
+				", p99 = " + getPercentile(99) + ", max = " + getMax();
+	}
+
+}
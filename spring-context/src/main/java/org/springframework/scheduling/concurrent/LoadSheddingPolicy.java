@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link RejectedExecutionHandler} that adapts to the degree of overload:
+ * rejected tasks are run in the submitting thread as long as fewer than the
+ * given number of submitting threads are busy running rejected tasks already,
+ * and shed beyond that, i.e. rejected with a {@link RejectedExecutionException}.
+ *
+ * <p>This throttles submitters under moderate overload, like
+ * {@link ThreadPoolExecutor.CallerRunsPolicy}, but fails fast once the
+ * submitting threads are saturated as well, instead of letting every one of
+ * them get stuck in task execution. A {@link ThreadPoolTaskExecutor} turns the
+ * rejection into a {@link org.springframework.core.task.TaskRejectedException}
+ * for the caller; for {@code @Async} methods, the exception is thrown from the
+ * method invocation.
+ *
+ * @since 5.2.19
+ * @see ThreadPoolTaskExecutor#setRejectedExecutionHandler
+ * @see CallerRunsWithDeadlinePolicy
+ */
+public class LoadSheddingPolicy implements RejectedExecutionHandler {
+
+	private final Semaphore callerRunsPermits;
+
+	private final LongAdder shedCount = new LongAdder();
+
+
+	/**
+	 * Create a new LoadSheddingPolicy.
+	 * @param maxCallerRuns the maximum number of rejected tasks to run in
+	 * submitting threads concurrently, or 0 to shed every rejected task
+	 */
+	public LoadSheddingPolicy(int maxCallerRuns) {
+		Assert.isTrue(maxCallerRuns >= 0, "maxCallerRuns must not be negative");
+		this.callerRunsPermits = new Semaphore(maxCallerRuns);
+	}
+
+
+	/**
+	 * Return the number of tasks shed so far.
+	 */
+	public long getShedCount() {
+		return this.shedCount.sum();
+	}
+
+	@Override
+	public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+		if (!executor.isShutdown() && this.callerRunsPermits.tryAcquire()) {
+			try {
+				task.run();
+			}
+			finally {
+				this.callerRunsPermits.release();
+			}
+		}
+		else {
+			this.shedCount.increment();
+			throw new RejectedExecutionException("Task " + task + " shed from executor [" + executor + "]");
+		}
+	}
+
+}
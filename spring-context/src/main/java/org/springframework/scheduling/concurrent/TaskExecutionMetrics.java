@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of a {@link ThreadPoolTaskExecutor}, collected once
+ * {@link ThreadPoolTaskExecutor#setTaskMetricsEnabled "taskMetricsEnabled"}
+ * is switched on: how long tasks wait in the queue before a thread picks
+ * them up, how long they take to execute, and how many tasks could not be
+ * accepted by the executor right away.
+ *
+ * <p>Queue times that are high compared to execution times indicate an
+ * undersized pool; a growing number of rejections indicates that the
+ * queue capacity or the maximum pool size is exhausted.
+ *
+ * @since 5.2.19
+ * @see ThreadPoolTaskExecutor#getTaskMetrics()
+ */
+public class TaskExecutionMetrics {
+
+	private final LatencyHistogram queueTime = new LatencyHistogram();
+
+	private final LatencyHistogram executionTime = new LatencyHistogram();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+
+	/**
+	 * Return the histogram of times that tasks spent waiting for execution,
+	 * from their submission to the start of their execution.
+	 */
+	public LatencyHistogram getQueueTime() {
+		return this.queueTime;
+	}
+
+	/**
+	 * Return the histogram of task execution times, including failed executions.
+	 */
+	public LatencyHistogram getExecutionTime() {
+		return this.executionTime;
+	}
+
+	/**
+	 * Return the number of tasks that the executor could not accept right away,
+	 * that is, the number of tasks passed to its
+	 * {@link java.util.concurrent.RejectedExecutionHandler}. Depending on the
+	 * handler, such tasks may still have been executed.
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+
+	void recordRejection() {
+		this.rejectedCount.increment();
+	}
+
+	/**
+	 * Wrap the given task for measuring its queue time and execution time.
+	 */
+	Runnable measure(Runnable task) {
+		return new MeasuredTask(task, System.nanoTime());
+	}
+
+
+	@Override
+	public String toString() {
+		return "queueTime [" + this.queueTime + "], executionTime [" + this.executionTime +
+				"], rejectedCount = " + getRejectedCount();
+	}
+
+
+	/**
+	 * Runnable that records its queue time and execution time.
+	 */
+	private class MeasuredTask implements Runnable {
+
+		private final Runnable task;
+
+		private final long submitTime;
+
+		public MeasuredTask(Runnable task, long submitTime) {
+			this.task = task;
+			this.submitTime = submitTime;
+		}
+
+		@Override
+		public void run() {
+			long startTime = System.nanoTime();
+			queueTime.record(startTime - this.submitTime);
+			try {
+				this.task.run();
+			}
+			finally {
+				executionTime.record(System.nanoTime() - startTime);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return this.task.toString();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,7 +46,8 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * properties) and exposing it as a Spring {@link org.springframework.core.task.TaskExecutor}.
  * This class is also well suited for management and monitoring (e.g. through JMX),
  * providing several useful attributes: "corePoolSize", "maxPoolSize", "keepAliveSeconds"
- * (all supporting updates at runtime); "poolSize", "activeCount" (for introspection only).
+ * (all supporting updates at runtime); "poolSize", "activeCount", "queueSize"
+ * (for introspection only).
  *
  * <p>The default configuration is a core pool size of 1, with unlimited max pool size
  * and unlimited queue capacity. This is roughly equivalent to
@@ -58,6 +59,15 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * {@link #setCorePoolSize "corePoolSize"} (see also the
  * {@link #setAllowCoreThreadTimeOut "allowCoreThreadTimeOut"} mode of scaling).
  *
+ * <p>To size the pool based on actual usage, switch on
+ * {@link #setTaskMetricsEnabled "taskMetricsEnabled"}: the executor then records
+ * the queue time and execution time of every task as well as the number of
+ * rejected tasks, exposed through {@link #getTaskMetrics()}. In combination with
+ * a bounded queue, a {@link CallerRunsWithDeadlinePolicy} or {@link LoadSheddingPolicy}
+ * may be specified as {@link #setRejectedExecutionHandler "rejectedExecutionHandler"}
+ * to deal with saturation. All of this applies to tasks submitted through
+ * {@code @Async} methods as well, once this executor is used for them.
+ *
  * <p><b>NOTE:</b> This class implements Spring's
  * {@link org.springframework.core.task.TaskExecutor} interface as well as the
  * {@link java.util.concurrent.Executor} interface, with the former being the primary
@@ -97,9 +107,14 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 	@Nullable
 	private TaskDecorator taskDecorator;
 
+	private boolean taskMetricsEnabled = false;
+
 	@Nullable
 	private ThreadPoolExecutor threadPoolExecutor;
 
+	@Nullable
+	private TaskExecutionMetrics taskMetrics;
+
 	// Runnable decorator to user-level FutureTask, if different
 	private final Map<Runnable, Object> decoratedTaskMap =
 			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
@@ -186,6 +201,15 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 		this.queueCapacity = queueCapacity;
 	}
 
+	/**
+	 * Return the capacity for the ThreadPoolExecutor's BlockingQueue.
+	 * @since 5.2.19
+	 * @see #setQueueCapacity(int)
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
 	/**
 	 * Specify whether to allow core threads to time out. This enables dynamic
 	 * growing and shrinking even in combination with a non-zero queue (since
@@ -218,6 +242,19 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 		this.taskDecorator = taskDecorator;
 	}
 
+	/**
+	 * Specify whether to record the queue time and execution time of every task
+	 * as well as the number of rejected tasks, to be obtained through
+	 * {@link #getTaskMetrics()}.
+	 * <p>Default is "false". Note that measuring a task adds a small overhead
+	 * to its submission and execution.
+	 * @since 5.2.19
+	 * @see TaskExecutionMetrics
+	 */
+	public void setTaskMetricsEnabled(boolean taskMetricsEnabled) {
+		this.taskMetricsEnabled = taskMetricsEnabled;
+	}
+
 
 	/**
 	 * Note: This method exposes an {@link ExecutorService} to its base class
@@ -231,14 +268,26 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 
 		BlockingQueue<Runnable> queue = createQueue(this.queueCapacity);
 
+		TaskExecutionMetrics metrics = (this.taskMetricsEnabled ? new TaskExecutionMetrics() : null);
+		if (metrics != null) {
+			RejectedExecutionHandler targetHandler = rejectedExecutionHandler;
+			rejectedExecutionHandler = (task, pool) -> {
+				metrics.recordRejection();
+				targetHandler.rejectedExecution(task, pool);
+			};
+		}
+
 		ThreadPoolExecutor executor;
-		if (this.taskDecorator != null) {
+		if (this.taskDecorator != null || metrics != null) {
 			executor = new ThreadPoolExecutor(
 					this.corePoolSize, this.maxPoolSize, this.keepAliveSeconds, TimeUnit.SECONDS,
 					queue, threadFactory, rejectedExecutionHandler) {
 				@Override
 				public void execute(Runnable command) {
-					Runnable decorated = taskDecorator.decorate(command);
+					Runnable decorated = (taskDecorator != null ? taskDecorator.decorate(command) : command);
+					if (metrics != null) {
+						decorated = metrics.measure(decorated);
+					}
 					if (decorated != command) {
 						decoratedTaskMap.put(decorated, command);
 					}
@@ -258,6 +307,7 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 		}
 
 		this.threadPoolExecutor = executor;
+		this.taskMetrics = metrics;
 		return executor;
 	}
 
@@ -313,6 +363,31 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 		return this.threadPoolExecutor.getActiveCount();
 	}
 
+	/**
+	 * Return the current queue size.
+	 * @since 5.2.19
+	 * @see java.util.concurrent.ThreadPoolExecutor#getQueue()
+	 */
+	public int getQueueSize() {
+		if (this.threadPoolExecutor == null) {
+			// Not initialized yet: assume no queued tasks.
+			return 0;
+		}
+		return this.threadPoolExecutor.getQueue().size();
+	}
+
+	/**
+	 * Return the statistics collected for the tasks executed so far,
+	 * if {@link #setTaskMetricsEnabled "taskMetricsEnabled"} is switched on.
+	 * @return the task metrics, or {@code null} if not enabled or if the
+	 * ThreadPoolTaskExecutor hasn't been initialized yet
+	 * @since 5.2.19
+	 */
+	@Nullable
+	public TaskExecutionMetrics getTaskMetrics() {
+		return this.taskMetrics;
+	}
+
 
 	@Override
 	public void execute(Runnable task) {
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * Implementation of Spring's {@link TaskScheduler} interface, keeping track
+ * of scheduled tasks in a hierarchical timing wheel instead of the binary heap
+ * of a {@link java.util.concurrent.ScheduledThreadPoolExecutor}.
+ *
+ * <p>Designed for very large numbers of scheduled tasks: scheduling a task only
+ * adds it to a lock-free queue, and a single ticker thread moves queued tasks
+ * into the slots of the wheel and expires one slot per tick, at constant cost
+ * per task. Due tasks are handed off to a separate worker pool, so that
+ * long-running tasks cannot delay the expiration of others. Repeating tasks
+ * (including {@link Trigger}-based ones) are re-inserted after each execution.
+ *
+ * <p>The trade-off is timing precision: execution times are rounded up to the
+ * next tick of the wheel, so tasks may run up to one
+ * {@link #setTickDuration tick duration} late but never early. The default tick
+ * duration of 100 milliseconds is suitable for cron and periodic triggers with
+ * second precision.
+ *
+ * @since 5.2.19
+ * @see #setTickDuration
+ * @see #setTicksPerWheel
+ * @see #setPoolSize
+ * @see ThreadPoolTaskScheduler
+ */
+@SuppressWarnings("serial")
+public class TimingWheelTaskScheduler extends ExecutorConfigurationSupport implements TaskScheduler {
+
+	private static final int WHEEL_LEVELS = 4;
+
+
+	private long tickDuration = 100;
+
+	private int ticksPerWheel = 512;
+
+	private int poolSize = 1;
+
+	@Nullable
+	private volatile ErrorHandler errorHandler;
+
+	@Nullable
+	private ThreadPoolExecutor workerExecutor;
+
+	@Nullable
+	private Thread tickerThread;
+
+	private volatile boolean running;
+
+	private volatile long startNanos;
+
+	private final Queue<ScheduledTask> pendingTasks = new ConcurrentLinkedQueue<>();
+
+	private final Queue<ScheduledTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+
+	// Only accessed by the ticker thread once initialized
+	private long tickNanos;
+
+	private int tickBits;
+
+	private Bucket[][] wheels = new Bucket[0][];
+
+	private long tick;
+
+
+	/**
+	 * Set the duration of a single tick of the timing wheel, in milliseconds.
+	 * <p>By default this is 100 milliseconds. Shorter ticks increase the timing
+	 * precision at the expense of more frequent wake-ups of the ticker thread.
+	 */
+	public void setTickDuration(long tickDuration) {
+		Assert.isTrue(tickDuration > 0, "'tickDuration' must be 1 or higher");
+		this.tickDuration = tickDuration;
+	}
+
+	/**
+	 * Set the number of slots per level of the timing wheel.
+	 * Must be a power of two between 2 and 32768.
+	 * <p>By default this is 512, covering 512 ticks in the lowest level and
+	 * 2<sup>36</sup> ticks across all four levels of the wheel; tasks further
+	 * ahead are kept in the highest level until their time comes closer.
+	 */
+	public void setTicksPerWheel(int ticksPerWheel) {
+		Assert.isTrue(ticksPerWheel >= 2 && ticksPerWheel <= (1 << 15) && Integer.bitCount(ticksPerWheel) == 1,
+				"'ticksPerWheel' must be a power of two between 2 and 32768");
+		this.ticksPerWheel = ticksPerWheel;
+	}
+
+	/**
+	 * Set the number of worker threads that due tasks are executed on.
+	 * <p>By default this is 1.
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize > 0, "'poolSize' must be 1 or higher");
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Set a custom {@link ErrorHandler} strategy.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+
+	@Override
+	protected ExecutorService initializeExecutor(
+			ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickDuration);
+		this.tickBits = Integer.numberOfTrailingZeros(this.ticksPerWheel);
+		this.wheels = new Bucket[WHEEL_LEVELS][this.ticksPerWheel];
+		for (Bucket[] wheel : this.wheels) {
+			for (int i = 0; i < wheel.length; i++) {
+				wheel[i] = new Bucket();
+			}
+		}
+		this.tick = 0;
+
+		this.workerExecutor = new ThreadPoolExecutor(this.poolSize, this.poolSize, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory, rejectedExecutionHandler);
+
+		this.startNanos = System.nanoTime();
+		this.running = true;
+		this.tickerThread = threadFactory.newThread(this::runTicker);
+		this.tickerThread.start();
+
+		return this.workerExecutor;
+	}
+
+	/**
+	 * Return the underlying ThreadPoolExecutor that due tasks are executed on.
+	 * @throws IllegalStateException if the TimingWheelTaskScheduler hasn't been initialized yet
+	 */
+	public ThreadPoolExecutor getWorkerExecutor() throws IllegalStateException {
+		Assert.state(this.workerExecutor != null, "TimingWheelTaskScheduler not initialized");
+		return this.workerExecutor;
+	}
+
+	/**
+	 * Stop the ticker thread, cancel all tasks that are still scheduled,
+	 * and shut down the worker pool.
+	 */
+	@Override
+	public void shutdown() {
+		Thread tickerThread = this.tickerThread;
+		if (tickerThread != null) {
+			this.running = false;
+			LockSupport.unpark(tickerThread);
+			try {
+				tickerThread.join();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			cancelPendingTasks();
+		}
+		super.shutdown();
+	}
+
+
+	// TaskScheduler implementation
+
+	@Override
+	@Nullable
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		ErrorHandler errorHandler = this.errorHandler;
+		if (errorHandler == null) {
+			errorHandler = TaskUtils.getDefaultErrorHandler(true);
+		}
+		ScheduledTask scheduledTask = new ScheduledTask(
+				TaskUtils.decorateTaskWithErrorHandler(task, errorHandler, true), trigger);
+		return (scheduledTask.scheduleNextExecution() ? scheduledTask : null);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		return enqueue(new ScheduledTask(errorHandlingTask(task, false), 0), toDeadline(startTime));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		Assert.isTrue(period > 0, "'period' must be positive");
+		return enqueue(new ScheduledTask(errorHandlingTask(task, true), TimeUnit.MILLISECONDS.toNanos(period)),
+				toDeadline(startTime));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return scheduleAtFixedRate(task, new Date(), period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		Assert.isTrue(delay > 0, "'delay' must be positive");
+		return enqueue(new ScheduledTask(errorHandlingTask(task, true), -TimeUnit.MILLISECONDS.toNanos(delay)),
+				toDeadline(startTime));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return scheduleWithFixedDelay(task, new Date(), delay);
+	}
+
+
+	private Runnable errorHandlingTask(Runnable task, boolean isRepeatingTask) {
+		return TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, isRepeatingTask);
+	}
+
+	private static long toDeadline(Date executionTime) {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(executionTime.getTime() - System.currentTimeMillis());
+	}
+
+	private ScheduledTask enqueue(ScheduledTask task, long deadline) {
+		Assert.state(this.tickerThread != null, "TimingWheelTaskScheduler not initialized");
+		if (!this.running) {
+			throw new TaskRejectedException("TimingWheelTaskScheduler has been shut down - did not accept task: " + task);
+		}
+		task.deadline = deadline;
+		this.pendingTasks.add(task);
+		if (!this.running) {
+			// Shut down in the meantime: the ticker thread won't pick it up anymore.
+			cancelPendingTasks();
+			throw new TaskRejectedException("TimingWheelTaskScheduler has been shut down - did not accept task: " + task);
+		}
+		return task;
+	}
+
+	private void reschedule(ScheduledTask task, long deadline) {
+		task.deadline = deadline;
+		this.pendingTasks.add(task);
+		if (!this.running) {
+			// Shut down in the meantime: the ticker thread won't pick it up anymore.
+			cancelPendingTasks();
+		}
+	}
+
+	private void cancelPendingTasks() {
+		ScheduledTask task;
+		while ((task = this.pendingTasks.poll()) != null) {
+			task.cancel(false);
+		}
+	}
+
+
+	// Ticker thread
+
+	private void runTicker() {
+		while (this.running) {
+			long currentTick = (System.nanoTime() - this.startNanos) / this.tickNanos;
+			removeCancelledTasks();
+			transferPendingTasks();
+			while (this.tick <= currentTick) {
+				expireTick();
+				this.tick++;
+			}
+			long sleepNanos = this.startNanos + this.tick * this.tickNanos - System.nanoTime();
+			if (sleepNanos > 0) {
+				LockSupport.parkNanos(this, sleepNanos);
+			}
+		}
+		for (Bucket[] wheel : this.wheels) {
+			for (Bucket bucket : wheel) {
+				for (ScheduledTask task = bucket.removeAll(); task != null; task = task.next) {
+					task.cancel(false);
+				}
+			}
+		}
+		this.cancelledTasks.clear();
+	}
+
+	private void removeCancelledTasks() {
+		ScheduledTask task;
+		while ((task = this.cancelledTasks.poll()) != null) {
+			if (task.bucket != null) {
+				task.bucket.remove(task);
+			}
+		}
+	}
+
+	private void transferPendingTasks() {
+		ScheduledTask task;
+		while ((task = this.pendingTasks.poll()) != null) {
+			if (!task.isCancelled()) {
+				long ticks = task.deadline - this.startNanos;
+				task.deadlineTick = (ticks > 0 ? (ticks + this.tickNanos - 1) / this.tickNanos : 0);
+				place(task);
+			}
+		}
+	}
+
+	/**
+	 * Add the given task to the lowest level of the wheel that covers its
+	 * deadline, relative to the next tick to process.
+	 */
+	private void place(ScheduledTask task) {
+		long target = Math.max(task.deadlineTick, this.tick);
+		long delta = target - this.tick;
+		int level = 0;
+		while (level < WHEEL_LEVELS - 1 && delta >= (1L << (this.tickBits * (level + 1)))) {
+			level++;
+		}
+		long span = 1L << (this.tickBits * WHEEL_LEVELS);
+		if (delta >= span) {
+			// Beyond the range of the wheel: park in the furthest slot and re-place on cascade.
+			target = this.tick + span - 1;
+		}
+		int slot = (int) ((target >>> (this.tickBits * level)) & (this.ticksPerWheel - 1));
+		this.wheels[level][slot].add(task);
+	}
+
+	private void expireTick() {
+		int mask = this.ticksPerWheel - 1;
+		if ((this.tick & mask) == 0) {
+			// Lowest level wrapped around: move the next slots of the higher levels down.
+			for (int level = 1; level < WHEEL_LEVELS; level++) {
+				int slot = (int) ((this.tick >>> (this.tickBits * level)) & mask);
+				ScheduledTask task = this.wheels[level][slot].removeAll();
+				while (task != null) {
+					ScheduledTask next = task.next;
+					place(task);
+					task = next;
+				}
+				if (slot != 0) {
+					break;
+				}
+			}
+		}
+		ScheduledTask task = this.wheels[0][(int) (this.tick & mask)].removeAll();
+		while (task != null) {
+			ScheduledTask next = task.next;
+			if (task.deadlineTick > this.tick) {
+				place(task);
+			}
+			else {
+				execute(task);
+			}
+			task = next;
+		}
+	}
+
+	private void execute(ScheduledTask task) {
+		ThreadPoolExecutor executor = getWorkerExecutor();
+		try {
+			executor.execute(task);
+		}
+		catch (RejectedExecutionException ex) {
+			task.completion.completeExceptionally(
+					new TaskRejectedException("Executor [" + executor + "] did not accept task: " + task, ex));
+		}
+	}
+
+
+	/**
+	 * Doubly-linked list of the tasks in a slot of the wheel,
+	 * allowing for constant-time removal of cancelled tasks.
+	 */
+	private static class Bucket {
+
+		@Nullable
+		private ScheduledTask head;
+
+		@Nullable
+		private ScheduledTask tail;
+
+		void add(ScheduledTask task) {
+			task.bucket = this;
+			task.prev = this.tail;
+			task.next = null;
+			if (this.tail != null) {
+				this.tail.next = task;
+			}
+			else {
+				this.head = task;
+			}
+			this.tail = task;
+		}
+
+		void remove(ScheduledTask task) {
+			if (task.prev != null) {
+				task.prev.next = task.next;
+			}
+			else {
+				this.head = task.next;
+			}
+			if (task.next != null) {
+				task.next.prev = task.prev;
+			}
+			else {
+				this.tail = task.prev;
+			}
+			task.bucket = null;
+			task.prev = null;
+			task.next = null;
+		}
+
+		/**
+		 * Detach all tasks from this bucket, returning the first of them.
+		 * The returned tasks remain linked through their {@code next} field.
+		 */
+		@Nullable
+		ScheduledTask removeAll() {
+			ScheduledTask head = this.head;
+			for (ScheduledTask task = head; task != null; task = task.next) {
+				task.bucket = null;
+				task.prev = null;
+			}
+			this.head = null;
+			this.tail = null;
+			return head;
+		}
+	}
+
+
+	/**
+	 * A task scheduled on the wheel, acting as its own {@link ScheduledFuture}.
+	 */
+	private class ScheduledTask implements ScheduledFuture<Object>, Runnable {
+
+		private final Runnable task;
+
+		// Positive for fixed-rate execution, negative for fixed-delay execution
+		private final long period;
+
+		@Nullable
+		private final Trigger trigger;
+
+		private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+
+		@Nullable
+		private Date scheduledExecutionTime;
+
+		private final CompletableFuture<Object> completion = new CompletableFuture<>();
+
+		private volatile long deadline;
+
+		@Nullable
+		private volatile Thread runner;
+
+		// Only accessed by the ticker thread
+		private long deadlineTick;
+
+		@Nullable
+		private Bucket bucket;
+
+		@Nullable
+		private ScheduledTask prev;
+
+		@Nullable
+		private ScheduledTask next;
+
+		ScheduledTask(Runnable task, long period) {
+			this.task = task;
+			this.period = period;
+			this.trigger = null;
+		}
+
+		ScheduledTask(Runnable task, Trigger trigger) {
+			this.task = task;
+			this.period = 0;
+			this.trigger = trigger;
+		}
+
+		boolean scheduleNextExecution() {
+			Assert.state(this.trigger != null, "No Trigger");
+			this.scheduledExecutionTime = this.trigger.nextExecutionTime(this.triggerContext);
+			if (this.scheduledExecutionTime == null) {
+				return false;
+			}
+			if (this.triggerContext.lastCompletionTime() == null) {
+				enqueue(this, toDeadline(this.scheduledExecutionTime));
+			}
+			else {
+				reschedule(this, toDeadline(this.scheduledExecutionTime));
+			}
+			return true;
+		}
+
+		@Override
+		public void run() {
+			if (isDone()) {
+				return;
+			}
+			Date actualExecutionTime = new Date();
+			this.runner = Thread.currentThread();
+			try {
+				this.task.run();
+			}
+			catch (Throwable ex) {
+				this.completion.completeExceptionally(ex);
+				return;
+			}
+			finally {
+				this.runner = null;
+			}
+			if (isDone()) {
+				return;
+			}
+			if (this.trigger != null) {
+				Assert.state(this.scheduledExecutionTime != null, "No scheduled execution");
+				this.triggerContext.update(this.scheduledExecutionTime, actualExecutionTime, new Date());
+				if (!scheduleNextExecution()) {
+					this.completion.complete(null);
+				}
+			}
+			else if (this.period > 0) {
+				reschedule(this, this.deadline + this.period);
+			}
+			else if (this.period < 0) {
+				reschedule(this, System.nanoTime() - this.period);
+			}
+			else {
+				this.completion.complete(null);
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = this.completion.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				cancelledTasks.add(this);
+				Thread runner = this.runner;
+				if (mayInterruptIfRunning && runner != null) {
+					runner.interrupt();
+				}
+			}
+			return cancelled;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.completion.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return this.completion.isDone();
+		}
+
+		@Override
+		@Nullable
+		public Object get() throws InterruptedException, ExecutionException {
+			return this.completion.get();
+		}
+
+		@Override
+		@Nullable
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return this.completion.get(timeout, unit);
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (this == other) {
+				return 0;
+			}
+			long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return (diff == 0 ? 0 : ((diff < 0) ? -1 : 1));
+		}
+
+		@Override
+		public String toString() {
+			return this.task.toString();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,7 +20,7 @@ import org.springframework.scheduling.support.CronTrigger;
 
 /**
  * {@link TriggerTask} implementation defining a {@code Runnable} to be executed according
- * to a {@linkplain org.springframework.scheduling.support.CronSequenceGenerator standard
+ * to a {@linkplain org.springframework.scheduling.support.CronExpression standard
  * cron expression}.
  *
  * @author Chris Beams
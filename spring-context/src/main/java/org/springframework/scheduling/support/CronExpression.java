@@ -0,0 +1,462 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Representation of a
+ * <a href="https://www.manpagez.com/man/5/crontab/">crontab expression</a>
+ * that can calculate the next time it matches, based on {@code java.time}.
+ *
+ * <p>Supports the same six-field pattern syntax as {@link CronSequenceGenerator}:
+ * second, minute, hour, day of month, month and day of week, with month and
+ * weekday names given as the first three letters of the English names. As with
+ * {@code CronSequenceGenerator}, a matching date has to satisfy both the day of
+ * month and the day of week field.
+ *
+ * <p>The fields are parsed into bit masks upfront, with the day of week field
+ * additionally expanded into a day of month mask for each weekday that a month
+ * can start with. The next matching time is then found with a few bit operations
+ * per field on primitive date and time values, instead of stepping through
+ * candidate dates with a {@link java.util.Calendar}, and without allocating
+ * intermediate objects in the absence of daylight saving transitions.
+ *
+ * <p>Local times that do not exist due to a daylight saving transition are
+ * skipped. Local times that occur twice match their first occurrence only,
+ * unless that lies before the given start time.
+ *
+ * @since 5.2.19
+ * @see #parse(String)
+ * @see CronTrigger
+ */
+public final class CronExpression {
+
+	private static final int SECONDS_PER_DAY = 86400;
+
+	// The Gregorian calendar repeats every 400 years, including days of week
+	private static final int MAX_YEARS = 400;
+
+	private static final long NO_MATCH = Long.MIN_VALUE;
+
+
+	private final String expression;
+
+	// Bits 0-59
+	private final long seconds;
+
+	// Bits 0-59
+	private final long minutes;
+
+	// Bits 0-23
+	private final long hours;
+
+	// Bits 1-31
+	private final long daysOfMonth;
+
+	// Bits 1-12
+	private final long months;
+
+	// Bits 0-6, starting with Sunday
+	private final long daysOfWeek;
+
+	// Days of month (bits 1-31) matching the day of week field,
+	// indexed by the day of week of the first day of the month
+	private final long[] daysOfWeekByFirstDay = new long[7];
+
+
+	private CronExpression(String expression, String[] fields) {
+		this.expression = expression;
+		this.seconds = parseField(fields[0], 0, 60);
+		this.minutes = parseField(fields[1], 0, 60);
+		this.hours = parseField(fields[2], 0, 24);
+		// Days of month start with 1, and 0 is tolerated as in CronSequenceGenerator
+		this.daysOfMonth = parseDaysField(fields[3], 32) & ~1L;
+		this.months = parseField(replaceOrdinals(fields[4], "FOO,JAN,FEB,MAR,APR,MAY,JUN,JUL,AUG,SEP,OCT,NOV,DEC"), 1, 13);
+		long daysOfWeek = parseDaysField(replaceOrdinals(fields[5], "SUN,MON,TUE,WED,THU,FRI,SAT"), 8);
+		if ((daysOfWeek & (1L << 7)) != 0) {
+			// Sunday can be represented as 0 or 7
+			daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);
+		}
+		this.daysOfWeek = daysOfWeek;
+		for (int firstDay = 0; firstDay < 7; firstDay++) {
+			long days = 0;
+			for (int day = 1; day <= 31; day++) {
+				if ((daysOfWeek & (1L << ((firstDay + day - 1) % 7))) != 0) {
+					days |= (1L << day);
+				}
+			}
+			this.daysOfWeekByFirstDay[firstDay] = days;
+		}
+	}
+
+
+	/**
+	 * Parse the given cron expression.
+	 * @param expression a space-separated list of six time fields: second,
+	 * minute, hour, day of month, month, day of week
+	 * @return the parsed {@code CronExpression}
+	 * @throws IllegalArgumentException if the expression cannot be parsed
+	 */
+	public static CronExpression parse(String expression) throws IllegalArgumentException {
+		Assert.hasLength(expression, "Expression string must not be empty");
+		String[] fields = StringUtils.tokenizeToStringArray(expression, " ");
+		if (fields.length != 6) {
+			throw new IllegalArgumentException(String.format(
+					"Cron expression must consist of 6 fields (found %d in \"%s\")", fields.length, expression));
+		}
+		return new CronExpression(expression, fields);
+	}
+
+	/**
+	 * Determine whether the given string represents a valid cron expression.
+	 * @param expression the expression to evaluate
+	 * @return {@code true} if the given expression is a valid cron expression
+	 */
+	public static boolean isValidExpression(@Nullable String expression) {
+		if (expression == null) {
+			return false;
+		}
+		try {
+			parse(expression);
+			return true;
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Calculate the next time matching this expression, strictly after the given
+	 * date-time (truncated to whole seconds), in the time zone of the date-time.
+	 * @param dateTime the date-time to start from
+	 * @return the next matching date-time, or {@code null} if there is no
+	 * match within the next 400 years (e.g. for a February 30th)
+	 */
+	@Nullable
+	public ZonedDateTime next(ZonedDateTime dateTime) {
+		long epochSecond = nextEpochSecond(dateTime.toEpochSecond(), dateTime.getZone().getRules());
+		return (epochSecond != NO_MATCH ?
+				ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), dateTime.getZone()) : null);
+	}
+
+	/**
+	 * Calculate the next time matching this expression, strictly after the given
+	 * date (truncated to whole seconds), in the given time zone.
+	 * @param date the date to start from
+	 * @param zoneId the time zone in which to evaluate the expression
+	 * @return the next matching date, or {@code null} if there is no
+	 * match within the next 400 years (e.g. for a February 30th)
+	 */
+	@Nullable
+	public Date next(Date date, ZoneId zoneId) {
+		long epochSecond = nextEpochSecond(Math.floorDiv(date.getTime(), 1000), zoneId.getRules());
+		return (epochSecond != NO_MATCH ? new Date(epochSecond * 1000) : null);
+	}
+
+	private long nextEpochSecond(long epochSecond, ZoneRules rules) {
+		int offset = (rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) :
+				rules.getOffset(Instant.ofEpochSecond(epochSecond))).getTotalSeconds();
+		long startLocal = epochSecond + offset + 1;
+		long localLimit = startLocal + (long) MAX_YEARS * 366 * SECONDS_PER_DAY;
+		long local = startLocal;
+		while (local < localLimit) {
+			local = nextLocalSecond(local);
+			if (local == NO_MATCH) {
+				return NO_MATCH;
+			}
+			if (rules.isFixedOffset()) {
+				return local - offset;
+			}
+			// Common case: same offset as the start time, no transition in between
+			long candidate = local - offset;
+			if (rules.getOffset(Instant.ofEpochSecond(candidate)).getTotalSeconds() == offset) {
+				return candidate;
+			}
+			LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC);
+			List<ZoneOffset> validOffsets = rules.getValidOffsets(localDateTime);
+			for (ZoneOffset validOffset : validOffsets) {
+				candidate = local - validOffset.getTotalSeconds();
+				if (candidate > epochSecond) {
+					return candidate;
+				}
+			}
+			if (validOffsets.isEmpty()) {
+				// Skip the gap: the local times within it do not exist
+				ZoneOffsetTransition transition = rules.getTransition(localDateTime);
+				Assert.state(transition != null, "No transition for gap");
+				local = transition.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC);
+			}
+			else {
+				local++;
+			}
+		}
+		return NO_MATCH;
+	}
+
+	/**
+	 * Find the next local time matching this expression, at or after the given
+	 * local time in seconds since the epoch.
+	 */
+	private long nextLocalSecond(long local) {
+		long epochDay = Math.floorDiv(local, SECONDS_PER_DAY);
+		int secondOfDay = (int) Math.floorMod(local, SECONDS_PER_DAY);
+
+		// Civil date from epoch day, see http://howardhinnant.github.io/date_algorithms.html
+		long shiftedDay = epochDay + 719468;
+		long era = Math.floorDiv(shiftedDay, 146097);
+		int dayOfEra = (int) (shiftedDay - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		int month = (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		int hour = secondOfDay / 3600;
+		int minute = secondOfDay / 60 % 60;
+		int second = secondOfDay % 60;
+
+		long yearLimit = year + MAX_YEARS;
+		while (year <= yearLimit) {
+			int nextMonth = nextBit(this.months, month);
+			if (nextMonth == -1) {
+				year++;
+				month = nextBit(this.months, 1);
+				day = 1;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextMonth != month) {
+				month = nextMonth;
+				day = 1;
+				hour = minute = second = 0;
+			}
+
+			int firstDayOfWeek = (int) Math.floorMod(epochDay(year, month, 1) + 4, 7);
+			long days = this.daysOfMonth & this.daysOfWeekByFirstDay[firstDayOfWeek] &
+					((1L << (lengthOfMonth(year, month) + 1)) - 2);
+			int nextDay = nextBit(days, day);
+			if (nextDay == -1) {
+				month++;
+				day = 1;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextDay != day) {
+				day = nextDay;
+				hour = minute = second = 0;
+			}
+
+			int nextHour = nextBit(this.hours, hour);
+			if (nextHour == -1) {
+				day++;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextHour != hour) {
+				hour = nextHour;
+				minute = second = 0;
+			}
+
+			int nextMinute = nextBit(this.minutes, minute);
+			if (nextMinute == -1) {
+				hour++;
+				minute = second = 0;
+				continue;
+			}
+			if (nextMinute != minute) {
+				minute = nextMinute;
+				second = 0;
+			}
+
+			int nextSecond = nextBit(this.seconds, second);
+			if (nextSecond == -1) {
+				minute++;
+				second = 0;
+				continue;
+			}
+			return epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + nextSecond;
+		}
+		return NO_MATCH;
+	}
+
+	/**
+	 * Return the lowest set bit in the given mask at or above the given index,
+	 * or -1 if none.
+	 */
+	private static int nextBit(long mask, int fromIndex) {
+		if (fromIndex > 63) {
+			return -1;
+		}
+		long bits = mask & (-1L << fromIndex);
+		return (bits != 0 ? Long.numberOfTrailingZeros(bits) : -1);
+	}
+
+	private static long epochDay(long year, int month, int day) {
+		long y = (month <= 2 ? year - 1 : year);
+		long era = Math.floorDiv(y, 400);
+		int yearOfEra = (int) (y - era * 400);
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static int lengthOfMonth(long year, int month) {
+		switch (month) {
+			case 2:
+				return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28);
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+
+	// Parsing logic invoked by the constructor, following CronSequenceGenerator
+
+	/**
+	 * Replace the values in the comma-separated list (case insensitive)
+	 * with their index in the list.
+	 */
+	private static String replaceOrdinals(String value, String commaSeparatedList) {
+		String[] list = StringUtils.commaDelimitedListToStringArray(commaSeparatedList);
+		for (int i = 0; i < list.length; i++) {
+			value = StringUtils.replace(value.toUpperCase(), list[i], Integer.toString(i));
+		}
+		return value;
+	}
+
+	private long parseDaysField(String field, int max) {
+		return parseField(field.contains("?") ? "*" : field, 0, max);
+	}
+
+	private long parseField(String value, int min, int max) {
+		long bits = 0;
+		for (String field : StringUtils.delimitedListToStringArray(value, ",")) {
+			if (!field.contains("/")) {
+				// Not an incrementer so it must be a range (possibly empty)
+				int[] range = getRange(field, min, max);
+				for (int i = range[0]; i <= range[1]; i++) {
+					bits |= (1L << i);
+				}
+			}
+			else {
+				String[] split = StringUtils.delimitedListToStringArray(field, "/");
+				if (split.length > 2) {
+					throw new IllegalArgumentException("Incrementer has more than two fields: '" +
+							field + "' in expression \"" + this.expression + "\"");
+				}
+				int[] range = getRange(split[0], min, max);
+				if (!split[0].contains("-")) {
+					range[1] = max - 1;
+				}
+				int delta = Integer.parseInt(split[1]);
+				if (delta <= 0) {
+					throw new IllegalArgumentException("Incrementer delta must be 1 or higher: '" +
+							field + "' in expression \"" + this.expression + "\"");
+				}
+				for (int i = range[0]; i <= range[1]; i += delta) {
+					bits |= (1L << i);
+				}
+			}
+		}
+		return bits;
+	}
+
+	private int[] getRange(String field, int min, int max) {
+		int[] result = new int[2];
+		if (field.contains("*")) {
+			result[0] = min;
+			result[1] = max - 1;
+			return result;
+		}
+		if (!field.contains("-")) {
+			result[0] = result[1] = Integer.parseInt(field);
+		}
+		else {
+			String[] split = StringUtils.delimitedListToStringArray(field, "-");
+			if (split.length > 2) {
+				throw new IllegalArgumentException("Range has more than two fields: '" +
+						field + "' in expression \"" + this.expression + "\"");
+			}
+			result[0] = Integer.parseInt(split[0]);
+			result[1] = Integer.parseInt(split[1]);
+		}
+		if (result[0] >= max || result[1] >= max) {
+			throw new IllegalArgumentException("Range exceeds maximum (" + max + "): '" +
+					field + "' in expression \"" + this.expression + "\"");
+		}
+		if (result[0] < min || result[1] < min) {
+			throw new IllegalArgumentException("Range less than minimum (" + min + "): '" +
+					field + "' in expression \"" + this.expression + "\"");
+		}
+		if (result[0] > result[1]) {
+			throw new IllegalArgumentException("Invalid inverted range: '" + field +
+					"' in expression \"" + this.expression + "\"");
+		}
+		return result;
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CronExpression)) {
+			return false;
+		}
+		CronExpression otherCron = (CronExpression) other;
+		return (this.months == otherCron.months && this.daysOfMonth == otherCron.daysOfMonth &&
+				this.daysOfWeek == otherCron.daysOfWeek && this.hours == otherCron.hours &&
+				this.minutes == otherCron.minutes && this.seconds == otherCron.seconds);
+	}
+
+	@Override
+	public int hashCode() {
+		return (17 * Long.hashCode(this.months) + 29 * Long.hashCode(this.daysOfMonth) +
+				37 * Long.hashCode(this.daysOfWeek) + 41 * Long.hashCode(this.hours) +
+				53 * Long.hashCode(this.minutes) + 61 * Long.hashCode(this.seconds));
+	}
+
+	/**
+	 * Return the expression string used to create this {@code CronExpression}.
+	 */
+	@Override
+	public String toString() {
+		return this.expression;
+	}
+
+}
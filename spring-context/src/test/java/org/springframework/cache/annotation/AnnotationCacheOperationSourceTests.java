@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -32,6 +33,7 @@ import org.springframework.cache.interceptor.CacheEvictOperation;
 import org.springframework.cache.interceptor.CacheOperation;
 import org.springframework.cache.interceptor.CacheableOperation;
 import org.springframework.core.annotation.AliasFor;
+import org.springframework.lang.Nullable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
@@ -68,6 +70,46 @@ public class AnnotationCacheOperationSourceTests {
 		assertThat(it.next() instanceof CacheEvictOperation).isTrue();
 	}
 
+	@Test
+	public void cacheOperationsPrecomputedForTargetClass() throws Exception {
+		AtomicInteger lookups = new AtomicInteger();
+		AnnotationCacheOperationSource source = new AnnotationCacheOperationSource() {
+			@Override
+			protected Collection<CacheOperation> findCacheOperations(Method method) {
+				lookups.incrementAndGet();
+				return super.findCacheOperations(method);
+			}
+		};
+
+		Method singular = AnnotatedClass.class.getMethod("singular");
+		Method multiple = AnnotatedClass.class.getMethod("multiple");
+		assertThat(source.getCacheOperations(singular, AnnotatedClass.class)).hasSize(1);
+		int lookupsForTargetClass = lookups.get();
+		assertThat(lookupsForTargetClass).isGreaterThan(1);
+
+		assertThat(source.getCacheOperations(multiple, AnnotatedClass.class)).hasSize(2);
+		assertThat(source.getCacheOperations(multiple, AnnotatedClass.class)).isSameAs(
+				source.getCacheOperations(multiple, AnnotatedClass.class));
+		assertThat(lookups.get()).isEqualTo(lookupsForTargetClass);
+	}
+
+	@Test
+	public void cacheOperationsNotPrecomputedWithCustomCacheKey() throws Exception {
+		AtomicInteger cacheKeys = new AtomicInteger();
+		AnnotationCacheOperationSource source = new AnnotationCacheOperationSource() {
+			@Override
+			protected Object getCacheKey(Method method, @Nullable Class<?> targetClass) {
+				cacheKeys.incrementAndGet();
+				return super.getCacheKey(method, targetClass);
+			}
+		};
+
+		Method singular = AnnotatedClass.class.getMethod("singular");
+		assertThat(source.getCacheOperations(singular, AnnotatedClass.class)).hasSize(1);
+		assertThat(source.getCacheOperations(singular, AnnotatedClass.class)).hasSize(1);
+		assertThat(cacheKeys.get()).isEqualTo(2);
+	}
+
 	@Test
 	public void emptyCaching() {
 		getOps(AnnotatedClass.class, "emptyCaching", 0);
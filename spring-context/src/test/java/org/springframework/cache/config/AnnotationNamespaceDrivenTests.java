@@ -16,6 +16,8 @@
 
 package org.springframework.cache.config;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cache.interceptor.CacheErrorHandler;
@@ -73,4 +75,16 @@ public class AnnotationNamespaceDrivenTests extends AbstractCacheAnnotationTests
 		assertThat(ci.getErrorHandler()).isSameAs(this.ctx.getBean("errorHandler", CacheErrorHandler.class));
 	}
 
+	@Test
+	public void cacheSettings() {
+		ConfigurableApplicationContext context = new GenericXmlApplicationContext(
+				"/org/springframework/cache/config/annotationDrivenCacheNamespace-settings.xml");
+
+		CacheInterceptor ci = context.getBean(CacheInterceptor.class);
+		assertThat(ci.isAsyncResultCaching()).isTrue();
+		assertThat(ci.isSingleFlight()).isTrue();
+		assertThat(ci.getEarlyRefreshAfter()).isEqualTo(Duration.ofSeconds(50));
+		context.close();
+	}
+
 }
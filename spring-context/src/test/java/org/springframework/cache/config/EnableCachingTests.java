@@ -16,6 +16,8 @@
 
 package org.springframework.cache.config;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.BeanCreationException;
@@ -143,6 +145,24 @@ public class EnableCachingTests extends AbstractCacheAnnotationTests {
 		context.close();
 	}
 
+	@Test
+	public void cacheSettingsApplied() {
+		ConfigurableApplicationContext context = new AnnotationConfigApplicationContext(CacheSettingsConfig.class);
+		CacheInterceptor ci = context.getBean(CacheInterceptor.class);
+		assertThat(ci.isAsyncResultCaching()).isTrue();
+		assertThat(ci.isSingleFlight()).isTrue();
+		assertThat(ci.getEarlyRefreshAfter()).isEqualTo(Duration.ofSeconds(50));
+		context.close();
+	}
+
+	@Test
+	public void cacheSettingsNotAppliedByDefault() {
+		CacheInterceptor ci = this.ctx.getBean(CacheInterceptor.class);
+		assertThat(ci.isAsyncResultCaching()).isFalse();
+		assertThat(ci.isSingleFlight()).isFalse();
+		assertThat(ci.getEarlyRefreshAfter()).isNull();
+	}
+
 
 	@Configuration
 	@EnableCaching
@@ -281,4 +301,15 @@ public class EnableCachingTests extends AbstractCacheAnnotationTests {
 		}
 	}
 
+
+	@Configuration
+	@EnableCaching(asyncResultCaching = true, singleFlight = true, earlyRefreshAfter = "PT50S")
+	static class CacheSettingsConfig {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new NoOpCacheManager();
+		}
+	}
+
 }
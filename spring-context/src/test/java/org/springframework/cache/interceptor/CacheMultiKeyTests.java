@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link Cacheable#multiKey()}.
+ */
+class CacheMultiKeyTests {
+
+	private ConfigurableApplicationContext context;
+
+	private Cache cache;
+
+	private MultiKeyService service;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+		this.service = this.context.getBean(MultiKeyService.class);
+	}
+
+	@AfterEach
+	void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	void onlyMissingKeysLoaded() {
+		assertThat(this.service.findAll(Arrays.asList(1, 2))).containsExactly(entry(1), entry(2));
+		assertThat(this.service.requests).containsExactly(Arrays.asList(1, 2));
+		assertThat(this.cache.get(1).get()).isEqualTo("value1");
+		assertThat(this.cache.get(2).get()).isEqualTo("value2");
+
+		Map<Integer, String> result = this.service.findAll(Arrays.asList(3, 2, 1));
+		assertThat(result).containsExactly(entry(3), entry(2), entry(1));
+		assertThat(this.service.requests).containsExactly(Arrays.asList(1, 2), Arrays.asList(3));
+
+		assertThat(this.service.findAll(Arrays.asList(1, 2, 3))).hasSize(3);
+		assertThat(this.service.requests).hasSize(2);
+	}
+
+	@Test
+	void keysNotReturnedNotCached() {
+		assertThat(this.service.findAll(Arrays.asList(1, 0))).containsExactly(entry(1));
+		assertThat(this.cache.get(0)).isNull();
+
+		assertThat(this.service.findAll(Arrays.asList(0, 1))).containsExactly(entry(1));
+		assertThat(this.service.requests).containsExactly(Arrays.asList(1, 0), Arrays.asList(0));
+	}
+
+	@Test
+	void invalidDeclaration() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.withKey(Arrays.asList(1, 2)))
+				.withMessageContaining("does not support key or keyGenerator");
+		assertThatIllegalStateException().isThrownBy(() -> this.service.notMap(Arrays.asList(1, 2)))
+				.withMessageContaining("requires a Map return type");
+		assertThatIllegalStateException().isThrownBy(() -> this.service.withTenant(Arrays.asList(1, 2), "tenant"))
+				.withMessageContaining("requires a single Collection parameter and no other parameters");
+	}
+
+	@Test
+	void bulkErrorsReportedPerKey() {
+		List<String> errors = new ArrayList<>();
+		AbstractCacheInvoker cacheInvoker = new AbstractCacheInvoker(new SimpleCacheErrorHandler() {
+			@Override
+			public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+				errors.add("get " + key);
+			}
+			@Override
+			public void handleCachePutError(RuntimeException exception, Cache cache, Object key, @Nullable Object value) {
+				errors.add("put " + key + "=" + value);
+			}
+		}) {};
+		Cache failingCache = new ConcurrentMapCache("failing") {
+			@Override
+			public ValueWrapper get(Object key) {
+				throw new IllegalStateException("get failed");
+			}
+			@Override
+			public void put(Object key, @Nullable Object value) {
+				throw new IllegalStateException("put failed");
+			}
+		};
+
+		assertThat(cacheInvoker.doGetAll(failingCache, Arrays.asList(1, 2))).isEmpty();
+		Map<Integer, String> entries = new LinkedHashMap<>();
+		entries.put(1, "value1");
+		entries.put(2, "value2");
+		cacheInvoker.doPutAll(failingCache, entries);
+		assertThat(errors).containsExactly("get 1", "get 2", "put 1=value1", "put 2=value2");
+	}
+
+	private static Map.Entry<Integer, String> entry(int key) {
+		return new AbstractMap.SimpleImmutableEntry<>(key, "value" + key);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("test");
+		}
+
+		@Bean
+		public MultiKeyService multiKeyService() {
+			return new MultiKeyService();
+		}
+	}
+
+
+	@CacheConfig(cacheNames = "test")
+	public static class MultiKeyService {
+
+		final List<Collection<Integer>> requests = new ArrayList<>();
+
+		@Cacheable(multiKey = true)
+		public Map<Integer, String> findAll(List<Integer> ids) {
+			this.requests.add(new ArrayList<>(ids));
+			Map<Integer, String> result = new LinkedHashMap<>();
+			for (Integer id : ids) {
+				if (id > 0) {
+					result.put(id, "value" + id);
+				}
+			}
+			return result;
+		}
+
+		@Cacheable(multiKey = true, key = "#ids")
+		public Map<Integer, String> withKey(List<Integer> ids) {
+			return findAll(ids);
+		}
+
+		@Cacheable(multiKey = true)
+		public Map<Integer, String> withTenant(List<Integer> ids, String tenant) {
+			return findAll(ids);
+		}
+
+		@Cacheable(multiKey = true)
+		public Set<Integer> notMap(List<Integer> ids) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
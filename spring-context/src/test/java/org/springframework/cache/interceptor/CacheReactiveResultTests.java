@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for caching the resolved values of methods returning a
+ * {@link CompletableFuture} or a reactive type.
+ */
+class CacheReactiveResultTests {
+
+	private ConfigurableApplicationContext context;
+
+	private CacheInterceptor interceptor;
+
+	private Cache cache;
+
+	private ReactiveService service;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.interceptor = this.context.getBean(CacheInterceptor.class);
+		this.interceptor.setAsyncResultCaching(true);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+		this.service = this.context.getBean(ReactiveService.class);
+	}
+
+	@AfterEach
+	void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	void cacheCompletableFutureValue() throws Exception {
+		Long first = this.service.future("a").get();
+		Long second = this.service.future("a").get();
+		assertThat(second).isEqualTo(first);
+		assertThat(this.service.counter.get()).isEqualTo(1);
+		assertThat(this.cache.get("a").get()).isEqualTo(first);
+	}
+
+	@Test
+	void cacheMonoValue() {
+		Mono<Long> mono = this.service.mono("a");
+		assertThat(this.service.counter.get()).as("Invocation deferred until subscription").isEqualTo(0);
+		assertThat(this.cache.get("a")).isNull();
+
+		Long first = mono.block();
+		Long second = this.service.mono("a").block();
+		assertThat(second).isEqualTo(first);
+		assertThat(this.service.counter.get()).isEqualTo(1);
+		assertThat(this.cache.get("a").get()).isEqualTo(first);
+	}
+
+	@Test
+	void cacheFluxElementsAsList() {
+		List<Long> first = this.service.flux("a").collectList().block();
+		List<Long> second = this.service.flux("a").collectList().block();
+		assertThat(second).isEqualTo(first).hasSize(2);
+		assertThat(this.service.counter.get()).isEqualTo(1);
+		assertThat(this.cache.get("a").get()).isEqualTo(first);
+	}
+
+	@Test
+	void evictAfterResolution() {
+		this.service.mono("a").block();
+		assertThat(this.cache.get("a")).isNotNull();
+
+		Mono<Void> evict = this.service.evict("a");
+		assertThat(this.cache.get("a")).isNotNull();
+		evict.block();
+		assertThat(this.cache.get("a")).isNull();
+	}
+
+	@Test
+	void concurrentMissesShareSingleInvocation() throws Exception {
+		MonoProcessor<Long> pending = MonoProcessor.create();
+		this.service.pending = pending;
+
+		CompletableFuture<Long> first = this.service.futureFromPending("a");
+		CompletableFuture<Long> second = this.service.futureFromPending("a");
+		CompletableFuture<Long> third = this.service.futureFromPending("a");
+		assertThat(first).isNotDone();
+		assertThat(second).isNotDone();
+		assertThat(this.service.counter.get()).isEqualTo(1);
+
+		third.cancel(false);
+		assertThat(first).isNotDone();
+		assertThat(second).isNotDone();
+
+		pending.onNext(42L);
+		assertThat(first.get()).isEqualTo(42L);
+		assertThat(second.get()).isEqualTo(42L);
+		assertThat(this.cache.get("a").get()).isEqualTo(42L);
+
+		assertThat(this.service.futureFromPending("a").get()).isEqualTo(42L);
+		assertThat(this.service.counter.get()).isEqualTo(1);
+	}
+
+	@Test
+	void failedInvocationNotCached() {
+		Mono<Long> failed = this.service.failing("a");
+		assertThat(failed.onErrorResume(ex -> Mono.just(-1L)).block()).isEqualTo(-1L);
+		assertThat(this.cache.get("a")).isNull();
+		assertThat(this.service.failing("a").onErrorResume(ex -> Mono.just(-1L)).block()).isEqualTo(-1L);
+		assertThat(this.service.counter.get()).isEqualTo(2);
+	}
+
+
+	@Test
+	void asyncResultCachingDisabled() throws Exception {
+		this.interceptor.setAsyncResultCaching(false);
+		CompletableFuture<Long> first = this.service.future("a");
+		assertThat(this.service.future("a")).isSameAs(first);
+		assertThat(this.cache.get("a").get()).isSameAs(first);
+		assertThat(this.service.counter.get()).isEqualTo(1);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("test");
+		}
+
+		@Bean
+		public ReactiveService reactiveService() {
+			return new ReactiveService();
+		}
+	}
+
+
+	@CacheConfig(cacheNames = "test")
+	public static class ReactiveService {
+
+		final AtomicInteger counter = new AtomicInteger();
+
+		volatile Mono<Long> pending;
+
+		@Cacheable
+		public CompletableFuture<Long> future(String key) {
+			return CompletableFuture.completedFuture((long) this.counter.incrementAndGet());
+		}
+
+		@Cacheable
+		public CompletableFuture<Long> futureFromPending(String key) {
+			this.counter.incrementAndGet();
+			return this.pending.toFuture();
+		}
+
+		@Cacheable
+		public Mono<Long> mono(String key) {
+			return Mono.just((long) this.counter.incrementAndGet());
+		}
+
+		@Cacheable
+		public Flux<Long> flux(String key) {
+			long value = this.counter.incrementAndGet();
+			return Flux.fromIterable(Arrays.asList(value, value + 100));
+		}
+
+		@Cacheable
+		public Mono<Long> failing(String key) {
+			this.counter.incrementAndGet();
+			return Mono.error(new IllegalStateException("failure"));
+		}
+
+		@CacheEvict
+		public Mono<Void> evict(String key) {
+			return Mono.empty();
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for single-flight loading of {@link Cacheable#sync()} operations.
+ */
+class CacheSingleFlightTests {
+
+	private ConfigurableApplicationContext context;
+
+	private CacheInterceptor interceptor;
+
+	private Cache cache;
+
+	private SimpleService service;
+
+
+	@BeforeEach
+	void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.interceptor = this.context.getBean(CacheInterceptor.class);
+		this.interceptor.setSingleFlight(true);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+		this.service = this.context.getBean(SimpleService.class);
+	}
+
+	@AfterEach
+	void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	void concurrentLoadsCoalesced() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		this.service.latch = release;
+
+		CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> this.service.get("a"));
+		awaitInvocations(1);
+		CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> this.service.get("a"));
+		assertThat(second).isNotDone();
+
+		release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+		assertThat(this.service.counter.get()).isEqualTo(1);
+		assertThat(this.cache.get("a").get()).isEqualTo(1L);
+	}
+
+	@Test
+	void loadsForOtherKeysNotBlocked() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		this.service.latch = release;
+
+		CompletableFuture<Long> pending = CompletableFuture.supplyAsync(() -> this.service.get("a"));
+		awaitInvocations(1);
+		this.service.latch = null;
+		assertThat(this.service.get("b")).isEqualTo(2L);
+
+		release.countDown();
+		assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+	}
+
+	@Test
+	void interruptedWhileAwaitingLoad() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		this.service.latch = release;
+
+		CompletableFuture<Long> pending = CompletableFuture.supplyAsync(() -> this.service.get("a"));
+		awaitInvocations(1);
+		Thread.currentThread().interrupt();
+		assertThatIllegalStateException().isThrownBy(() -> this.service.get("a"))
+				.withCauseInstanceOf(InterruptedException.class);
+		assertThat(Thread.interrupted()).as("Interrupt flag restored").isTrue();
+
+		release.countDown();
+		assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+	}
+
+	@Test
+	void failedLoadNotCached() {
+		this.service.failure = new IllegalStateException("failure");
+		assertThatIllegalStateException().isThrownBy(() -> this.service.get("a"));
+		assertThat(this.cache.get("a")).isNull();
+
+		this.service.failure = null;
+		assertThat(this.service.get("a")).isEqualTo(2L);
+	}
+
+	@Test
+	void earlyRefresh() {
+		assertThat(this.service.get("a")).isEqualTo(1L);
+		assertThat(this.service.get("a")).isEqualTo(1L);
+
+		this.interceptor.setEarlyRefreshAfter(Duration.ZERO);
+		assertThat(this.service.get("a")).as("No load recorded yet").isEqualTo(1L);
+		this.cache.evict("a");
+		assertThat(this.service.get("a")).isEqualTo(2L);
+		assertThat(this.service.get("a")).as("Refreshed on hit").isEqualTo(3L);
+		assertThat(this.cache.get("a").get()).isEqualTo(3L);
+
+		this.interceptor.setEarlyRefreshAfter(Duration.ofHours(1));
+		assertThat(this.service.get("a")).isEqualTo(3L);
+	}
+
+	@Test
+	void loadRecordDiscardedOnEviction() {
+		this.interceptor.setEarlyRefreshAfter(Duration.ZERO);
+		assertThat(this.service.get("a")).isEqualTo(1L);
+		assertThat(this.service.get("b")).isEqualTo(2L);
+
+		this.service.evict("a");
+		this.cache.put("a", 10L);
+		assertThat(this.service.get("a")).as("No load recorded after eviction").isEqualTo(10L);
+
+		this.service.clear();
+		this.cache.put("b", 20L);
+		assertThat(this.service.get("b")).as("No load recorded after clear").isEqualTo(20L);
+	}
+
+	private void awaitInvocations(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.service.counter.get() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.service.counter.get()).isEqualTo(count);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("test");
+		}
+
+		@Bean
+		public SimpleService simpleService() {
+			return new SimpleService();
+		}
+	}
+
+
+	@CacheConfig(cacheNames = "test")
+	public static class SimpleService {
+
+		final AtomicLong counter = new AtomicLong();
+
+		volatile CountDownLatch latch;
+
+		volatile RuntimeException failure;
+
+		@Cacheable(sync = true)
+		public Long get(String key) {
+			long value = this.counter.incrementAndGet();
+			CountDownLatch latch = this.latch;
+			if (latch != null) {
+				try {
+					latch.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (this.failure != null) {
+				throw this.failure;
+			}
+			return value;
+		}
+
+		@CacheEvict
+		public void evict(String key) {
+		}
+
+		@CacheEvict(allEntries = true)
+		public void clear() {
+		}
+	}
+
+}
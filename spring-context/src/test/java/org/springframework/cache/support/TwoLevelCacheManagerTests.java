@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TwoLevelCacheManager} and {@link TwoLevelCache}.
+ */
+class TwoLevelCacheManagerTests {
+
+	private final ConcurrentMapCacheManager localCacheManager = new ConcurrentMapCacheManager();
+
+	private final ConcurrentMapCacheManager targetCacheManager = new ConcurrentMapCacheManager();
+
+	private final TwoLevelCacheManager cacheManager =
+			new TwoLevelCacheManager(this.localCacheManager, this.targetCacheManager);
+
+
+	@Test
+	void cachesExposedAsTwoLevelCaches() {
+		this.targetCacheManager.setCacheNames(Arrays.asList("c1", "c2"));
+		this.cacheManager.afterPropertiesSet();
+
+		assertThat(this.cacheManager.getCacheNames()).containsExactly("c1", "c2");
+		Cache cache = this.cacheManager.getCache("c1");
+		assertThat(cache).isInstanceOf(TwoLevelCache.class);
+		assertThat(cache.getName()).isEqualTo("c1");
+		assertThat(cache).isSameAs(this.cacheManager.getCache("c1"));
+		assertThat(this.cacheManager.getCache("c3")).isNull();
+	}
+
+	@Test
+	void readPopulatesLocalCache() {
+		Cache cache = this.cacheManager.getCache("c1");
+		targetCache().put("key", "value");
+		assertThat(localCache().get("key")).isNull();
+
+		assertThat(cache.get("key").get()).isEqualTo("value");
+		assertThat(localCache().get("key").get()).isEqualTo("value");
+
+		targetCache().put("key", "other");
+		assertThat(cache.get("key", String.class)).as("Served from local cache").isEqualTo("value");
+	}
+
+	@Test
+	void valueLoaderPopulatesBothCaches() {
+		Cache cache = this.cacheManager.getCache("c1");
+		assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+		assertThat(targetCache().get("key").get()).isEqualTo("value");
+		assertThat(localCache().get("key").get()).isEqualTo("value");
+		assertThat(cache.get("key", () -> "other")).isEqualTo("value");
+	}
+
+	@Test
+	void writesAndEvictionsAppliedToBothCaches() {
+		Cache cache = this.cacheManager.getCache("c1");
+		cache.put("key", "value");
+		assertThat(targetCache().get("key").get()).isEqualTo("value");
+		assertThat(localCache().get("key")).isNull();
+		assertThat(cache.get("key").get()).isEqualTo("value");
+		assertThat(localCache().get("key").get()).isEqualTo("value");
+
+		assertThat(cache.putIfAbsent("key", "other").get()).isEqualTo("value");
+
+		cache.put("key", "other");
+		assertThat(localCache().get("key")).as("Removed from local cache on write").isNull();
+		assertThat(cache.get("key").get()).isEqualTo("other");
+
+		cache.put("key", null);
+		assertThat(targetCache().get("key").get()).isNull();
+		assertThat(localCache().get("key")).isNull();
+		assertThat(cache.get("key").get()).isNull();
+
+		cache.put("key", "value");
+		cache.evict("key");
+		assertThat(targetCache().get("key")).isNull();
+		assertThat(localCache().get("key")).isNull();
+
+		cache.put("key", "value");
+		assertThat(cache.invalidate()).isTrue();
+		assertThat(targetCache().get("key")).isNull();
+		assertThat(localCache().get("key")).isNull();
+	}
+
+	@Test
+	void invalidationCallbackAndLocalInvalidation() {
+		List<String> invalidations = new ArrayList<>();
+		this.cacheManager.setInvalidationCallback((name, key) -> invalidations.add(name + ":" + key));
+		Cache cache = this.cacheManager.getCache("c1");
+
+		cache.put("key", "value");
+		cache.evict("key");
+		cache.clear();
+		assertThat(invalidations).containsExactly("c1:key", "c1:key", "c1:null");
+
+		cache.put("key", "value");
+		targetCache().put("key", "other");
+		this.cacheManager.invalidateLocal("c1", "key");
+		assertThat(cache.get("key").get()).isEqualTo("other");
+	}
+
+	@Test
+	void targetCacheExposedWithoutLocalCache() {
+		ConcurrentMapCacheManager staticLocalCacheManager = new ConcurrentMapCacheManager("c1");
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(staticLocalCacheManager, this.targetCacheManager);
+		assertThat(cacheManager.getCache("c1")).isInstanceOf(TwoLevelCache.class);
+		assertThat(cacheManager.getCache("c2")).isSameAs(this.targetCacheManager.getCache("c2"));
+	}
+
+
+	private Cache localCache() {
+		return this.localCacheManager.getCache("c1");
+	}
+
+	private Cache targetCache() {
+		return this.targetCacheManager.getCache("c1");
+	}
+
+}
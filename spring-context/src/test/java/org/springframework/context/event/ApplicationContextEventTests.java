@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,23 @@
 
 package org.springframework.context.event;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.jupiter.api.Test;
@@ -49,11 +61,14 @@ import org.springframework.context.testfixture.beans.BeanThatListens;
 import org.springframework.core.Ordered;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.support.TaskUtils;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
@@ -212,6 +227,160 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertThat(listener1.seenEvents.size()).isEqualTo(2);
 	}
 
+	@Test
+	public void parallelDispatchWithOrderedListeners() throws InterruptedException {
+		CountDownLatch firstOrder = new CountDownLatch(2);
+		AtomicBoolean secondOrderAfterFirst = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+			smc.setTaskExecutor(executor);
+			smc.setParallelDispatch(true);
+			// Both listeners of the first order only complete if invoked concurrently
+			smc.addApplicationListener(new MyParallelListener(1, () -> awaitLatch(firstOrder)));
+			smc.addApplicationListener(new MyParallelListener(1, () -> awaitLatch(firstOrder)));
+			smc.addApplicationListener(new MyParallelListener(2, () -> secondOrderAfterFirst.set(firstOrder.getCount() == 0)));
+
+			smc.multicastEvent(new MyEvent(this));
+			assertThat(firstOrder.getCount()).isEqualTo(0);
+			assertThat(secondOrderAfterFirst.get()).isTrue();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void parallelDispatchWithException() {
+		RuntimeException thrown = new IllegalStateException();
+		AtomicBoolean sameOrderInvoked = new AtomicBoolean();
+		AtomicBoolean laterOrderInvoked = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+			smc.setTaskExecutor(executor);
+			smc.addApplicationListener(new MyParallelListener(1, () -> {
+				throw thrown;
+			}));
+			smc.addApplicationListener(new MyParallelListener(1, () -> sameOrderInvoked.set(true)));
+			smc.addApplicationListener(new MyParallelListener(2, () -> laterOrderInvoked.set(true)));
+
+			CompletableFuture<Void> future = smc.multicastEventAsync(new MyEvent(this), null);
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCause(thrown);
+			assertThat(sameOrderInvoked.get()).isTrue();
+			assertThat(laterOrderInvoked.get()).isFalse();
+
+			smc.setParallelDispatch(true);
+			assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
+					smc.multicastEvent(new MyEvent(this)))
+				.satisfies(ex -> assertThat(ex).isSameAs(thrown));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void parallelDispatchWithNestedPublish() throws Exception {
+		AtomicBoolean nestedInvoked = new AtomicBoolean();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+			smc.setTaskExecutor(executor);
+			smc.setParallelDispatch(true);
+			// Waiting for the single executor thread from within it would never complete
+			smc.addApplicationListener(new MyParallelListener(1, () -> smc.multicastEvent(new MyOtherEvent(this))));
+			smc.addApplicationListener(new ApplicationListener<MyOtherEvent>() {
+				@Override
+				public void onApplicationEvent(MyOtherEvent event) {
+					nestedInvoked.set(true);
+				}
+			});
+
+			smc.multicastEventAsync(new MyEvent(this), null).get(5, TimeUnit.SECONDS);
+			assertThat(nestedInvoked.get()).isTrue();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void parallelDispatchConfigurationValidated() {
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setParallelDispatch(true);
+		assertThatIllegalArgumentException().isThrownBy(smc::afterPropertiesSet)
+				.withMessageContaining("taskExecutor");
+
+		smc.setTaskExecutor(Runnable::run);
+		smc.afterPropertiesSet();
+		smc.setListenerTimeout(50);
+		assertThatIllegalArgumentException().isThrownBy(smc::afterPropertiesSet)
+				.withMessageContaining("timeoutScheduler");
+
+		smc.setTimeoutScheduler(new ThreadPoolTaskScheduler());
+		smc.afterPropertiesSet();
+	}
+
+	@Test
+	public void parallelDispatchWithListenerTimeout() {
+		CountDownLatch neverReleased = new CountDownLatch(1);
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(3);
+		scheduler.afterPropertiesSet();
+		try {
+			SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+			smc.setTaskExecutor(scheduler);
+			smc.setListenerTimeout(50);
+			smc.addApplicationListener(new MyParallelListener(1, () -> {
+				try {
+					neverReleased.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+
+			CompletableFuture<Void> future = smc.multicastEventAsync(new MyEvent(this), null);
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCauseInstanceOf(TimeoutException.class);
+
+			smc.setParallelDispatch(true);
+			assertThatIllegalStateException().isThrownBy(() -> smc.multicastEvent(new MyEvent(this)))
+					.withCauseInstanceOf(TimeoutException.class);
+		}
+		finally {
+			neverReleased.countDown();
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void listenerLatencyCallback() {
+		Map<ApplicationListener<?>, Duration> latencies = new ConcurrentHashMap<>();
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerLatencyCallback(latencies::put);
+		smc.addApplicationListener(listener);
+
+		smc.multicastEvent(new MyEvent(this));
+		assertThat(latencies).containsOnlyKeys(listener);
+		assertThat(latencies.get(listener).isNegative()).isFalse();
+	}
+
+	private static void awaitLatch(CountDownLatch latch) {
+		latch.countDown();
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Latch not released");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void proxiedListeners() {
@@ -248,6 +417,97 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertThat(listener1.seenEvents.size()).isEqualTo(2);
 	}
 
+	@Test
+	public void listenerRegistrationInvalidatesAffectedCacheEntriesOnly() {
+		List<ApplicationListener<?>> invoked = new ArrayList<>();
+		MyParallelListener listener1 = new MyParallelListener(1, () -> {});
+		MyParallelListener listener2 = new MyParallelListener(2, () -> {});
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerLatencyCallback((listener, latency) -> invoked.add(listener));
+		smc.addApplicationListener(listener1);
+
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertThat(smc.retrieverCache.size()).isEqualTo(2);
+
+		smc.addApplicationListener(new MyPayloadListener());
+		assertThat(smc.retrieverCache.size()).isEqualTo(2);
+
+		smc.addApplicationListener(listener2);
+		assertThat(smc.retrieverCache.size()).isEqualTo(1);
+		invoked.clear();
+		smc.multicastEvent(new MyEvent(this));
+		assertThat(invoked).containsExactly(listener1, listener2);
+
+		smc.removeApplicationListener(listener1);
+		assertThat(smc.retrieverCache.size()).isEqualTo(1);
+		invoked.clear();
+		smc.multicastEvent(new MyEvent(this));
+		assertThat(invoked).containsExactly(listener2);
+	}
+
+	@Test
+	public void payloadEventsWithGenericListener() {
+		MyStringPayloadListener stringListener = new MyStringPayloadListener();
+		MyPayloadListener payloadListener = new MyPayloadListener();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(stringListener);
+		smc.addApplicationListener(payloadListener);
+
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event1"));
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, 2));
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event3"));
+		assertThat(stringListener.seenPayloads).containsExactly("event1", "event3");
+		assertThat(payloadListener.seenPayloads).containsExactlyInAnyOrder("event1", 2, "event3");
+		assertThat(smc.retrieverCache.size()).isEqualTo(2);
+		assertThat(smc.retrieverIndex.size()).isEqualTo(2);
+
+		smc.removeApplicationListener(stringListener);
+		assertThat(smc.retrieverIndex.size()).isEqualTo(1);
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event4"));
+		assertThat(stringListener.seenPayloads).containsExactly("event1", "event3");
+		assertThat(payloadListener.seenPayloads).contains("event4");
+	}
+
+	@Test
+	public void payloadEventTypeNotResolvedForIndexedPayloadClass() {
+		MyStringPayloadListener stringListener = new MyStringPayloadListener();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(stringListener);
+
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event1"));
+		assertThat(smc.retrieverIndex.size()).isEqualTo(1);
+
+		// A lookup by resolved event type would populate the retriever cache again
+		smc.retrieverCache.clear();
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event2"));
+		assertThat(stringListener.seenPayloads).containsExactly("event1", "event2");
+		assertThat(smc.retrieverCache).isEmpty();
+	}
+
+	@Test
+	public void payloadEventTypeResolvedForCustomMulticaster() {
+		List<ResolvableType> eventTypes = new ArrayList<>();
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.getBeanFactory().registerSingleton(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+				new SimpleApplicationEventMulticaster() {
+					@Override
+					protected Collection<ApplicationListener<?>> getApplicationListeners(
+							ApplicationEvent event, ResolvableType eventType) {
+						eventTypes.add(eventType);
+						return super.getApplicationListeners(event, eventType);
+					}
+				});
+		context.refresh();
+		eventTypes.clear();
+
+		context.publishEvent("payload");
+		assertThat(eventTypes).hasSize(1);
+		assertThat(eventTypes.get(0).resolve()).isEqualTo(PayloadApplicationEvent.class);
+		assertThat(eventTypes.get(0).getGeneric().resolve()).isEqualTo(String.class);
+		context.close();
+	}
+
 	@Test
 	public void testEventPublicationInterceptor() throws Throwable {
 		MethodInvocation invocation = mock(MethodInvocation.class);
@@ -625,6 +885,29 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 	}
 
 
+	public static class MyParallelListener implements ApplicationListener<MyEvent>, Ordered {
+
+		private final int order;
+
+		private final Runnable action;
+
+		public MyParallelListener(int order, Runnable action) {
+			this.order = order;
+			this.action = action;
+		}
+
+		@Override
+		public void onApplicationEvent(MyEvent event) {
+			this.action.run();
+		}
+
+		@Override
+		public int getOrder() {
+			return this.order;
+		}
+	}
+
+
 	@SuppressWarnings("rawtypes")
 	public static class MyPayloadListener implements ApplicationListener<PayloadApplicationEvent> {
 
@@ -637,6 +920,17 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 	}
 
 
+	public static class MyStringPayloadListener implements ApplicationListener<PayloadApplicationEvent<String>> {
+
+		public final List<String> seenPayloads = new ArrayList<>();
+
+		@Override
+		public void onApplicationEvent(PayloadApplicationEvent<String> event) {
+			this.seenPayloads.add(event.getPayload());
+		}
+	}
+
+
 	public static class MyNonSingletonListener implements ApplicationListener<ApplicationEvent> {
 
 		public static final Set<ApplicationEvent> seenEvents = new HashSet<>();
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.interceptor.AsyncExecutionInterceptor;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link ThreadPoolTaskExecutor} tests with task metrics enabled.
+ */
+class InstrumentedThreadPoolTaskExecutorTests extends AbstractSchedulingTaskExecutorTests {
+
+	@Override
+	protected AsyncListenableTaskExecutor buildExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setTaskMetricsEnabled(true);
+		executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+		executor.setMaxPoolSize(1);
+		executor.afterPropertiesSet();
+		return executor;
+	}
+
+
+	@Test
+	void metricsNotEnabledByDefault() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.afterPropertiesSet();
+		try {
+			assertThat(executor.getTaskMetrics()).isNull();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void queueAndExecutionTimeRecorded() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ThreadPoolTaskExecutor executor = blockedExecutor(new ThreadPoolExecutor.AbortPolicy(), release);
+		try {
+			Thread.sleep(20);
+			release.countDown();
+			TaskExecutionMetrics metrics = executor.getTaskMetrics();
+			Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> metrics.getExecutionTime().getCount() == 2);
+			assertThat(metrics.getQueueTime().getCount()).isEqualTo(2);
+			// The queued task had to wait for the blocking task to complete
+			assertThat(metrics.getQueueTime().getMax()).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+			assertThat(metrics.getExecutionTime().getMax()).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+			assertThat(metrics.getRejectedCount()).isEqualTo(0);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void loadSheddingPolicy() throws Exception {
+		LoadSheddingPolicy policy = new LoadSheddingPolicy(0);
+		CountDownLatch release = new CountDownLatch(1);
+		ThreadPoolTaskExecutor executor = blockedExecutor(policy, release);
+		try {
+			assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() -> executor.execute(() -> {}));
+			assertThat(policy.getShedCount()).isEqualTo(1);
+			assertThat(executor.getTaskMetrics().getRejectedCount()).isEqualTo(1);
+		}
+		finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void callerRunsWithDeadlinePolicy() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ThreadPoolTaskExecutor executor = blockedExecutor(new CallerRunsWithDeadlinePolicy(10), release);
+		try {
+			AtomicReference<Thread> executingThread = new AtomicReference<>();
+			executor.execute(() -> executingThread.set(Thread.currentThread()));
+			assertThat(executingThread.get()).isSameAs(Thread.currentThread());
+			assertThat(executor.getTaskMetrics().getRejectedCount()).isEqualTo(1);
+		}
+		finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void asyncMethodInvocationsRecorded() throws Exception {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setTaskMetricsEnabled(true);
+		executor.afterPropertiesSet();
+		try {
+			ProxyFactory proxyFactory = new ProxyFactory(new SimpleAsyncService());
+			proxyFactory.addAdvice(new AsyncExecutionInterceptor(executor));
+			AsyncService service = (AsyncService) proxyFactory.getProxy();
+
+			assertThat(service.invoke().get(5, TimeUnit.SECONDS)).startsWith("ThreadPoolTaskExecutor-");
+			TaskExecutionMetrics metrics = executor.getTaskMetrics();
+			Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> metrics.getExecutionTime().getCount() == 1);
+			assertThat(metrics.getQueueTime().getCount()).isEqualTo(1);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+
+	/**
+	 * Create an executor with a single thread and a single queue slot,
+	 * both occupied until the given latch gets released.
+	 */
+	private ThreadPoolTaskExecutor blockedExecutor(RejectedExecutionHandler handler, CountDownLatch release)
+			throws InterruptedException {
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setTaskMetricsEnabled(true);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(1);
+		executor.setRejectedExecutionHandler(handler);
+		executor.afterPropertiesSet();
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		executor.execute(() -> {});
+		return executor;
+	}
+
+
+	public interface AsyncService {
+
+		Future<String> invoke();
+	}
+
+
+	static class SimpleAsyncService implements AsyncService {
+
+		@Override
+		public Future<String> invoke() {
+			return new AsyncResult<>(Thread.currentThread().getName());
+		}
+	}
+
+}
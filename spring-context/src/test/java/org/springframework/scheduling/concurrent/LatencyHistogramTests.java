@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+class LatencyHistogramTests {
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+
+	@Test
+	void empty() {
+		assertThat(this.histogram.getCount()).isEqualTo(0);
+		assertThat(this.histogram.getMean()).isEqualTo(Duration.ZERO);
+		assertThat(this.histogram.getMax()).isEqualTo(Duration.ZERO);
+		assertThat(this.histogram.getPercentile(99)).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	void smallValuesRecordedExactly() {
+		for (long i = 1; i <= 8; i++) {
+			this.histogram.record(i);
+		}
+		assertThat(this.histogram.getCount()).isEqualTo(8);
+		assertThat(this.histogram.getPercentile(50)).isEqualTo(Duration.ofNanos(4));
+		assertThat(this.histogram.getPercentile(100)).isEqualTo(Duration.ofNanos(8));
+		assertThat(this.histogram.getMax()).isEqualTo(Duration.ofNanos(8));
+	}
+
+	@Test
+	void percentilesWithinRelativeError() {
+		for (long i = 1; i <= 100_000; i++) {
+			this.histogram.record(i * 1000);
+		}
+		assertThat(this.histogram.getMean()).isEqualTo(Duration.ofNanos(50_000_500));
+		assertPercentile(50, 50_000_000);
+		assertPercentile(90, 90_000_000);
+		assertPercentile(99.9, 99_900_000);
+		assertThat(this.histogram.getPercentile(100)).isEqualTo(Duration.ofMillis(100));
+	}
+
+	@Test
+	void largeAndNegativeValues() {
+		this.histogram.record(Long.MAX_VALUE);
+		this.histogram.record(-1);
+		assertThat(this.histogram.getPercentile(0)).isEqualTo(Duration.ZERO);
+		assertThat(this.histogram.getPercentile(100)).isEqualTo(Duration.ofNanos(Long.MAX_VALUE));
+	}
+
+	@Test
+	void invalidPercentile() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.histogram.getPercentile(101));
+	}
+
+	private void assertPercentile(double percentile, long expectedNanos) {
+		long actual = this.histogram.getPercentile(percentile).toNanos();
+		assertThat(actual).isBetween(expectedNanos, expectedNanos + expectedNanos / 8);
+	}
+
+}
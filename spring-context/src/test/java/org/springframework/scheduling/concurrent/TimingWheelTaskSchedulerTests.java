@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.support.PeriodicTrigger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link TimingWheelTaskScheduler}.
+ */
+class TimingWheelTaskSchedulerTests {
+
+	private final TimingWheelTaskScheduler scheduler = new TimingWheelTaskScheduler();
+
+
+	@BeforeEach
+	void setup() {
+		// Small wheel with short ticks, so that tasks cascade through all levels
+		this.scheduler.setTickDuration(5);
+		this.scheduler.setTicksPerWheel(4);
+		this.scheduler.setPoolSize(2);
+		this.scheduler.afterPropertiesSet();
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.scheduler.shutdown();
+	}
+
+
+	@Test
+	void scheduleOneTimeTasksNotBeforeStartTime() throws Exception {
+		int count = 200;
+		CountDownLatch latch = new CountDownLatch(count);
+		AtomicInteger early = new AtomicInteger();
+		for (int i = 0; i < count; i++) {
+			// Execution times are compared with millisecond precision only
+			long startTime = System.currentTimeMillis() + (i * 3) % 500 + 1;
+			this.scheduler.schedule(() -> {
+				if (System.currentTimeMillis() + 1 < startTime) {
+					early.incrementAndGet();
+				}
+				latch.countDown();
+			}, new Date(startTime));
+		}
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(early.get()).isEqualTo(0);
+	}
+
+	@Test
+	void scheduleOneTimeTaskCompletesFuture() throws Exception {
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {}, new Date(System.currentTimeMillis() + 20));
+		assertThat(future.get(1, TimeUnit.SECONDS)).isNull();
+		assertThat(future.isDone()).isTrue();
+		assertThat(future.isCancelled()).isFalse();
+	}
+
+	@Test
+	void scheduleFailingOneTimeTask() {
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {
+			throw new IllegalStateException("Expected test exception");
+		}, new Date());
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+				.withCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void scheduleAtFixedRate() throws Exception {
+		CountDownLatch latch = new CountDownLatch(5);
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(latch::countDown, 10);
+		assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(future.cancel(false)).isTrue();
+		assertThat(future.isCancelled()).isTrue();
+	}
+
+	@Test
+	void scheduleWithFixedDelay() throws Exception {
+		CountDownLatch latch = new CountDownLatch(3);
+		AtomicLong lastCompletion = new AtomicLong();
+		AtomicInteger tooSoon = new AtomicInteger();
+		ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(() -> {
+			long now = System.currentTimeMillis();
+			if (lastCompletion.get() != 0 && now - lastCompletion.get() < 19) {
+				tooSoon.incrementAndGet();
+			}
+			lastCompletion.set(System.currentTimeMillis());
+			latch.countDown();
+		}, 20);
+		assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+		future.cancel(false);
+		assertThat(tooSoon.get()).isEqualTo(0);
+	}
+
+	@Test
+	void scheduleWithTrigger() throws Exception {
+		CountDownLatch latch = new CountDownLatch(3);
+		ScheduledFuture<?> future = this.scheduler.schedule(latch::countDown, new PeriodicTrigger(10));
+		assertThat(future).isNotNull();
+		assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+		future.cancel(false);
+	}
+
+	@Test
+	void scheduleWithTriggerThatNeverFires() {
+		assertThat(this.scheduler.schedule(() -> {}, triggerContext -> null)).isNull();
+	}
+
+	@Test
+	void cancelledTaskDoesNotRun() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		ScheduledFuture<?> future = this.scheduler.schedule(count::incrementAndGet,
+				new Date(System.currentTimeMillis() + 50));
+		assertThat(future.cancel(false)).isTrue();
+		Thread.sleep(100);
+		assertThat(count.get()).isEqualTo(0);
+		assertThat(future.isDone()).isTrue();
+	}
+
+	@Test
+	void shutdownCancelsScheduledTasks() {
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {},
+				new Date(System.currentTimeMillis() + 60_000));
+		this.scheduler.shutdown();
+		assertThat(future.isCancelled()).isTrue();
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				this.scheduler.schedule(() -> {}, new Date()));
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.testfixture.EnabledForTestGroups;
+import org.springframework.core.testfixture.TestGroup;
+import org.springframework.util.StopWatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link CronExpression}.
+ */
+class CronExpressionTests {
+
+	private static final ZoneId CET = ZoneId.of("CET");
+
+
+	@Test
+	void matchAll() {
+		CronExpression expression = CronExpression.parse("* * * * * *");
+		ZonedDateTime start = ZonedDateTime.of(2021, 5, 10, 12, 30, 15, 500, CET);
+		assertThat(expression.next(start)).isEqualTo(start.withNano(0).plusSeconds(1));
+	}
+
+	@Test
+	void secondsResetWhenMinuteAdvances() {
+		CronExpression expression = CronExpression.parse("1,49 50-56 * * * *");
+		ZonedDateTime start = ZonedDateTime.of(2021, 5, 10, 12, 10, 43, 0, CET);
+		assertThat(expression.next(start)).isEqualTo(ZonedDateTime.of(2021, 5, 10, 12, 50, 1, 0, CET));
+	}
+
+	@Test
+	void rollOverIntoNextYear() {
+		CronExpression expression = CronExpression.parse("0 0 0 25 12 ?");
+		ZonedDateTime start = ZonedDateTime.of(2021, 12, 25, 0, 0, 0, 0, CET);
+		assertThat(expression.next(start)).isEqualTo(ZonedDateTime.of(2022, 12, 25, 0, 0, 0, 0, CET));
+	}
+
+	@Test
+	void weekdays() {
+		CronExpression expression = CronExpression.parse("0 0 9 * * MON-FRI");
+		// Friday
+		ZonedDateTime start = ZonedDateTime.of(2021, 5, 14, 10, 0, 0, 0, CET);
+		assertThat(expression.next(start)).isEqualTo(ZonedDateTime.of(2021, 5, 17, 9, 0, 0, 0, CET));
+	}
+
+	@Test
+	void dayOfMonthAndDayOfWeekBothMatch() {
+		CronExpression expression = CronExpression.parse("0 0 0 13 * FRI");
+		ZonedDateTime start = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, CET);
+		assertThat(expression.next(start)).isEqualTo(ZonedDateTime.of(2021, 8, 13, 0, 0, 0, 0, CET));
+	}
+
+	@Test
+	void sundayAsZeroOrSeven() {
+		assertThat(CronExpression.parse("* * * * * 0")).isEqualTo(CronExpression.parse("* * * * * 7"));
+		assertThat(CronExpression.parse("* * * * * 0")).isEqualTo(CronExpression.parse("* * * * * SUN"));
+	}
+
+	@Test
+	void leapDayOnMonday() {
+		CronExpression expression = CronExpression.parse("0 0 0 29 2 MON");
+		ZonedDateTime start = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, CET);
+		assertThat(expression.next(start)).isEqualTo(ZonedDateTime.of(2044, 2, 29, 0, 0, 0, 0, CET));
+	}
+
+	@Test
+	void nonExistentDate() {
+		CronExpression expression = CronExpression.parse("0 0 0 30 2 *");
+		assertThat(expression.next(ZonedDateTime.now(CET))).isNull();
+	}
+
+	@Test
+	void daylightSavingGapSkipped() {
+		CronExpression expression = CronExpression.parse("0 10 2 * * *");
+		ZonedDateTime start = ZonedDateTime.of(2013, 3, 31, 1, 0, 54, 0, CET);
+		assertThat(expression.next(start)).isEqualTo(ZonedDateTime.of(2013, 4, 1, 2, 10, 0, 0, CET));
+	}
+
+	@Test
+	void daylightSavingOverlap() {
+		CronExpression expression = CronExpression.parse("0 */20 * * * *");
+		ZonedDateTime start = ZonedDateTime.of(2013, 10, 27, 2, 30, 0, 0, CET);
+		assertThat(expression.next(start.withEarlierOffsetAtOverlap()))
+				.isEqualTo(start.plusMinutes(10).withEarlierOffsetAtOverlap());
+		assertThat(expression.next(start.withLaterOffsetAtOverlap()))
+				.isEqualTo(start.plusMinutes(10).withLaterOffsetAtOverlap());
+	}
+
+	@Test
+	void nextDate() {
+		CronExpression expression = CronExpression.parse("0 0 * * * *");
+		Date next = expression.next(new Date(1000), ZoneId.of("UTC"));
+		assertThat(next).isEqualTo(new Date(3600 * 1000));
+	}
+
+	@Test
+	void invalidExpressions() {
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* * * * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("77 * * * * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* * 23-28 * * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* * * 32 * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* * * * 0 *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("*/0 * * * * *"));
+		assertThat(CronExpression.isValidExpression("0 0 9-17 * * MON-FRI")).isTrue();
+		assertThat(CronExpression.isValidExpression("0 0 9-17 * *")).isFalse();
+		assertThat(CronExpression.isValidExpression(null)).isFalse();
+	}
+
+	@Test
+	@EnabledForTestGroups(TestGroup.PERFORMANCE)
+	void fasterThanCronSequenceGenerator() {
+		String[] expressions = {"0 0 * * * *", "*/10 * * * * *", "0 0 9-17 * * MON-FRI", "0 30 23 30 1/3 ?"};
+		TimeZone timeZone = TimeZone.getTimeZone("CET");
+		StopWatch sw = new StopWatch();
+		for (String expression : expressions) {
+			CronSequenceGenerator generator = new CronSequenceGenerator(expression, timeZone);
+			Date date = new Date(0);
+			sw.start("CronSequenceGenerator: " + expression);
+			for (int i = 0; i < 10000; i++) {
+				date = generator.next(date);
+			}
+			sw.stop();
+
+			CronExpression cronExpression = CronExpression.parse(expression);
+			Date other = new Date(0);
+			sw.start("CronExpression: " + expression);
+			for (int i = 0; i < 10000; i++) {
+				other = cronExpression.next(other, timeZone.toZoneId());
+			}
+			sw.stop();
+			assertThat(other).isEqualTo(date);
+		}
+		long generatorTime = 0;
+		long expressionTime = 0;
+		for (StopWatch.TaskInfo task : sw.getTaskInfo()) {
+			if (task.getTaskName().startsWith("CronExpression")) {
+				expressionTime += task.getTimeNanos();
+			}
+			else {
+				generatorTime += task.getTimeNanos();
+			}
+		}
+		assertThat(expressionTime).as(sw.prettyPrint()).isLessThan(generatorTime);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.context.testfixture.cache;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
@@ -113,6 +116,30 @@ public abstract class AbstractCacheTests<T extends Cache> {
 		assertThat((Object) cache.get("enescu")).isNull();
 	}
 
+	@Test
+	public void testCacheBulkOperations() {
+		T cache = getCache();
+
+		String key1 = createRandomKey();
+		String key2 = createRandomKey();
+		String key3 = createRandomKey();
+		assertThat(cache.getAll(Arrays.asList(key1, key2, key3))).isEmpty();
+
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put(key1, "george");
+		entries.put(key2, null);
+		cache.putAll(entries);
+
+		Map<Object, Cache.ValueWrapper> values = cache.getAll(Arrays.asList(key3, key2, key1));
+		assertThat(values).containsOnlyKeys(key1, key2);
+		assertThat(values.get(key1).get()).isEqualTo("george");
+		assertThat(values.get(key2).get()).isNull();
+
+		cache.evictAll(Arrays.asList(key1, key3));
+		assertThat(cache.get(key1)).isNull();
+		assertThat(cache.getAll(Arrays.asList(key1, key2))).containsOnlyKeys(key2);
+	}
+
 	@Test
 	public void testCacheGetCallable() {
 		doTestCacheGetCallable("test");
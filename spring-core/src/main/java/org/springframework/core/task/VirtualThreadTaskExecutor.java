@@ -0,0 +1,458 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CustomizableThreadCreator;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+/**
+ * {@link TaskExecutor} implementation that fires up a new virtual thread for
+ * each task, on a JVM with virtual thread support (JDK 21, or JDK 19/20 with
+ * preview features enabled). On other JVMs, it falls back to a new platform
+ * thread per task, like {@link SimpleAsyncTaskExecutor}. Virtual thread support
+ * is detected reflectively, so this class does not require a recent JDK.
+ *
+ * <p>Supports limiting concurrent tasks through the "concurrencyLimit" bean
+ * property, based on a {@link Semaphore}. With virtual threads, tasks beyond
+ * the limit get parked in their own virtual thread until a permit becomes
+ * available, without ever blocking the submitting thread. With platform
+ * threads, the submitting thread gets blocked instead, as with the throttle
+ * of {@link SimpleAsyncTaskExecutor}, in order to not create an unbounded
+ * number of threads.
+ *
+ * <p>A virtual thread cannot be unmounted from its carrier thread while it
+ * blocks inside a {@code synchronized} block or a native method; it is
+ * <i>pinned</i>, occupying one of the few carrier threads. Switch on
+ * {@link #setPinningDiagnostics "pinningDiagnostics"} to log such occurrences
+ * for the threads of this executor, as reported by JDK Flight Recorder.
+ *
+ * <p>Suitable as executor for {@code @Async} methods, for {@code Callable}
+ * and {@code WebAsyncTask} processing through the {@code WebAsyncManager},
+ * and for producing {@code DeferredResult} values in the background. Since
+ * virtual threads are cheap to create, there is no need for pooling them.
+ * The {@link #getThreadFactory() thread factory} may also be passed to a
+ * thread pool based scheduler, e.g. for running scheduled tasks on virtual threads.
+ *
+ * @since 5.2.19
+ * @see #setConcurrencyLimit
+ * @see #setPinningDiagnostics
+ * @see SimpleAsyncTaskExecutor
+ */
+public class VirtualThreadTaskExecutor implements AsyncListenableTaskExecutor, AutoCloseable {
+
+	/**
+	 * Permit any number of concurrent invocations: that is, don't throttle concurrency.
+	 * @see #setConcurrencyLimit
+	 */
+	public static final int UNBOUNDED_CONCURRENCY = -1;
+
+	private static final String PINNED_EVENT_NAME = "jdk.VirtualThreadPinned";
+
+	private static final Log logger = LogFactory.getLog(VirtualThreadTaskExecutor.class);
+
+	private static final boolean virtualThreadSupported = (createVirtualThreadFactory("probe-") != null);
+
+
+	private final ThreadFactory threadFactory;
+
+	private final boolean virtualThreads;
+
+	private final String threadNamePrefix;
+
+	private int concurrencyLimit = UNBOUNDED_CONCURRENCY;
+
+	@Nullable
+	private volatile Semaphore concurrencyPermits;
+
+	@Nullable
+	private TaskDecorator taskDecorator;
+
+	private volatile boolean pinningDiagnostics;
+
+	private long pinningThreshold = 20;
+
+	@Nullable
+	private PinningMonitor pinningMonitor;
+
+	private final Object pinningMonitorLock = new Object();
+
+
+	/**
+	 * Create a new VirtualThreadTaskExecutor with a default thread name prefix.
+	 */
+	public VirtualThreadTaskExecutor() {
+		this(ClassUtils.getShortName(VirtualThreadTaskExecutor.class) + "-");
+	}
+
+	/**
+	 * Create a new VirtualThreadTaskExecutor with the given thread name prefix.
+	 * @param threadNamePrefix the prefix to use for the names of newly created threads
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		Assert.notNull(threadNamePrefix, "Thread name prefix must not be null");
+		ThreadFactory virtualThreadFactory = createVirtualThreadFactory(threadNamePrefix);
+		if (virtualThreadFactory != null) {
+			this.threadFactory = virtualThreadFactory;
+			this.virtualThreads = true;
+		}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Virtual threads not supported on this JVM - using platform threads");
+			}
+			this.threadFactory = new CustomizableThreadCreator(threadNamePrefix)::createThread;
+			this.virtualThreads = false;
+		}
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+
+	/**
+	 * Determine whether the current JVM supports virtual threads.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return virtualThreadSupported;
+	}
+
+	/**
+	 * Return whether this executor runs its tasks on virtual threads,
+	 * as opposed to platform threads on a JVM without virtual thread support.
+	 */
+	public final boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Return the factory for the threads that this executor runs its tasks on:
+	 * virtual threads if supported, platform threads otherwise.
+	 */
+	public final ThreadFactory getThreadFactory() {
+		return this.threadFactory;
+	}
+
+	/**
+	 * Specify a custom {@link TaskDecorator} to be applied to any {@link Runnable}
+	 * about to be executed.
+	 * @see SimpleAsyncTaskExecutor#setTaskDecorator
+	 */
+	public final void setTaskDecorator(TaskDecorator taskDecorator) {
+		this.taskDecorator = taskDecorator;
+	}
+
+	/**
+	 * Set the maximum number of tasks allowed to run concurrently.
+	 * <p>By default there is no limit. Changing the limit at runtime
+	 * only applies to tasks submitted afterwards.
+	 * @see #UNBOUNDED_CONCURRENCY
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0 || concurrencyLimit == UNBOUNDED_CONCURRENCY,
+				"Concurrency limit must be positive or UNBOUNDED_CONCURRENCY");
+		this.concurrencyLimit = concurrencyLimit;
+		this.concurrencyPermits = (concurrencyLimit > 0 ? new Semaphore(concurrencyLimit, true) : null);
+	}
+
+	/**
+	 * Return the maximum number of tasks allowed to run concurrently.
+	 */
+	public final int getConcurrencyLimit() {
+		return this.concurrencyLimit;
+	}
+
+	/**
+	 * Specify whether to log a warning, including the stack trace, whenever a
+	 * virtual thread of this executor stays pinned to its carrier thread for
+	 * longer than the {@link #setPinningThreshold pinning threshold}.
+	 * <p>By default, no such warnings are logged. Requires JDK Flight Recorder
+	 * event streaming, which is available on any JVM with virtual thread support.
+	 * Recording starts with the first task submitted after this flag has been
+	 * switched on, and stops on {@link #close()}.
+	 */
+	public void setPinningDiagnostics(boolean pinningDiagnostics) {
+		this.pinningDiagnostics = pinningDiagnostics;
+		if (!pinningDiagnostics) {
+			stopPinningMonitor();
+		}
+	}
+
+	/**
+	 * Set the minimum duration, in milliseconds, for which a virtual thread has
+	 * to be pinned to be reported through {@link #setPinningDiagnostics pinning diagnostics}.
+	 * <p>By default this is 20 milliseconds, in line with the JDK's own default.
+	 */
+	public void setPinningThreshold(long pinningThreshold) {
+		Assert.isTrue(pinningThreshold >= 0, "Pinning threshold must not be negative");
+		this.pinningThreshold = pinningThreshold;
+	}
+
+
+	@Override
+	public void execute(Runnable task) {
+		execute(task, TIMEOUT_INDEFINITE);
+	}
+
+	/**
+	 * Execute the given task, with a concurrency limit being taken into account
+	 * through the given start timeout on platform threads only. Virtual threads
+	 * always accept a task right away, and wait for a permit themselves.
+	 */
+	@Override
+	public void execute(Runnable task, long startTimeout) {
+		Assert.notNull(task, "Runnable must not be null");
+		if (this.pinningDiagnostics && this.virtualThreads) {
+			startPinningMonitorIfNecessary();
+		}
+		Runnable taskToUse = (this.taskDecorator != null ? this.taskDecorator.decorate(task) : task);
+		Semaphore permits = this.concurrencyPermits;
+		boolean acquired = false;
+		if (permits != null) {
+			if (!this.virtualThreads) {
+				acquirePermit(permits, task, startTimeout);
+				acquired = true;
+			}
+			taskToUse = new ConcurrencyLimitedRunnable(taskToUse, permits, acquired);
+		}
+		try {
+			doExecute(taskToUse);
+		}
+		catch (RuntimeException | Error ex) {
+			// The task will never run, so hand back the permit taken on its behalf
+			if (acquired) {
+				permits.release();
+			}
+			throw ex;
+		}
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(task, null);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	@Override
+	public ListenableFuture<?> submitListenable(Runnable task) {
+		ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	@Override
+	public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+		ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	/**
+	 * Template method for the actual execution of a task.
+	 * <p>The default implementation creates a new thread and starts it.
+	 * @param task the Runnable to execute
+	 * @see #getThreadFactory()
+	 */
+	protected void doExecute(Runnable task) {
+		this.threadFactory.newThread(task).start();
+	}
+
+	/**
+	 * Stop the pinning diagnostics, if active. Tasks that are still
+	 * running are not affected.
+	 */
+	@Override
+	public void close() {
+		stopPinningMonitor();
+	}
+
+
+	private void acquirePermit(Semaphore permits, Runnable task, long startTimeout) {
+		try {
+			if (startTimeout == TIMEOUT_INDEFINITE) {
+				permits.acquire();
+			}
+			else if (!permits.tryAcquire(startTimeout, TimeUnit.MILLISECONDS)) {
+				throw new TaskTimeoutException("Concurrency limit of " + this.concurrencyLimit +
+						" reached - did not accept task within " + startTimeout + " ms: " + task);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting for concurrency permit: " + task, ex);
+		}
+	}
+
+	private void startPinningMonitorIfNecessary() {
+		synchronized (this.pinningMonitorLock) {
+			if (this.pinningMonitor == null && this.pinningDiagnostics) {
+				this.pinningMonitor = PinningMonitor.start(this.threadNamePrefix, this.pinningThreshold);
+				if (this.pinningMonitor == null) {
+					// Not available on this JVM: do not try again for every task
+					this.pinningDiagnostics = false;
+				}
+			}
+		}
+	}
+
+	private void stopPinningMonitor() {
+		synchronized (this.pinningMonitorLock) {
+			if (this.pinningMonitor != null) {
+				this.pinningMonitor.stop();
+				this.pinningMonitor = null;
+			}
+		}
+	}
+
+	/**
+	 * Create a factory for virtual threads through {@code Thread.ofVirtual()}.
+	 * @return the thread factory, or {@code null} if virtual threads are not supported
+	 */
+	@Nullable
+	private static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+		Method ofVirtual = ClassUtils.getMethodIfAvailable(Thread.class, "ofVirtual");
+		if (ofVirtual == null) {
+			return null;
+		}
+		try {
+			Class<?> builderClass = ClassUtils.forName("java.lang.Thread$Builder", Thread.class.getClassLoader());
+			Object builder = ofVirtual.invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		}
+		catch (Throwable ex) {
+			// Preview feature not enabled on JDK 19/20, or otherwise not accessible
+			if (logger.isTraceEnabled()) {
+				logger.trace("Failed to create virtual thread factory", ex);
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * Runnable that holds a concurrency permit while executing its target,
+	 * acquiring the permit first unless the submitting thread did already.
+	 */
+	private static class ConcurrencyLimitedRunnable implements Runnable {
+
+		private final Runnable target;
+
+		private final Semaphore permits;
+
+		private final boolean acquired;
+
+		public ConcurrencyLimitedRunnable(Runnable target, Semaphore permits, boolean acquired) {
+			this.target = target;
+			this.permits = permits;
+			this.acquired = acquired;
+		}
+
+		@Override
+		public void run() {
+			if (!this.acquired) {
+				this.permits.acquireUninterruptibly();
+			}
+			try {
+				this.target.run();
+			}
+			finally {
+				this.permits.release();
+			}
+		}
+	}
+
+
+	/**
+	 * Reports {@code jdk.VirtualThreadPinned} events for threads with a given
+	 * name prefix, through a JDK Flight Recorder event stream that is accessed
+	 * reflectively.
+	 */
+	private static final class PinningMonitor {
+
+		private final Object recordingStream;
+
+		private final Method closeMethod;
+
+		private PinningMonitor(Object recordingStream, Method closeMethod) {
+			this.recordingStream = recordingStream;
+			this.closeMethod = closeMethod;
+		}
+
+		@Nullable
+		static PinningMonitor start(String threadNamePrefix, long thresholdMillis) {
+			try {
+				ClassLoader classLoader = Thread.class.getClassLoader();
+				Class<?> streamClass = ClassUtils.forName("jdk.jfr.consumer.RecordingStream", classLoader);
+				Class<?> settingsClass = ClassUtils.forName("jdk.jfr.EventSettings", classLoader);
+				Class<?> eventClass = ClassUtils.forName("jdk.jfr.consumer.RecordedEvent", classLoader);
+				Class<?> threadClass = ClassUtils.forName("jdk.jfr.consumer.RecordedThread", classLoader);
+				Method getThread = eventClass.getMethod("getThread");
+				Method getDuration = eventClass.getMethod("getDuration");
+				Method getJavaName = threadClass.getMethod("getJavaName");
+
+				Object stream = streamClass.getConstructor().newInstance();
+				Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT_NAME);
+				settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ofMillis(thresholdMillis));
+				settingsClass.getMethod("withStackTrace").invoke(settings);
+				Consumer<Object> handler = event -> {
+					Object thread = ReflectionUtils.invokeMethod(getThread, event);
+					String threadName = (thread != null ? (String) ReflectionUtils.invokeMethod(getJavaName, thread) : null);
+					if (threadName != null && threadName.startsWith(threadNamePrefix) && logger.isWarnEnabled()) {
+						logger.warn("Virtual thread [" + threadName + "] pinned to its carrier thread for " +
+								ReflectionUtils.invokeMethod(getDuration, event) + " - consider replacing " +
+								"'synchronized' around blocking operations with a ReentrantLock: " + event);
+					}
+				};
+				streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT_NAME, handler);
+				streamClass.getMethod("startAsync").invoke(stream);
+				return new PinningMonitor(stream, streamClass.getMethod("close"));
+			}
+			catch (Throwable ex) {
+				logger.warn("Pinning diagnostics not available: JDK Flight Recorder event streaming failed", ex);
+				return null;
+			}
+		}
+
+		void stop() {
+			ReflectionUtils.invokeMethod(this.closeMethod, this.recordingStream);
+		}
+	}
+
+}
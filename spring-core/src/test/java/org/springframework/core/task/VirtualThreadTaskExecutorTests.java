@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.concurrent.ListenableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Tests for {@link VirtualThreadTaskExecutor}, running on virtual threads
+ * or platform threads depending on the JVM.
+ */
+class VirtualThreadTaskExecutorTests {
+
+	private final VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+
+
+	@Test
+	void virtualThreadsUsedIfSupported() {
+		assertThat(this.executor.isVirtualThreads()).isEqualTo(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+	}
+
+	@Test
+	void submitCallable() throws Exception {
+		String threadName = this.executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+		assertThat(threadName).startsWith("test-");
+	}
+
+	@Test
+	void submitListenableRunnable() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		ListenableFuture<?> future = this.executor.submitListenable(latch::countDown);
+		future.addCallback(result -> {}, ex -> {});
+		assertThat(future.get(5, TimeUnit.SECONDS)).isNull();
+		assertThat(latch.getCount()).isEqualTo(0);
+	}
+
+	@Test
+	void taskDecorator() throws Exception {
+		AtomicInteger decorated = new AtomicInteger();
+		this.executor.setTaskDecorator(runnable -> () -> {
+			decorated.incrementAndGet();
+			runnable.run();
+		});
+		this.executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+		assertThat(decorated.get()).isEqualTo(1);
+	}
+
+	@Test
+	void concurrencyLimit() throws Exception {
+		int taskCount = 20;
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(taskCount);
+		this.executor.setConcurrencyLimit(2);
+		for (int i = 0; i < taskCount; i++) {
+			this.executor.execute(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				latch.countDown();
+			});
+		}
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void concurrencyLimitWithStartTimeoutOnPlatformThreads() throws Exception {
+		assumeFalse(this.executor.isVirtualThreads(), "Virtual threads never time out on task submission");
+		CountDownLatch release = new CountDownLatch(1);
+		this.executor.setConcurrencyLimit(1);
+		this.executor.execute(() -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			assertThatExceptionOfType(TaskTimeoutException.class).isThrownBy(() ->
+					this.executor.execute(() -> {}, AsyncTaskExecutor.TIMEOUT_IMMEDIATE));
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void concurrencyPermitReleasedIfThreadStartFails() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-") {
+			@Override
+			protected void doExecute(Runnable task) {
+				if (attempts.incrementAndGet() == 1) {
+					throw new IllegalStateException("Cannot start thread");
+				}
+				super.doExecute(task);
+			}
+		};
+		executor.setConcurrencyLimit(1);
+		assertThatIllegalStateException().isThrownBy(() -> executor.execute(() -> {}));
+
+		CountDownLatch latch = new CountDownLatch(1);
+		executor.execute(latch::countDown, AsyncTaskExecutor.TIMEOUT_IMMEDIATE);
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void invalidConcurrencyLimit() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.executor.setConcurrencyLimit(0));
+	}
+
+	@Test
+	void executionWithPinningDiagnostics() throws Exception {
+		this.executor.setPinningDiagnostics(true);
+		this.executor.setPinningThreshold(1);
+		try {
+			Object monitor = new Object();
+			String result = this.executor.submit(() -> {
+				synchronized (monitor) {
+					Thread.sleep(10);
+				}
+				return "pinned";
+			}).get(5, TimeUnit.SECONDS);
+			assertThat(result).isEqualTo("pinned");
+		}
+		finally {
+			this.executor.close();
+		}
+	}
+
+}
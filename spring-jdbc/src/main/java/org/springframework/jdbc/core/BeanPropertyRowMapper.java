@@ -17,6 +17,7 @@
 package org.springframework.jdbc.core;
 
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -102,6 +103,10 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** Column-to-property mapping for the ResultSet mapped last. */
+	@Nullable
+	private volatile ColumnMapping lastColumnMapping;
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -276,31 +281,28 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
 	/**
 	 * Extract the values for all columns in the current row.
-	 * <p>Utilizes public setters and result set meta-data.
+	 * <p>Utilizes public setters and result set meta-data. The mapping of columns
+	 * to properties is determined on the first row of a {@link ResultSet} and
+	 * reused for its subsequent rows, unless rows of another ResultSet have been
+	 * mapped by the same mapper instance in the meantime.
 	 * @see java.sql.ResultSetMetaData
 	 */
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		ColumnMapping columnMapping = getColumnMapping(rs);
 		T mappedObject = BeanUtils.instantiateClass(this.mappedClass);
 		BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
 		initBeanWrapper(bw);
 
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int columnCount = rsmd.getColumnCount();
-		Set<String> populatedProperties = (isCheckFullyPopulated() ? new HashSet<>() : null);
-
-		for (int index = 1; index <= columnCount; index++) {
-			String column = JdbcUtils.lookupColumnName(rsmd, index);
-			String field = lowerCaseName(StringUtils.delete(column, " "));
-			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
+		String[] columns = columnMapping.columns;
+		PropertyDescriptor[] properties = columnMapping.properties;
+		for (int i = 0; i < properties.length; i++) {
+			PropertyDescriptor pd = properties[i];
 			if (pd != null) {
+				int index = i + 1;
 				try {
 					Object value = getColumnValue(rs, index, pd);
-					if (rowNumber == 0 && logger.isDebugEnabled()) {
-						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
-								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
-					}
 					try {
 						bw.setPropertyValue(pd.getName(), value);
 					}
@@ -308,7 +310,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 						if (value == null && this.primitivesDefaultedForNullValue) {
 							if (logger.isDebugEnabled()) {
 								logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
-										" and column '" + column + "' with null value when setting property '" +
+										" and column '" + columns[i] + "' with null value when setting property '" +
 										pd.getName() + "' of type '" +
 										ClassUtils.getQualifiedName(pd.getPropertyType()) +
 										"' on object: " + mappedObject, ex);
@@ -318,24 +320,15 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 							throw ex;
 						}
 					}
-					if (populatedProperties != null) {
-						populatedProperties.add(pd.getName());
-					}
 				}
 				catch (NotWritablePropertyException ex) {
 					throw new DataRetrievalFailureException(
-							"Unable to map column '" + column + "' to property '" + pd.getName() + "'", ex);
-				}
-			}
-			else {
-				// No PropertyDescriptor found
-				if (rowNumber == 0 && logger.isDebugEnabled()) {
-					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+							"Unable to map column '" + columns[i] + "' to property '" + pd.getName() + "'", ex);
 				}
 			}
 		}
 
-		if (populatedProperties != null && !populatedProperties.equals(this.mappedProperties)) {
+		if (isCheckFullyPopulated() && !columnMapping.fullyPopulating) {
 			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
 					"necessary to populate object of " + this.mappedClass + ": " + this.mappedProperties);
 		}
@@ -343,6 +336,50 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return mappedObject;
 	}
 
+	/**
+	 * Obtain the column-to-property mapping for the given ResultSet,
+	 * determining it from the result set meta-data on first access.
+	 */
+	private ColumnMapping getColumnMapping(ResultSet rs) throws SQLException {
+		ColumnMapping columnMapping = this.lastColumnMapping;
+		if (columnMapping == null || columnMapping.resultSet.get() != rs) {
+			columnMapping = createColumnMapping(rs);
+			this.lastColumnMapping = columnMapping;
+		}
+		return columnMapping;
+	}
+
+	private ColumnMapping createColumnMapping(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		String[] columns = new String[columnCount];
+		PropertyDescriptor[] properties = new PropertyDescriptor[columnCount];
+		Set<String> populatedProperties = new HashSet<>();
+
+		for (int index = 1; index <= columnCount; index++) {
+			String column = JdbcUtils.lookupColumnName(rsmd, index);
+			String field = lowerCaseName(StringUtils.delete(column, " "));
+			PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
+			columns[index - 1] = column;
+			properties[index - 1] = pd;
+			if (pd != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+				}
+				populatedProperties.add(pd.getName());
+			}
+			else {
+				// No PropertyDescriptor found
+				if (logger.isDebugEnabled()) {
+					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+				}
+			}
+		}
+
+		return new ColumnMapping(rs, columns, properties, populatedProperties.equals(this.mappedProperties));
+	}
+
 	/**
 	 * Initialize the given BeanWrapper to be used for row mapping.
 	 * To be called for each row.
@@ -404,4 +441,28 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return rowMapper;
 	}
 
+
+	/**
+	 * Column-to-property mapping determined from the meta-data of a ResultSet.
+	 * Only weakly references the ResultSet, in order to not keep it reachable
+	 * after the query through a long-lived mapper instance.
+	 */
+	private static final class ColumnMapping {
+
+		final WeakReference<ResultSet> resultSet;
+
+		final String[] columns;
+
+		final PropertyDescriptor[] properties;
+
+		final boolean fullyPopulating;
+
+		ColumnMapping(ResultSet resultSet, String[] columns, PropertyDescriptor[] properties, boolean fullyPopulating) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.columns = columns;
+			this.properties = properties;
+			this.fullyPopulating = fullyPopulating;
+		}
+	}
+
 }
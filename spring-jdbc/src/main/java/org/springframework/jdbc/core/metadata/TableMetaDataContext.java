@@ -272,6 +272,19 @@ public class TableMetaDataContext {
 	 * @return the insert string to be used
 	 */
 	public String createInsertString(String... generatedKeyNames) {
+		return createMultiRowInsertString(1, generatedKeyNames);
+	}
+
+	/**
+	 * Build an insert string with a multi-row {@code VALUES} clause based on
+	 * configuration and meta-data information.
+	 * @param rowCount the number of rows (i.e. parameter groups) to insert
+	 * @param generatedKeyNames the names of the generated key columns to leave out
+	 * @return the insert string to be used
+	 * @since 5.2.19
+	 */
+	public String createMultiRowInsertString(int rowCount, String... generatedKeyNames) {
+		Assert.isTrue(rowCount > 0, "Row count must be greater than 0");
 		Set<String> keys = new LinkedHashSet<>(generatedKeyNames.length);
 		for (String key : generatedKeyNames) {
 			keys.add(key.toUpperCase());
@@ -314,6 +327,9 @@ public class TableMetaDataContext {
 		String params = String.join(", ", Collections.nCopies(columnCount, "?"));
 		insertStatement.append(params);
 		insertStatement.append(")");
+		for (int i = 1; i < rowCount; i++) {
+			insertStatement.append(", (").append(params).append(")");
+		}
 		return insertStatement.toString();
 	}
 
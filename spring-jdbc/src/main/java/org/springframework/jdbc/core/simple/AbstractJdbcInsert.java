@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -88,6 +88,16 @@ public abstract class AbstractJdbcInsert {
 	/** The SQL type information for the insert columns. */
 	private int[] insertTypes = new int[0];
 
+	/** The maximum number of parameters per multi-row insert statement (0 for none). */
+	private int multiRowInsertParameterLimit = 0;
+
+	/** The maximum number of rows per multi-row insert statement (0 for no limit). */
+	private int multiRowInsertRowLimit = 0;
+
+	/** Driver-specific bulk loader to use for batch inserts, if any. */
+	@Nullable
+	private BulkInsertLoader bulkInsertLoader;
+
 
 	/**
 	 * Constructor to be used when initializing using a {@link DataSource}.
@@ -221,6 +231,79 @@ public abstract class AbstractJdbcInsert {
 		this.tableMetaDataContext.setOverrideIncludeSynonymsDefault(override);
 	}
 
+	/**
+	 * Enable multi-row {@code INSERT ... VALUES (...), (...)} statements for
+	 * batch inserts, specifying the maximum number of bind parameters per
+	 * statement. Each batch is split into chunks of as many rows as fit into
+	 * this limit, and every chunk is sent as a single statement rather than as
+	 * a JDBC batch of single-row inserts.
+	 * <p>The limit should match the driver or database, e.g. 2100 for SQL Server,
+	 * 32767 for PostgreSQL or 65535 for MySQL. Databases that also restrict the
+	 * number of rows in a {@code VALUES} list, such as SQL Server with 1000 rows,
+	 * additionally require a {@link #setMultiRowInsertRowLimit row limit}.
+	 * The database needs to support the multi-row {@code VALUES} syntax.
+	 * <p>By default this is 0, i.e. multi-row inserts are disabled.
+	 * @since 5.2.19
+	 * @see #doExecuteBatch(SqlParameterSource...)
+	 */
+	public void setMultiRowInsertParameterLimit(int multiRowInsertParameterLimit) {
+		checkIfConfigurationModificationIsAllowed();
+		Assert.isTrue(multiRowInsertParameterLimit >= 0, "Parameter limit must not be negative");
+		this.multiRowInsertParameterLimit = multiRowInsertParameterLimit;
+	}
+
+	/**
+	 * Return the maximum number of parameters per multi-row insert statement,
+	 * or 0 if multi-row inserts are disabled.
+	 * @since 5.2.19
+	 */
+	public int getMultiRowInsertParameterLimit() {
+		return this.multiRowInsertParameterLimit;
+	}
+
+	/**
+	 * Specify the maximum number of rows per multi-row insert statement, in
+	 * addition to the {@link #setMultiRowInsertParameterLimit parameter limit}
+	 * which enables multi-row inserts in the first place. A batch is split into
+	 * chunks that satisfy both limits.
+	 * <p>By default this is 0, i.e. rows are only limited by the parameter limit.
+	 * @since 5.2.19
+	 */
+	public void setMultiRowInsertRowLimit(int multiRowInsertRowLimit) {
+		checkIfConfigurationModificationIsAllowed();
+		Assert.isTrue(multiRowInsertRowLimit >= 0, "Row limit must not be negative");
+		this.multiRowInsertRowLimit = multiRowInsertRowLimit;
+	}
+
+	/**
+	 * Return the maximum number of rows per multi-row insert statement,
+	 * or 0 if only limited by the parameter limit.
+	 * @since 5.2.19
+	 */
+	public int getMultiRowInsertRowLimit() {
+		return this.multiRowInsertRowLimit;
+	}
+
+	/**
+	 * Set a driver-specific {@link BulkInsertLoader} to use for batch inserts,
+	 * e.g. for a COPY-style bulk load, taking precedence over JDBC batches and
+	 * multi-row inserts.
+	 * @since 5.2.19
+	 */
+	public void setBulkInsertLoader(@Nullable BulkInsertLoader bulkInsertLoader) {
+		checkIfConfigurationModificationIsAllowed();
+		this.bulkInsertLoader = bulkInsertLoader;
+	}
+
+	/**
+	 * Return the configured {@link BulkInsertLoader}, if any.
+	 * @since 5.2.19
+	 */
+	@Nullable
+	public BulkInsertLoader getBulkInsertLoader() {
+		return this.bulkInsertLoader;
+	}
+
 	/**
 	 * Get the insert string to be used.
 	 */
@@ -566,6 +649,21 @@ public abstract class AbstractJdbcInsert {
 	 * Delegate method to execute the batch insert.
 	 */
 	private int[] executeBatchInternal(final List<List<Object>> batchValues) {
+		if (this.bulkInsertLoader != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing bulk load into table " + getTableName() + " with batch of size: " +
+						batchValues.size());
+			}
+			int[] rowsAffected = this.bulkInsertLoader.load(getJdbcTemplate(), this.tableMetaDataContext, batchValues);
+			if (rowsAffected.length != batchValues.size()) {
+				throw new InvalidDataAccessApiUsageException("BulkInsertLoader returned " + rowsAffected.length +
+						" update counts for " + batchValues.size() + " rows");
+			}
+			return rowsAffected;
+		}
+		if (this.multiRowInsertParameterLimit > 0 && batchValues.size() > 1) {
+			return executeMultiRowInsertInternal(batchValues);
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing statement " + getInsertString() + " with batch of size: " + batchValues.size());
 		}
@@ -582,6 +680,46 @@ public abstract class AbstractJdbcInsert {
 				});
 	}
 
+	/**
+	 * Delegate method to execute the batch insert as multi-row insert statements,
+	 * each covering as many rows as fit into the configured parameter and row limits.
+	 * <p>Since the driver only reports an update count per statement, each row
+	 * of a fully inserted chunk is reported with an update count of 1, and with
+	 * {@link Statement#SUCCESS_NO_INFO} otherwise.
+	 */
+	private int[] executeMultiRowInsertInternal(List<List<Object>> batchValues) {
+		int[] insertTypes = getInsertTypes();
+		int columnCount = Math.max(batchValues.get(0).size(), 1);
+		int rowsPerStatement = Math.max(this.multiRowInsertParameterLimit / columnCount, 1);
+		if (this.multiRowInsertRowLimit > 0) {
+			rowsPerStatement = Math.min(rowsPerStatement, this.multiRowInsertRowLimit);
+		}
+		int[] rowsAffected = new int[batchValues.size()];
+		String chunkSql = null;
+		int chunkSqlRows = 0;
+		for (int start = 0; start < batchValues.size(); start += rowsPerStatement) {
+			List<List<Object>> chunk = batchValues.subList(start, Math.min(start + rowsPerStatement, batchValues.size()));
+			if (chunkSql == null || chunkSqlRows != chunk.size()) {
+				chunkSql = this.tableMetaDataContext.createMultiRowInsertString(chunk.size(), getGeneratedKeyNames());
+				chunkSqlRows = chunk.size();
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing multi-row insert into table " + getTableName() + " for " +
+						chunk.size() + " rows");
+			}
+			int updateCount = getJdbcTemplate().update(chunkSql, ps -> {
+				int offset = 0;
+				for (List<Object> values : chunk) {
+					setParameterValues(ps, offset, values, insertTypes);
+					offset += values.size();
+				}
+			});
+			Arrays.fill(rowsAffected, start, start + chunk.size(),
+					(updateCount == chunk.size() ? 1 : Statement.SUCCESS_NO_INFO));
+		}
+		return rowsAffected;
+	}
+
 	/**
 	 * Internal implementation for setting parameter values.
 	 * @param preparedStatement the PreparedStatement
@@ -590,14 +728,26 @@ public abstract class AbstractJdbcInsert {
 	private void setParameterValues(PreparedStatement preparedStatement, List<?> values, @Nullable int... columnTypes)
 			throws SQLException {
 
+		setParameterValues(preparedStatement, 0, values, columnTypes);
+	}
+
+	/**
+	 * Internal implementation for setting parameter values, starting after the given offset.
+	 * @param preparedStatement the PreparedStatement
+	 * @param offset the number of parameters already set for preceding rows
+	 * @param values the values to be set
+	 */
+	private void setParameterValues(PreparedStatement preparedStatement, int offset, List<?> values,
+			@Nullable int... columnTypes) throws SQLException {
+
 		int colIndex = 0;
 		for (Object value : values) {
 			colIndex++;
 			if (columnTypes == null || colIndex > columnTypes.length) {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
+				StatementCreatorUtils.setParameterValue(preparedStatement, offset + colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
 			}
 			else {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, columnTypes[colIndex - 1], value);
+				StatementCreatorUtils.setParameterValue(preparedStatement, offset + colIndex, columnTypes[colIndex - 1], value);
 			}
 		}
 	}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.metadata.TableMetaDataContext;
+
+/**
+ * Strategy interface for loading a batch of rows through a driver-specific
+ * bulk path, e.g. PostgreSQL's {@code CopyManager} or a vendor bulk copy API,
+ * instead of a JDBC batch of {@code INSERT} statements.
+ *
+ * <p>Used by {@link AbstractJdbcInsert} for batch executions once
+ * {@link AbstractJdbcInsert#setBulkInsertLoader registered}. Implementations
+ * will typically obtain the native connection through
+ * {@link JdbcTemplate#execute(org.springframework.jdbc.core.ConnectionCallback)},
+ * so that the bulk load participates in the current transaction.
+ *
+ * @since 5.2.19
+ * @see SimpleJdbcInsert#usingBulkInsertLoader(BulkInsertLoader)
+ */
+@FunctionalInterface
+public interface BulkInsertLoader {
+
+	/**
+	 * Load the given rows into the table described by the given meta-data context.
+	 * @param jdbcTemplate the JdbcTemplate used by the insert object
+	 * @param tableMetaDataContext the processed table meta-data, providing the
+	 * table name, schema name and the insert columns (in the order of the values
+	 * within each row) as well as their SQL types
+	 * @param batchValues the rows to load, each containing one value per insert column
+	 * @return an array with the number of rows affected per row to load, with
+	 * exactly one entry per row (may contain
+	 * {@link java.sql.Statement#SUCCESS_NO_INFO} if unknown)
+	 * @throws DataAccessException in case of failure
+	 */
+	int[] load(JdbcTemplate jdbcTemplate, TableMetaDataContext tableMetaDataContext,
+			List<List<Object>> batchValues) throws DataAccessException;
+
+}
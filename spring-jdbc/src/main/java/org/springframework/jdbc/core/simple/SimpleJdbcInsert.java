@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -112,6 +112,25 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return this;
 	}
 
+	@Override
+	public SimpleJdbcInsertOperations usingMultiRowInserts(int parameterLimit) {
+		setMultiRowInsertParameterLimit(parameterLimit);
+		return this;
+	}
+
+	@Override
+	public SimpleJdbcInsertOperations usingMultiRowInserts(int parameterLimit, int rowLimit) {
+		setMultiRowInsertParameterLimit(parameterLimit);
+		setMultiRowInsertRowLimit(rowLimit);
+		return this;
+	}
+
+	@Override
+	public SimpleJdbcInsertOperations usingBulkInsertLoader(BulkInsertLoader bulkInsertLoader) {
+		setBulkInsertLoader(bulkInsertLoader);
+		return this;
+	}
+
 	@Override
 	public int execute(Map<String, ?> args) {
 		return doExecute(args);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -80,6 +80,53 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	SimpleJdbcInsertOperations includeSynonymsForTableColumnMetaData();
 
+	/**
+	 * Use multi-row {@code INSERT ... VALUES (...), (...)} statements for batch
+	 * executions, with at most the given number of bind parameters per statement.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param parameterLimit the maximum number of parameters per statement
+	 * supported by the driver or database
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.2.19
+	 * @see AbstractJdbcInsert#setMultiRowInsertParameterLimit
+	 */
+	default SimpleJdbcInsertOperations usingMultiRowInserts(int parameterLimit) {
+		throw new UnsupportedOperationException(
+				"usingMultiRowInserts not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Use multi-row {@code INSERT ... VALUES (...), (...)} statements for batch
+	 * executions, with at most the given number of bind parameters and rows
+	 * per statement, e.g. 2100 parameters and 1000 rows for SQL Server.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param parameterLimit the maximum number of parameters per statement
+	 * supported by the driver or database
+	 * @param rowLimit the maximum number of rows per statement supported by
+	 * the database
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.2.19
+	 * @see AbstractJdbcInsert#setMultiRowInsertParameterLimit
+	 * @see AbstractJdbcInsert#setMultiRowInsertRowLimit
+	 */
+	default SimpleJdbcInsertOperations usingMultiRowInserts(int parameterLimit, int rowLimit) {
+		throw new UnsupportedOperationException(
+				"usingMultiRowInserts not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Use the given driver-specific {@link BulkInsertLoader} for batch executions.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param bulkInsertLoader the bulk loader to use
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.2.19
+	 * @see AbstractJdbcInsert#setBulkInsertLoader
+	 */
+	default SimpleJdbcInsertOperations usingBulkInsertLoader(BulkInsertLoader bulkInsertLoader) {
+		throw new UnsupportedOperationException(
+				"usingBulkInsertLoader not supported by " + getClass().getName());
+	}
+
 
 	/**
 	 * Execute the insert using the values passed in.
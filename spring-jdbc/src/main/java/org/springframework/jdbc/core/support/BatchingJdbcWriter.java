@@ -0,0 +1,434 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
+
+/**
+ * Thread-safe writer that accumulates parameter sets for a single SQL
+ * statement from any number of producer threads and executes them as JDBC
+ * batches through {@link JdbcOperations#batchUpdate(String, List)} or
+ * {@link NamedParameterJdbcOperations#batchUpdate(String, SqlParameterSource[])}.
+ *
+ * <p>Queued statements are flushed on a scheduler thread as soon as the
+ * configured {@link #setBatchSize batch size} is reached, or once the oldest
+ * queued statement has been waiting for the configured
+ * {@link #setMaxBatchDelay maximum delay}. Producers never execute batches
+ * themselves, so {@code update} calls neither block on the database nor
+ * fail because of statements queued by others: each call returns a
+ * {@link CompletableFuture} that is completed with the update count of its
+ * statement once the containing batch has been executed, or completed
+ * exceptionally if the batch failed. Producers that need to bound the number
+ * of outstanding statements can do so based on these futures.
+ *
+ * <p>Since a batch combines statements from different threads, it is not
+ * executed within the transaction of any particular producer. By default,
+ * each batch runs in the auto-commit mode of the underlying connection;
+ * specify {@link #setTransactionOperations TransactionOperations} (e.g. a
+ * {@link org.springframework.transaction.support.TransactionTemplate}) to
+ * execute each batch in a transaction of its own. Batches are executed one
+ * at a time, in the order in which their statements were queued. Only an
+ * explicit {@link #flush()} executes batches on the calling thread, where
+ * they participate in a transaction bound to that thread, if any.
+ *
+ * <p>In contrast to {@link org.springframework.jdbc.object.BatchSqlUpdate},
+ * an instance of this class may be shared between threads. Call
+ * {@link #destroy()} (or let the container call it) to flush remaining
+ * statements and to release an internally created scheduler.
+ *
+ * @since 5.2.19
+ * @see JdbcOperations#batchUpdate(String, List)
+ * @see NamedParameterJdbcOperations#batchUpdate(String, SqlParameterSource[])
+ * @see org.springframework.jdbc.object.BatchSqlUpdate
+ */
+public class BatchingJdbcWriter implements DisposableBean {
+
+	/**
+	 * Default number of statements to accumulate before executing a batch (1000).
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Default maximum time in milliseconds that a queued statement waits
+	 * before its batch gets executed (100).
+	 */
+	public static final long DEFAULT_MAX_BATCH_DELAY = 100;
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	@Nullable
+	private final JdbcOperations jdbcOperations;
+
+	@Nullable
+	private final NamedParameterJdbcOperations namedParameterJdbcOperations;
+
+	private final String sql;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private long maxBatchDelay = DEFAULT_MAX_BATCH_DELAY;
+
+	private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+	@Nullable
+	private ScheduledExecutorService scheduledExecutor;
+
+	private boolean internalScheduledExecutor;
+
+	private final Object queueMonitor = new Object();
+
+	private final Object flushMonitor = new Object();
+
+	private List<QueuedStatement> queue = new ArrayList<>();
+
+	@Nullable
+	private ScheduledFuture<?> scheduledFlush;
+
+	private boolean destroyed;
+
+
+	/**
+	 * Create a new writer for the given SQL statement with positional
+	 * ({@code ?}) parameters.
+	 * @param jdbcOperations the JdbcOperations (typically a JdbcTemplate) to use
+	 * @param sql the SQL statement to execute
+	 * @see #update(Object...)
+	 */
+	public BatchingJdbcWriter(JdbcOperations jdbcOperations, String sql) {
+		Assert.notNull(jdbcOperations, "JdbcOperations must not be null");
+		Assert.hasText(sql, "SQL must not be empty");
+		this.jdbcOperations = jdbcOperations;
+		this.namedParameterJdbcOperations = null;
+		this.sql = sql;
+	}
+
+	/**
+	 * Create a new writer for the given SQL statement with named
+	 * ({@code :name}) parameters.
+	 * @param namedParameterJdbcOperations the NamedParameterJdbcOperations
+	 * (typically a NamedParameterJdbcTemplate) to use
+	 * @param sql the SQL statement to execute
+	 * @see #update(SqlParameterSource)
+	 * @see #update(Map)
+	 */
+	public BatchingJdbcWriter(NamedParameterJdbcOperations namedParameterJdbcOperations, String sql) {
+		Assert.notNull(namedParameterJdbcOperations, "NamedParameterJdbcOperations must not be null");
+		Assert.hasText(sql, "SQL must not be empty");
+		this.jdbcOperations = null;
+		this.namedParameterJdbcOperations = namedParameterJdbcOperations;
+		this.sql = sql;
+	}
+
+
+	/**
+	 * Set the number of queued statements that triggers the execution of a batch.
+	 * <p>By default this is {@value #DEFAULT_BATCH_SIZE}.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the configured batch size.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds that a queued statement may wait
+	 * before its batch gets executed, even if the batch size has not been
+	 * reached yet.
+	 * <p>By default this is {@value #DEFAULT_MAX_BATCH_DELAY} milliseconds.
+	 * A value of 0 disables time-based flushing, leaving statements queued
+	 * until the batch size is reached or {@link #flush()} is called.
+	 */
+	public void setMaxBatchDelay(long maxBatchDelay) {
+		Assert.isTrue(maxBatchDelay >= 0, "Max batch delay must not be negative");
+		this.maxBatchDelay = maxBatchDelay;
+	}
+
+	/**
+	 * Return the configured maximum batch delay in milliseconds.
+	 */
+	public long getMaxBatchDelay() {
+		return this.maxBatchDelay;
+	}
+
+	/**
+	 * Set the TransactionOperations to execute each batch with, e.g. a
+	 * {@link org.springframework.transaction.support.TransactionTemplate}.
+	 * <p>By default, batches are executed without transaction demarcation,
+	 * i.e. in auto-commit mode, unless a transaction is active on a thread
+	 * that calls {@link #flush()} explicitly.
+	 */
+	public void setTransactionOperations(TransactionOperations transactionOperations) {
+		Assert.notNull(transactionOperations, "TransactionOperations must not be null");
+		this.transactionOperations = transactionOperations;
+	}
+
+	/**
+	 * Return the configured TransactionOperations.
+	 */
+	public TransactionOperations getTransactionOperations() {
+		return this.transactionOperations;
+	}
+
+	/**
+	 * Set the scheduler to execute batches with.
+	 * <p>By default, a single daemon thread is created on first use and
+	 * shut down on {@link #destroy()}. An externally provided scheduler
+	 * is not shut down by this writer.
+	 */
+	public void setScheduledExecutor(ScheduledExecutorService scheduledExecutor) {
+		Assert.notNull(scheduledExecutor, "ScheduledExecutorService must not be null");
+		synchronized (this.queueMonitor) {
+			Assert.state(this.scheduledExecutor == null, "ScheduledExecutorService already initialized");
+			this.scheduledExecutor = scheduledExecutor;
+		}
+	}
+
+
+	/**
+	 * Queue a statement with the given positional parameters.
+	 * @param args the arguments to bind to the statement
+	 * @return a future for the number of rows affected by the statement
+	 * (may also be {@link java.sql.Statement#SUCCESS_NO_INFO}, depending
+	 * on the JDBC driver)
+	 * @throws IllegalStateException if this writer was created for named parameters
+	 */
+	public CompletableFuture<Integer> update(Object... args) {
+		Assert.state(this.jdbcOperations != null,
+				"Positional parameters not supported: writer was created with NamedParameterJdbcOperations");
+		return enqueue(args.clone());
+	}
+
+	/**
+	 * Queue a statement with the given named parameters.
+	 * @param paramSource container of arguments to bind to the statement
+	 * @return a future for the number of rows affected by the statement
+	 * (may also be {@link java.sql.Statement#SUCCESS_NO_INFO}, depending
+	 * on the JDBC driver)
+	 * @throws IllegalStateException if this writer was created for positional parameters
+	 */
+	public CompletableFuture<Integer> update(SqlParameterSource paramSource) {
+		Assert.notNull(paramSource, "SqlParameterSource must not be null");
+		Assert.state(this.namedParameterJdbcOperations != null,
+				"Named parameters not supported: writer was created with JdbcOperations");
+		return enqueue(paramSource);
+	}
+
+	/**
+	 * Queue a statement with the given named parameters.
+	 * @param paramMap map of parameters to bind to the statement
+	 * @return a future for the number of rows affected by the statement
+	 * @throws IllegalStateException if this writer was created for positional parameters
+	 * @see #update(SqlParameterSource)
+	 */
+	public CompletableFuture<Integer> update(Map<String, ?> paramMap) {
+		return update(new MapSqlParameterSource(paramMap));
+	}
+
+	private CompletableFuture<Integer> enqueue(Object params) {
+		QueuedStatement statement = new QueuedStatement(params);
+		synchronized (this.queueMonitor) {
+			Assert.state(!this.destroyed, "BatchingJdbcWriter has been destroyed");
+			this.queue.add(statement);
+			if (this.queue.size() == this.batchSize) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Triggering flush because queue reached batch size of " + this.batchSize);
+				}
+				if (this.scheduledFlush != null) {
+					this.scheduledFlush.cancel(false);
+				}
+				// Statements queued until the flush runs are included in it
+				this.scheduledFlush = obtainScheduledExecutor().schedule(
+						this::flushScheduled, 0, TimeUnit.MILLISECONDS);
+			}
+			else if (this.queue.size() == 1 && this.maxBatchDelay > 0) {
+				this.scheduledFlush = obtainScheduledExecutor().schedule(
+						this::flushScheduled, this.maxBatchDelay, TimeUnit.MILLISECONDS);
+			}
+		}
+		return statement.future;
+	}
+
+	/**
+	 * Execute all currently queued statements on the calling thread,
+	 * waiting for a batch in progress on another thread to complete first.
+	 * @return the number of statements executed
+	 * @throws org.springframework.dao.DataAccessException if a batch failed
+	 * (the futures of the affected statements are completed exceptionally as well)
+	 */
+	public int flush() {
+		synchronized (this.flushMonitor) {
+			List<QueuedStatement> batch;
+			synchronized (this.queueMonitor) {
+				if (this.queue.isEmpty()) {
+					return 0;
+				}
+				batch = this.queue;
+				this.queue = new ArrayList<>(Math.min(this.batchSize, 1024));
+				if (this.scheduledFlush != null) {
+					this.scheduledFlush.cancel(false);
+					this.scheduledFlush = null;
+				}
+			}
+			RuntimeException failure = null;
+			for (int i = 0; i < batch.size(); i += this.batchSize) {
+				try {
+					executeBatch(batch.subList(i, Math.min(i + this.batchSize, batch.size())));
+				}
+				catch (RuntimeException ex) {
+					if (failure == null) {
+						failure = ex;
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			return batch.size();
+		}
+	}
+
+	private void flushScheduled() {
+		try {
+			flush();
+		}
+		catch (Throwable ex) {
+			// Already propagated to the futures of the failed statements
+			logger.debug("Batch execution on scheduler thread failed", ex);
+		}
+	}
+
+	private void executeBatch(List<QueuedStatement> batch) {
+		int[] rowsAffected;
+		try {
+			rowsAffected = this.transactionOperations.execute(status -> doBatchUpdate(batch));
+			Assert.state(rowsAffected != null && rowsAffected.length == batch.size(),
+					"Unexpected number of update counts returned from batch update");
+		}
+		catch (RuntimeException ex) {
+			for (QueuedStatement statement : batch) {
+				statement.future.completeExceptionally(ex);
+			}
+			throw ex;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).future.complete(rowsAffected[i]);
+		}
+	}
+
+	private int[] doBatchUpdate(List<QueuedStatement> batch) {
+		if (this.namedParameterJdbcOperations != null) {
+			SqlParameterSource[] batchArgs = new SqlParameterSource[batch.size()];
+			for (int i = 0; i < batchArgs.length; i++) {
+				batchArgs[i] = (SqlParameterSource) batch.get(i).params;
+			}
+			return this.namedParameterJdbcOperations.batchUpdate(this.sql, batchArgs);
+		}
+		else {
+			Assert.state(this.jdbcOperations != null, "No JdbcOperations set");
+			List<Object[]> batchArgs = new ArrayList<>(batch.size());
+			for (QueuedStatement statement : batch) {
+				batchArgs.add((Object[]) statement.params);
+			}
+			return this.jdbcOperations.batchUpdate(this.sql, batchArgs);
+		}
+	}
+
+	private ScheduledExecutorService obtainScheduledExecutor() {
+		if (this.scheduledExecutor == null) {
+			CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("batching-jdbc-writer-");
+			threadCreator.setDaemon(true);
+			this.scheduledExecutor = Executors.newSingleThreadScheduledExecutor(threadCreator::createThread);
+			this.internalScheduledExecutor = true;
+		}
+		return this.scheduledExecutor;
+	}
+
+	/**
+	 * Return the current number of queued statements.
+	 */
+	public int getQueueCount() {
+		synchronized (this.queueMonitor) {
+			return this.queue.size();
+		}
+	}
+
+	/**
+	 * Flush all remaining statements and shut down an internally created
+	 * scheduler. Subsequent {@code update} calls will be rejected.
+	 */
+	@Override
+	public void destroy() {
+		ScheduledExecutorService executorToShutdown = null;
+		synchronized (this.queueMonitor) {
+			this.destroyed = true;
+			if (this.internalScheduledExecutor) {
+				executorToShutdown = this.scheduledExecutor;
+			}
+		}
+		try {
+			flush();
+		}
+		finally {
+			if (executorToShutdown != null) {
+				executorToShutdown.shutdown();
+			}
+		}
+	}
+
+
+	/**
+	 * Holder for the parameters of a queued statement and its result future.
+	 */
+	private static class QueuedStatement {
+
+		final Object params;
+
+		final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+		QueuedStatement(Object params) {
+			this.params = params;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.jdbc.core;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -30,6 +32,10 @@ import org.springframework.jdbc.core.test.SpacePerson;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Thomas Risberg
@@ -104,6 +110,45 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 						new BeanPropertyRowMapper<>(ExtendedPerson.class, true)));
 	}
 
+	@Test
+	public void testColumnMappingDeterminedOncePerResultSet() throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(2);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("name");
+		given(resultSetMetaData.getColumnLabel(2)).willReturn("unknown");
+		given(resultSet.getString(1)).willReturn("Bubba", "Bobby");
+
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		assertThat(mapper.mapRow(resultSet, 0).getName()).isEqualTo("Bubba");
+		assertThat(mapper.mapRow(resultSet, 1).getName()).isEqualTo("Bobby");
+		verify(resultSet, times(1)).getMetaData();
+	}
+
+	@Test
+	public void testColumnMappingWithInterleavedResultSets() throws Exception {
+		ResultSet resultSet1 = mockResultSet("name");
+		given(resultSet1.getString(1)).willReturn("Bubba");
+		ResultSet resultSet2 = mockResultSet("age");
+		given(resultSet2.getLong(1)).willReturn(22L);
+
+		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
+		assertThat(mapper.mapRow(resultSet1, 0).getName()).isEqualTo("Bubba");
+		assertThat(mapper.mapRow(resultSet2, 0).getAge()).isEqualTo(22);
+		assertThat(mapper.mapRow(resultSet1, 1).getName()).isEqualTo("Bubba");
+		verify(resultSet1, times(2)).getMetaData();
+	}
+
+	private static ResultSet mockResultSet(String column) throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(1);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn(column);
+		return resultSet;
+	}
+
 	@Test
 	public void testMappingNullValue() throws Exception {
 		BeanPropertyRowMapper<Person> mapper = new BeanPropertyRowMapper<>(Person.class);
@@ -18,10 +18,13 @@ package org.springframework.jdbc.core.simple;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import javax.sql.DataSource;
 
@@ -30,11 +33,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -138,4 +146,107 @@ class SimpleJdbcInsertTests {
 		verify(tableResultSet).close();
 	}
 
+	@Test
+	void multiRowInsertsForBatch() throws Exception {
+		givenTableWithTwoColumns();
+		PreparedStatement twoRowStatement = mock(PreparedStatement.class);
+		PreparedStatement oneRowStatement = mock(PreparedStatement.class);
+		given(connection.prepareStatement("INSERT INTO me (col1, col2) VALUES(?, ?), (?, ?)")).willReturn(twoRowStatement);
+		given(connection.prepareStatement("INSERT INTO me (col1, col2) VALUES(?, ?)")).willReturn(oneRowStatement);
+		given(twoRowStatement.executeUpdate()).willReturn(2);
+		given(oneRowStatement.executeUpdate()).willReturn(1);
+
+		// Single connection for meta-data access and all insert statements
+		SingleConnectionDataSource singleConnectionDataSource = new SingleConnectionDataSource(connection, true);
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(singleConnectionDataSource)
+				.withTableName("me")
+				.usingMultiRowInserts(4);
+		int[] rowsAffected = insert.executeBatch(row("a", "b"), row("c", "d"), row("e", "f"));
+		singleConnectionDataSource.destroy();
+
+		assertThat(rowsAffected).containsExactly(1, 1, 1);
+		verify(twoRowStatement).setString(1, "a");
+		verify(twoRowStatement).setString(2, "b");
+		verify(twoRowStatement).setString(3, "c");
+		verify(twoRowStatement).setString(4, "d");
+		verify(oneRowStatement).setString(1, "e");
+		verify(oneRowStatement).setString(2, "f");
+		verify(twoRowStatement, never()).addBatch();
+		verify(twoRowStatement).close();
+		verify(oneRowStatement).close();
+	}
+
+	@Test
+	void multiRowInsertsForBatchWithRowLimit() throws Exception {
+		givenTableWithTwoColumns();
+		PreparedStatement oneRowStatement = mock(PreparedStatement.class);
+		given(connection.prepareStatement("INSERT INTO me (col1, col2) VALUES(?, ?)")).willReturn(oneRowStatement);
+		given(oneRowStatement.executeUpdate()).willReturn(1);
+
+		SingleConnectionDataSource singleConnectionDataSource = new SingleConnectionDataSource(connection, true);
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(singleConnectionDataSource)
+				.withTableName("me")
+				.usingMultiRowInserts(100, 1);
+		int[] rowsAffected = insert.executeBatch(row("a", "b"), row("c", "d"));
+		singleConnectionDataSource.destroy();
+
+		assertThat(rowsAffected).containsExactly(1, 1);
+		verify(oneRowStatement).setString(1, "a");
+		verify(oneRowStatement).setString(1, "c");
+		verify(oneRowStatement, times(2)).close();
+	}
+
+	@Test
+	void bulkInsertLoaderWithWrongNumberOfUpdateCounts() throws Exception {
+		givenTableWithTwoColumns();
+
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(dataSource)
+				.withTableName("me")
+				.usingBulkInsertLoader((jdbcTemplate, tableMetaDataContext, batchValues) -> new int[] {2});
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				insert.executeBatch(row("a", "b"), row("c", "d")));
+	}
+
+	@Test
+	void bulkInsertLoaderForBatch() throws Exception {
+		givenTableWithTwoColumns();
+		List<String> loadedColumns = new ArrayList<>();
+		List<List<Object>> loadedRows = new ArrayList<>();
+
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(dataSource)
+				.withTableName("me")
+				.usingBulkInsertLoader((jdbcTemplate, tableMetaDataContext, batchValues) -> {
+					loadedColumns.addAll(tableMetaDataContext.getTableColumns());
+					loadedRows.addAll(batchValues);
+					return new int[] {1, 1};
+				});
+		int[] rowsAffected = insert.executeBatch(row("a", "b"), row("c", "d"));
+
+		assertThat(rowsAffected).containsExactly(1, 1);
+		assertThat(loadedColumns).containsExactly("col1", "col2");
+		assertThat(loadedRows).hasSize(2);
+		assertThat(loadedRows.get(1)).containsExactly("c", "d");
+		verify(connection, never()).prepareStatement("INSERT INTO me (col1, col2) VALUES(?, ?)");
+	}
+
+
+	private void givenTableWithTwoColumns() throws Exception {
+		ResultSet tableResultSet = mock(ResultSet.class);
+		given(tableResultSet.next()).willReturn(true, false);
+
+		given(databaseMetaData.getUserName()).willReturn("me");
+		given(databaseMetaData.getTables(null, null, "me", null)).willReturn(tableResultSet);
+
+		ResultSet columnResultSet = mock(ResultSet.class);
+		given(databaseMetaData.getColumns(null, "me", null, null)).willReturn(columnResultSet);
+		given(columnResultSet.next()).willReturn(true, true, false);
+		given(columnResultSet.getString("COLUMN_NAME")).willReturn("col1", "col2");
+		given(columnResultSet.getInt("DATA_TYPE")).willReturn(Types.VARCHAR);
+		given(columnResultSet.getBoolean("NULLABLE")).willReturn(false);
+	}
+
+	private static SqlParameterSource row(String col1, String col2) {
+		return new MapSqlParameterSource("col1", col1).addValue("col2", col2);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -160,4 +160,36 @@ public class TableMetaDataContextTests  {
 		verify(columnsResultSet).close();
 	}
 
+	@Test
+	public void testMultiRowInsertString() throws Exception {
+		final String TABLE = "customers";
+		final String USER = "me";
+
+		ResultSet metaDataResultSet = mock(ResultSet.class);
+		given(metaDataResultSet.next()).willReturn(true, false);
+		given(metaDataResultSet.getString("TABLE_SCHEM")).willReturn(USER);
+		given(metaDataResultSet.getString("TABLE_NAME")).willReturn(TABLE);
+		given(metaDataResultSet.getString("TABLE_TYPE")).willReturn("TABLE");
+
+		ResultSet columnsResultSet = mock(ResultSet.class);
+		given(columnsResultSet.next()).willReturn(true, true, true, false);
+		given(columnsResultSet.getString("COLUMN_NAME")).willReturn("id", "name", "version");
+		given(columnsResultSet.getInt("DATA_TYPE")).willReturn(Types.INTEGER, Types.VARCHAR, Types.NUMERIC);
+		given(columnsResultSet.getBoolean("NULLABLE")).willReturn(false, true, false);
+
+		given(databaseMetaData.getDatabaseProductName()).willReturn("MyDB");
+		given(databaseMetaData.getUserName()).willReturn(USER);
+		given(databaseMetaData.storesLowerCaseIdentifiers()).willReturn(true);
+		given(databaseMetaData.getTables(null, null, TABLE, null)).willReturn(metaDataResultSet);
+		given(databaseMetaData.getColumns(null, USER, TABLE, null)).willReturn(columnsResultSet);
+
+		String[] keyCols = new String[] { "id" };
+		context.setTableName(TABLE);
+		context.processMetaData(dataSource, new ArrayList<>(), keyCols);
+
+		assertThat(context.createMultiRowInsertString(1, keyCols)).isEqualTo(context.createInsertString(keyCols));
+		assertThat(context.createMultiRowInsertString(3, keyCols)).isEqualTo(
+				"INSERT INTO customers (name, version) VALUES(?, ?), (?, ?), (?, ?)");
+	}
+
 }
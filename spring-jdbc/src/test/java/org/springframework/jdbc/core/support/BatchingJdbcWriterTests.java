@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link BatchingJdbcWriter}.
+ */
+class BatchingJdbcWriterTests {
+
+	private static final String SQL = "INSERT INTO T (A, B) VALUES (?, ?)";
+
+	private final JdbcOperations jdbcOperations = mock(JdbcOperations.class);
+
+
+	@Test
+	void flushWhenBatchSizeReached() throws Exception {
+		AtomicReference<Thread> executingThread = new AtomicReference<>();
+		given(this.jdbcOperations.batchUpdate(eq(SQL), anyList())).willAnswer(invocation -> {
+			executingThread.set(Thread.currentThread());
+			return new int[] {1, 2};
+		});
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(this.jdbcOperations, SQL);
+		writer.setBatchSize(2);
+		writer.setMaxBatchDelay(0);
+
+		CompletableFuture<Integer> first = writer.update(1, "a");
+		assertThat(first).isNotDone();
+		assertThat(writer.getQueueCount()).isEqualTo(1);
+		verify(this.jdbcOperations, never()).batchUpdate(eq(SQL), anyList());
+
+		CompletableFuture<Integer> second = writer.update(2, "b");
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+		assertThat(writer.getQueueCount()).isEqualTo(0);
+		assertThat(executingThread.get()).isNotSameAs(Thread.currentThread());
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+		verify(this.jdbcOperations).batchUpdate(eq(SQL), captor.capture());
+		assertThat(captor.getValue()).containsExactly(new Object[] {1, "a"}, new Object[] {2, "b"});
+		writer.destroy();
+	}
+
+	@Test
+	void failedBatchWhenBatchSizeReachedOnlyReportedThroughFutures() {
+		DataIntegrityViolationException failure = new DataIntegrityViolationException("duplicate key");
+		given(this.jdbcOperations.batchUpdate(eq(SQL), anyList())).willThrow(failure);
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(this.jdbcOperations, SQL);
+		writer.setBatchSize(1);
+
+		CompletableFuture<Integer> future = writer.update(1, "a");
+		assertThatExceptionOfType(ExecutionException.class)
+				.isThrownBy(() -> future.get(5, TimeUnit.SECONDS)).withCause(failure);
+		writer.destroy();
+	}
+
+	@Test
+	void flushAfterMaxBatchDelay() throws Exception {
+		given(this.jdbcOperations.batchUpdate(eq(SQL), anyList())).willReturn(new int[] {1});
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(this.jdbcOperations, SQL);
+		writer.setMaxBatchDelay(10);
+
+		CompletableFuture<Integer> future = writer.update(1, "a");
+		assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+		verify(this.jdbcOperations, timeout(5000)).batchUpdate(eq(SQL), anyList());
+		writer.destroy();
+	}
+
+	@Test
+	void explicitFlush() throws Exception {
+		given(this.jdbcOperations.batchUpdate(eq(SQL), anyList())).willReturn(new int[] {1, 1, 1});
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(this.jdbcOperations, SQL);
+		writer.setMaxBatchDelay(0);
+
+		writer.update(1, "a");
+		writer.update(2, "b");
+		CompletableFuture<Integer> last = writer.update(3, "c");
+
+		assertThat(writer.flush()).isEqualTo(3);
+		assertThat(last.get()).isEqualTo(1);
+		assertThat(writer.flush()).isEqualTo(0);
+	}
+
+	@Test
+	void failedBatchCompletesFuturesExceptionally() {
+		DataIntegrityViolationException failure = new DataIntegrityViolationException("duplicate key");
+		given(this.jdbcOperations.batchUpdate(eq(SQL), anyList())).willThrow(failure);
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(this.jdbcOperations, SQL);
+		writer.setMaxBatchDelay(0);
+
+		CompletableFuture<Integer> future = writer.update(1, "a");
+		assertThatExceptionOfType(DataIntegrityViolationException.class).isThrownBy(writer::flush);
+		assertThat(future).isCompletedExceptionally();
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(future::get).withCause(failure);
+	}
+
+	@Test
+	void namedParameters() throws Exception {
+		String sql = "INSERT INTO T (A) VALUES (:a)";
+		NamedParameterJdbcOperations namedOperations = mock(NamedParameterJdbcOperations.class);
+		given(namedOperations.batchUpdate(eq(sql), any(SqlParameterSource[].class))).willReturn(new int[] {1});
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(namedOperations, sql);
+		writer.setMaxBatchDelay(0);
+
+		CompletableFuture<Integer> future = writer.update(Collections.singletonMap("a", 1));
+		writer.flush();
+		assertThat(future.get()).isEqualTo(1);
+		assertThatIllegalStateException().isThrownBy(() -> writer.update(1));
+	}
+
+	@Test
+	void destroyFlushesAndRejectsFurtherUpdates() throws Exception {
+		given(this.jdbcOperations.batchUpdate(eq(SQL), anyList())).willReturn(new int[] {1});
+		BatchingJdbcWriter writer = new BatchingJdbcWriter(this.jdbcOperations, SQL);
+
+		CompletableFuture<Integer> future = writer.update(1, "a");
+		writer.destroy();
+		assertThat(future.get()).isEqualTo(1);
+		assertThatIllegalStateException().isThrownBy(() -> writer.update(2, "b"));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -131,4 +131,15 @@ public @interface JmsListener {
 	 */
 	String concurrency() default "";
 
+	/**
+	 * Whether the annotated method processes a batch of messages at once,
+	 * declaring a {@link java.util.List} parameter of {@link javax.jms.Message},
+	 * of {@link org.springframework.messaging.Message} or of payload objects.
+	 * <p>Requires a container factory configured with a
+	 * {@link org.springframework.jms.config.DefaultJmsListenerContainerFactory#setBatchSize
+	 * batch size}; other containers hand over single-element batches.
+	 * @since 5.2.19
+	 */
+	boolean batch() default false;
+
 }
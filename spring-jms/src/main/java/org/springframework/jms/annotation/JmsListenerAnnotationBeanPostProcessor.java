@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -286,6 +286,7 @@ public class JmsListenerAnnotationBeanPostProcessor
 		if (StringUtils.hasText(jmsListener.concurrency())) {
 			endpoint.setConcurrency(resolve(jmsListener.concurrency()));
 		}
+		endpoint.setBatchListener(jmsListener.batch());
 
 		JmsListenerContainerFactory<?> factory = null;
 		String containerFactoryBeanName = resolve(jmsListener.containerFactory());
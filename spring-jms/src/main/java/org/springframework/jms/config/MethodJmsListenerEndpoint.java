@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.EmbeddedValueResolver;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.jms.listener.MessageListenerContainer;
+import org.springframework.jms.listener.adapter.BatchMessagingMessageListenerAdapter;
 import org.springframework.jms.listener.adapter.MessagingMessageListenerAdapter;
 import org.springframework.jms.support.QosSettings;
 import org.springframework.jms.support.converter.MessageConverter;
@@ -58,6 +59,8 @@ public class MethodJmsListenerEndpoint extends AbstractJmsListenerEndpoint imple
 	@Nullable
 	private Method mostSpecificMethod;
 
+	private boolean batchListener;
+
 	@Nullable
 	private MessageHandlerMethodFactory messageHandlerMethodFactory;
 
@@ -115,6 +118,26 @@ public class MethodJmsListenerEndpoint extends AbstractJmsListenerEndpoint imple
 		return method;
 	}
 
+	/**
+	 * Set whether the method processes a batch of messages at once, receiving
+	 * a {@link java.util.List} of messages or payloads.
+	 * <p>By default this is {@code false}. Requires a listener container
+	 * that receives messages in batches in order to be effective.
+	 * @since 5.2.19
+	 * @see org.springframework.jms.listener.AbstractPollingMessageListenerContainer#setBatchSize
+	 */
+	public void setBatchListener(boolean batchListener) {
+		this.batchListener = batchListener;
+	}
+
+	/**
+	 * Return whether the method processes a batch of messages at once.
+	 * @since 5.2.19
+	 */
+	public boolean isBatchListener() {
+		return this.batchListener;
+	}
+
 	/**
 	 * Set the {@link MessageHandlerMethodFactory} to use to build the
 	 * {@link InvocableHandlerMethod} responsible to manage the invocation
@@ -180,9 +203,11 @@ public class MethodJmsListenerEndpoint extends AbstractJmsListenerEndpoint imple
 	/**
 	 * Create an empty {@link MessagingMessageListenerAdapter} instance.
 	 * @return a new {@code MessagingMessageListenerAdapter} or subclass thereof
+	 * @see #setBatchListener
 	 */
 	protected MessagingMessageListenerAdapter createMessageListenerInstance() {
-		return new MessagingMessageListenerAdapter();
+		return (this.batchListener ? new BatchMessagingMessageListenerAdapter() :
+				new MessagingMessageListenerAdapter());
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,13 +21,19 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -36,6 +42,7 @@ import javax.jms.JMSException;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageProducer;
 import javax.jms.QueueSession;
+import javax.jms.ResourceAllocationException;
 import javax.jms.Session;
 import javax.jms.TemporaryQueue;
 import javax.jms.TemporaryTopic;
@@ -46,6 +53,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * {@link SingleConnectionFactory} subclass that adds {@link javax.jms.Session}
@@ -56,7 +64,14 @@ import org.springframework.util.ObjectUtils;
  * <p>By default, only one single Session will be cached, with further requested
  * Sessions being created and disposed on demand. Consider raising the
  * {@link #setSessionCacheSize "sessionCacheSize" value} in case of a
- * high-concurrency environment.
+ * high-concurrency environment. The number of Sessions in use at the same time
+ * may be limited through the {@link #setMaxSessions "maxSessions"} setting,
+ * letting further requests wait for a Session to be returned instead of
+ * creating (and subsequently closing) surplus Sessions. Cached Sessions are
+ * kept in non-blocking pools, without serializing concurrent senders.
+ * Note that there is no minimum pool size: Sessions are only created on
+ * demand, so the cache starts out empty and gets filled by Sessions that
+ * are returned after use, without any pre-warming or idle eviction.
  *
  * <p>When using the JMS 1.0.2 API, this ConnectionFactory will switch
  * into queue/topic mode according to the JMS API methods used at runtime:
@@ -92,9 +107,15 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 
 	private boolean cacheConsumers = true;
 
+	private int maxSessions = 0;
+
+	private long sessionAcquireTimeout = 5000;
+
 	private volatile boolean active = true;
 
-	private final ConcurrentMap<Integer, LinkedList<Session>> cachedSessions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, Deque<Session>> cachedSessions = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Integer, Semaphore> sessionPermits = new ConcurrentHashMap<>();
 
 
 	/**
@@ -104,6 +125,7 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 	public CachingConnectionFactory() {
 		super();
 		setReconnectOnException(true);
+		assertNoLegacySessionProxyOverride();
 	}
 
 	/**
@@ -114,6 +136,21 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 	public CachingConnectionFactory(ConnectionFactory targetConnectionFactory) {
 		super(targetConnectionFactory);
 		setReconnectOnException(true);
+		assertNoLegacySessionProxyOverride();
+	}
+
+	/**
+	 * Reject subclasses which still override the {@code LinkedList} variant of
+	 * {@code getCachedSessionProxy}, since that variant is not called anymore.
+	 */
+	private void assertNoLegacySessionProxyOverride() {
+		Method method = ReflectionUtils.findMethod(
+				getClass(), "getCachedSessionProxy", Session.class, LinkedList.class);
+		if (method != null && method.getDeclaringClass() != CachingConnectionFactory.class) {
+			throw new IllegalStateException("CachingConnectionFactory subclass [" + getClass().getName() +
+					"] overrides getCachedSessionProxy(Session, LinkedList) which is not called anymore " +
+					"as of 5.2.19: override getCachedSessionProxy(Session, Deque) instead");
+		}
 	}
 
 
@@ -127,6 +164,8 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 	 * <p>Default is 1: caching a single Session, (re-)creating further ones on
 	 * demand. Specify a number like 10 if you'd like to raise the number of cached
 	 * Sessions; that said, 1 may be sufficient for low-concurrency scenarios.
+	 * <p>This is an upper bound only: Sessions are not created upfront, and
+	 * cached Sessions are kept until the Connection gets reset.
 	 * @see #setCacheProducers
 	 */
 	public void setSessionCacheSize(int sessionCacheSize) {
@@ -141,6 +180,56 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 		return this.sessionCacheSize;
 	}
 
+	/**
+	 * Specify the maximum number of JMS Sessions in use at the same time
+	 * (per JMS Session type). Once reached, further Session requests wait for
+	 * a Session to be returned, for up to the {@link #setSessionAcquireTimeout
+	 * "sessionAcquireTimeout"}.
+	 * <p>Default is 0, not limiting the number of Sessions in use: Sessions
+	 * beyond the {@link #setSessionCacheSize "sessionCacheSize"} are created
+	 * on demand and physically closed once returned. Set this to the same
+	 * value as the "sessionCacheSize" in order to reuse a fixed set of
+	 * Sessions under high concurrency, avoiding that churn.
+	 * <p>Needs to be set before the first Session is obtained.
+	 * @since 5.2.19
+	 * @see #setSessionAcquireTimeout
+	 */
+	public void setMaxSessions(int maxSessions) {
+		Assert.isTrue(maxSessions >= 0, "Max sessions must not be negative");
+		this.maxSessions = maxSessions;
+	}
+
+	/**
+	 * Return the maximum number of JMS Sessions in use at the same time
+	 * (per JMS Session type), or 0 if not limited.
+	 * @since 5.2.19
+	 */
+	public int getMaxSessions() {
+		return this.maxSessions;
+	}
+
+	/**
+	 * Specify the time to wait for a JMS Session to be returned, in
+	 * <b>milliseconds</b>, once the {@link #setMaxSessions "maxSessions"}
+	 * limit has been reached. A {@link ResourceAllocationException} will be
+	 * thrown if no Session has become available within that time.
+	 * <p>Default is 5000 ms. Specify 0 in order to fail immediately, or
+	 * a negative value in order to wait indefinitely.
+	 * @since 5.2.19
+	 * @see #setMaxSessions
+	 */
+	public void setSessionAcquireTimeout(long sessionAcquireTimeout) {
+		this.sessionAcquireTimeout = sessionAcquireTimeout;
+	}
+
+	/**
+	 * Return the time (ms) to wait for a JMS Session to be returned.
+	 * @since 5.2.19
+	 */
+	public long getSessionAcquireTimeout() {
+		return this.sessionAcquireTimeout;
+	}
+
 	/**
 	 * Specify whether to cache JMS MessageProducers per JMS Session instance
 	 * (more specifically: one MessageProducer per Destination and Session).
@@ -186,15 +275,14 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 		this.active = false;
 
 		synchronized (this.cachedSessions) {
-			for (LinkedList<Session> sessionList : this.cachedSessions.values()) {
-				synchronized (sessionList) {
-					for (Session session : sessionList) {
-						try {
-							session.close();
-						}
-						catch (Throwable ex) {
-							logger.trace("Could not close cached JMS Session", ex);
-						}
+			for (Deque<Session> sessionList : this.cachedSessions.values()) {
+				Session session;
+				while ((session = pollCachedSession(sessionList)) != null) {
+					try {
+						session.close();
+					}
+					catch (Throwable ex) {
+						logger.trace("Could not close cached JMS Session", ex);
 					}
 				}
 			}
@@ -216,38 +304,120 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 			return null;
 		}
 
-		LinkedList<Session> sessionList = this.cachedSessions.computeIfAbsent(mode, k -> new LinkedList<>());
-		Session session = null;
-		synchronized (sessionList) {
-			if (!sessionList.isEmpty()) {
-				session = sessionList.removeFirst();
+		Semaphore permits = (this.maxSessions > 0 ?
+				this.sessionPermits.computeIfAbsent(mode, k -> new Semaphore(this.maxSessions)) : null);
+		if (permits != null) {
+			acquireSessionPermit(permits, mode);
+		}
+
+		Deque<Session> sessionList = this.cachedSessions.computeIfAbsent(mode, k -> new SessionPool());
+		Session session;
+		try {
+			session = pollCachedSession(sessionList);
+			if (session != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Found cached JMS Session for mode " + mode + ": " +
+							(session instanceof SessionProxy ? ((SessionProxy) session).getTargetSession() : session));
+				}
+			}
+			else {
+				Session targetSession = createSession(con, mode);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Registering cached JMS Session for mode " + mode + ": " + targetSession);
+				}
+				session = getCachedSessionProxy(targetSession, sessionList);
 			}
 		}
-		if (session != null) {
-			if (logger.isTraceEnabled()) {
-				logger.trace("Found cached JMS Session for mode " + mode + ": " +
-						(session instanceof SessionProxy ? ((SessionProxy) session).getTargetSession() : session));
+		catch (JMSException | RuntimeException ex) {
+			if (permits != null) {
+				permits.release();
 			}
+			throw ex;
 		}
-		else {
-			Session targetSession = createSession(con, mode);
-			if (logger.isDebugEnabled()) {
-				logger.debug("Registering cached JMS Session for mode " + mode + ": " + targetSession);
+
+		if (permits != null) {
+			bindSessionPermit(session, permits);
+		}
+		return session;
+	}
+
+	/**
+	 * Take the most recently returned Session from the given pool, if any.
+	 */
+	@Nullable
+	private Session pollCachedSession(Deque<Session> sessionList) {
+		Session session = sessionList.pollFirst();
+		if (session != null) {
+			CachedSessionInvocationHandler handler = getCachedSessionHandler(session);
+			if (handler != null) {
+				handler.removedFromPool();
 			}
-			session = getCachedSessionProxy(targetSession, sessionList);
 		}
 		return session;
 	}
 
+	@Nullable
+	private CachedSessionInvocationHandler getCachedSessionHandler(Session session) {
+		if (Proxy.isProxyClass(session.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(session);
+			if (handler instanceof CachedSessionInvocationHandler) {
+				return (CachedSessionInvocationHandler) handler;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Wait for a Session permit to become available, according to the
+	 * "sessionAcquireTimeout" setting.
+	 */
+	private void acquireSessionPermit(Semaphore permits, Integer mode) throws JMSException {
+		boolean acquired;
+		try {
+			if (this.sessionAcquireTimeout < 0) {
+				permits.acquire();
+				acquired = true;
+			}
+			else {
+				acquired = permits.tryAcquire(this.sessionAcquireTimeout, TimeUnit.MILLISECONDS);
+			}
+		}
+		catch (InterruptedException ex) {
+			// Re-interrupt current thread, to allow other threads to react.
+			Thread.currentThread().interrupt();
+			throw new ResourceAllocationException(
+					"Interrupted while waiting for a JMS Session to be returned for mode " + mode);
+		}
+		if (!acquired) {
+			throw new ResourceAllocationException("No JMS Session available for mode " + mode + " within " +
+					this.sessionAcquireTimeout + " ms: all of the " + this.maxSessions + " Sessions are in use");
+		}
+	}
+
+	/**
+	 * Associate the given Session permit with the given Session proxy,
+	 * to be released once the Session is closed.
+	 */
+	private void bindSessionPermit(Session session, Semaphore permits) {
+		CachedSessionInvocationHandler handler = getCachedSessionHandler(session);
+		if (handler != null) {
+			handler.sessionPermits.set(permits);
+			return;
+		}
+		// Custom Session proxy without close tracking -> cannot limit its usage.
+		permits.release();
+	}
+
 	/**
 	 * Wrap the given Session with a proxy that delegates every method call to it
 	 * but adapts close calls. This is useful for allowing application code to
 	 * handle a special framework Session just like an ordinary Session.
 	 * @param target the original Session to wrap
-	 * @param sessionList the List of cached Sessions that the given Session belongs to
+	 * @param sessionList the pool of cached Sessions that the given Session belongs to
+	 * (as of 5.2.19, a thread-safe {@link Deque} instead of a {@code LinkedList})
 	 * @return the wrapped Session
 	 */
-	protected Session getCachedSessionProxy(Session target, LinkedList<Session> sessionList) {
+	protected Session getCachedSessionProxy(Session target, Deque<Session> sessionList) {
 		List<Class<?>> classes = new ArrayList<>(3);
 		classes.add(SessionProxy.class);
 		if (target instanceof QueueSession) {
@@ -260,6 +430,21 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 				ClassUtils.toClassArray(classes), new CachedSessionInvocationHandler(target, sessionList));
 	}
 
+	/**
+	 * Wrap the given Session with a proxy that delegates every method call to it
+	 * but adapts close calls.
+	 * @param target the original Session to wrap
+	 * @param sessionList the List of cached Sessions that the given Session belongs to
+	 * @return the wrapped Session
+	 * @deprecated as of 5.2.19, in favor of {@link #getCachedSessionProxy(Session, Deque)};
+	 * this variant is not called by this factory anymore, and a subclass overriding it
+	 * is rejected with an {@link IllegalStateException} on construction
+	 */
+	@Deprecated
+	protected Session getCachedSessionProxy(Session target, LinkedList<Session> sessionList) {
+		return getCachedSessionProxy(target, (Deque<Session>) sessionList);
+	}
+
 
 	/**
 	 * Invocation handler for a cached JMS Session proxy.
@@ -268,17 +453,25 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 
 		private final Session target;
 
-		private final LinkedList<Session> sessionList;
+		private final Deque<Session> sessionList;
 
 		private final Map<DestinationCacheKey, MessageProducer> cachedProducers = new HashMap<>();
 
 		private final Map<ConsumerCacheKey, MessageConsumer> cachedConsumers = new HashMap<>();
 
+		@Nullable
+		private final AtomicInteger pooledCount;
+
+		private final AtomicReference<Semaphore> sessionPermits = new AtomicReference<>();
+
+		private volatile boolean pooled = false;
+
 		private boolean transactionOpen = false;
 
-		public CachedSessionInvocationHandler(Session target, LinkedList<Session> sessionList) {
+		public CachedSessionInvocationHandler(Session target, Deque<Session> sessionList) {
 			this.target = target;
 			this.sessionList = sessionList;
+			this.pooledCount = (sessionList instanceof SessionPool ? ((SessionPool) sessionList).pooledCount : null);
 		}
 
 		@Override
@@ -298,24 +491,34 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 			}
 			else if (methodName.equals("close")) {
 				// Handle close method: don't pass the call on.
-				if (active) {
-					synchronized (this.sessionList) {
-						if (this.sessionList.size() < getSessionCacheSize()) {
-							try {
-								logicalClose((Session) proxy);
-								// Remain open in the session list.
-								return null;
-							}
-							catch (JMSException ex) {
-								logger.trace("Logical close of cached JMS Session failed - discarding it", ex);
-								// Proceed to physical close from here...
-							}
+				if (this.pooled) {
+					// Allow for multiple close calls...
+					return null;
+				}
+				try {
+					if (active && reservePoolSlot()) {
+						try {
+							logicalClose((Session) proxy);
+							// Remain open in the session list.
+							return null;
+						}
+						catch (JMSException ex) {
+							releasePoolSlot();
+							logger.trace("Logical close of cached JMS Session failed - discarding it", ex);
+							// Proceed to physical close from here...
 						}
 					}
+					// If we get here, we're supposed to shut down.
+					physicalClose();
+					return null;
+				}
+				finally {
+					// Let a waiting thread obtain a Session (only once per Session request).
+					Semaphore permits = this.sessionPermits.getAndSet(null);
+					if (permits != null) {
+						permits.release();
+					}
 				}
-				// If we get here, we're supposed to shut down.
-				physicalClose();
-				return null;
 			}
 			else if (methodName.equals("getTargetSession")) {
 				// Handle getTargetSession method: return underlying Session.
@@ -453,19 +656,47 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 					it.remove();
 				}
 			}
-			// Allow for multiple close calls...
-			boolean returned = false;
-			synchronized (this.sessionList) {
-				if (!this.sessionList.contains(proxy)) {
-					this.sessionList.addLast(proxy);
-					returned = true;
+			// Most recently used Session first, keeping a minimal set of Sessions busy.
+			this.pooled = true;
+			this.sessionList.addFirst(proxy);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Returned cached Session: " + this.target);
+			}
+		}
+
+		/**
+		 * Reserve a place in the Session pool for this Session, unless the
+		 * pool is full already.
+		 */
+		private boolean reservePoolSlot() {
+			if (this.pooledCount == null) {
+				return (this.sessionList.size() < getSessionCacheSize());
+			}
+			int count;
+			do {
+				count = this.pooledCount.get();
+				if (count >= getSessionCacheSize()) {
+					return false;
 				}
 			}
-			if (returned && logger.isTraceEnabled()) {
-				logger.trace("Returned cached Session: " + this.target);
+			while (!this.pooledCount.compareAndSet(count, count + 1));
+			return true;
+		}
+
+		private void releasePoolSlot() {
+			if (this.pooledCount != null) {
+				this.pooledCount.decrementAndGet();
 			}
 		}
 
+		/**
+		 * Called once this Session has been taken from the Session pool.
+		 */
+		void removedFromPool() {
+			this.pooled = false;
+			releasePoolSlot();
+		}
+
 		private void physicalClose() throws JMSException {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Closing cached Session: " + this.target);
@@ -602,4 +833,15 @@ public class CachingConnectionFactory extends SingleConnectionFactory {
 		}
 	}
 
+
+	/**
+	 * Pool of cached Sessions for a Session mode, keeping track of its size
+	 * since {@link ConcurrentLinkedDeque#size()} needs to traverse the pool.
+	 */
+	@SuppressWarnings("serial")
+	private static class SessionPool extends ConcurrentLinkedDeque<Session> {
+
+		final AtomicInteger pooledCount = new AtomicInteger();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.jms.core;
 
+import java.util.concurrent.CompletableFuture;
+
+import javax.jms.CompletionListener;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.DeliveryMode;
@@ -75,6 +78,19 @@ import org.springframework.util.Assert;
  * application's environment naming context via JNDI; application servers
  * typically expose pooled, transaction-aware factories there.
  *
+ * <p>As of 5.2.19, messages may also be sent asynchronously through the
+ * {@code sendAsync} and {@code convertAndSendAsync} methods, based on the
+ * JMS 2.0 {@link CompletionListener} mechanism. In combination with a
+ * {@link org.springframework.jms.connection.CachingConnectionFactory},
+ * many such sends get pipelined on the cached Sessions and MessageProducers,
+ * no longer waiting for the broker's acknowledgement of every single message.
+ * Note that this requires both Sessions and MessageProducers to be cached:
+ * as per the JMS 2.0 specification, closing a MessageProducer or Session
+ * blocks until all of its incomplete asynchronous sends have completed, so
+ * against a plain ConnectionFactory (or with producer caching switched off)
+ * every {@code sendAsync} call effectively waits for the acknowledgement
+ * of its message, just like a synchronous send.
+ *
  * @author Mark Pollack
  * @author Juergen Hoeller
  * @author Stephane Nicoll
@@ -118,6 +134,8 @@ public class JmsTemplate extends JmsDestinationAccessor implements JmsOperations
 
 	private long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
 
+	private volatile boolean asyncSendSupported = true;
+
 
 	/**
 	 * Create a new JmsTemplate for bean-style usage.
@@ -695,6 +713,212 @@ public class JmsTemplate extends JmsDestinationAccessor implements JmsOperations
 	}
 
 
+	//---------------------------------------------------------------------------------------
+	// Convenience methods for sending messages asynchronously
+	//---------------------------------------------------------------------------------------
+
+	/**
+	 * Send a message to the default destination asynchronously.
+	 * <p>This will only work with a default destination specified!
+	 * @param messageCreator callback to create a message
+	 * @return a future completed once the JMS provider has acknowledged the message
+	 * @throws JmsException if the message could not be handed to the JMS provider
+	 * @since 5.2.19
+	 * @see #sendAsync(Destination, MessageCreator)
+	 */
+	public CompletableFuture<Void> sendAsync(MessageCreator messageCreator) throws JmsException {
+		Destination defaultDestination = getDefaultDestination();
+		if (defaultDestination != null) {
+			return sendAsync(defaultDestination, messageCreator);
+		}
+		else {
+			return sendAsync(getRequiredDefaultDestinationName(), messageCreator);
+		}
+	}
+
+	/**
+	 * Send a message to the specified destination asynchronously, returning
+	 * as soon as the message has been handed to the JMS provider.
+	 * <p>Uses JMS 2.0 asynchronous sending where supported by the JMS provider.
+	 * Messages sent within a transaction (or through a transacted Session)
+	 * as well as messages for JMS 1.1 providers are sent synchronously instead,
+	 * returning an already completed future.
+	 * <p>This method only returns before the message has been acknowledged if
+	 * the MessageProducer and Session stay open after the send, i.e. if they
+	 * are cached by the ConnectionFactory, e.g. a
+	 * {@link org.springframework.jms.connection.CachingConnectionFactory} with
+	 * {@link org.springframework.jms.connection.CachingConnectionFactory#setCacheProducers
+	 * "cacheProducers"} enabled (the default). Otherwise, closing the producer
+	 * waits for the pending send to complete, as mandated by JMS 2.0.
+	 * <p>A {@link org.springframework.util.concurrent.ListenableFuture} can be
+	 * obtained through a
+	 * {@link org.springframework.util.concurrent.CompletableToListenableFutureAdapter}.
+	 * @param destination the destination to send this message to
+	 * @param messageCreator callback to create a message
+	 * @return a future completed once the JMS provider has acknowledged the
+	 * message, or completed exceptionally with a {@link JmsException}
+	 * @throws JmsException if the message could not be handed to the JMS provider
+	 * @since 5.2.19
+	 */
+	public CompletableFuture<Void> sendAsync(final Destination destination, final MessageCreator messageCreator)
+			throws JmsException {
+
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		execute(session -> {
+			doSendAsync(session, destination, messageCreator, future);
+			return null;
+		}, false);
+		return future;
+	}
+
+	/**
+	 * Send a message to the specified destination asynchronously.
+	 * @param destinationName the name of the destination to send this message to
+	 * (to be resolved to an actual destination by a DestinationResolver)
+	 * @param messageCreator callback to create a message
+	 * @return a future completed once the JMS provider has acknowledged the message
+	 * @throws JmsException if the message could not be handed to the JMS provider
+	 * @since 5.2.19
+	 * @see #sendAsync(Destination, MessageCreator)
+	 */
+	public CompletableFuture<Void> sendAsync(final String destinationName, final MessageCreator messageCreator)
+			throws JmsException {
+
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		execute(session -> {
+			Destination destination = resolveDestinationName(session, destinationName);
+			doSendAsync(session, destination, messageCreator, future);
+			return null;
+		}, false);
+		return future;
+	}
+
+	/**
+	 * Convert the given object to a message and send it to the default
+	 * destination asynchronously.
+	 * <p>This will only work with a default destination specified!
+	 * @param message the object to convert to a message
+	 * @return a future completed once the JMS provider has acknowledged the message
+	 * @throws JmsException if the message could not be handed to the JMS provider
+	 * @since 5.2.19
+	 * @see #sendAsync(Destination, MessageCreator)
+	 */
+	public CompletableFuture<Void> convertAndSendAsync(Object message) throws JmsException {
+		return sendAsync(session -> getRequiredMessageConverter().toMessage(message, session));
+	}
+
+	/**
+	 * Convert the given object to a message and send it to the specified
+	 * destination asynchronously.
+	 * @param destination the destination to send this message to
+	 * @param message the object to convert to a message
+	 * @return a future completed once the JMS provider has acknowledged the message
+	 * @throws JmsException if the message could not be handed to the JMS provider
+	 * @since 5.2.19
+	 * @see #sendAsync(Destination, MessageCreator)
+	 */
+	public CompletableFuture<Void> convertAndSendAsync(Destination destination, final Object message)
+			throws JmsException {
+
+		return sendAsync(destination, session -> getRequiredMessageConverter().toMessage(message, session));
+	}
+
+	/**
+	 * Convert the given object to a message and send it to the specified
+	 * destination asynchronously.
+	 * @param destinationName the name of the destination to send this message to
+	 * (to be resolved to an actual destination by a DestinationResolver)
+	 * @param message the object to convert to a message
+	 * @return a future completed once the JMS provider has acknowledged the message
+	 * @throws JmsException if the message could not be handed to the JMS provider
+	 * @since 5.2.19
+	 * @see #sendAsync(Destination, MessageCreator)
+	 */
+	public CompletableFuture<Void> convertAndSendAsync(String destinationName, final Object message)
+			throws JmsException {
+
+		return sendAsync(destinationName, session -> getRequiredMessageConverter().toMessage(message, session));
+	}
+
+	/**
+	 * Send the given JMS message asynchronously, falling back to a synchronous
+	 * send for transactional Sessions and JMS 1.1 providers.
+	 * <p>The MessageProducer gets closed right after handing over the message,
+	 * which only returns immediately for a producer cached by the ConnectionFactory.
+	 * @param session the JMS Session to operate on
+	 * @param destination the JMS Destination to send to
+	 * @param messageCreator callback to create a JMS Message
+	 * @param future the future to complete once the message has been sent
+	 * @throws JMSException if thrown by JMS API methods
+	 * @since 5.2.19
+	 */
+	protected void doSendAsync(Session session, Destination destination, MessageCreator messageCreator,
+			CompletableFuture<Void> future) throws JMSException {
+
+		Assert.notNull(messageCreator, "MessageCreator must not be null");
+		if (!this.asyncSendSupported || session.getTransacted() ||
+				ConnectionFactoryUtils.isSessionTransactional(session, getConnectionFactory())) {
+			doSend(session, destination, messageCreator);
+			future.complete(null);
+			return;
+		}
+		MessageProducer producer = createProducer(session, destination);
+		try {
+			Message message = messageCreator.createMessage(session);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Sending created message asynchronously: " + message);
+			}
+			try {
+				doSendAsync(producer, message, new CompletionListener() {
+					@Override
+					public void onCompletion(Message sentMessage) {
+						future.complete(null);
+					}
+
+					@Override
+					public void onException(Message failedMessage, Exception ex) {
+						future.completeExceptionally(ex instanceof JMSException ?
+								convertJmsAccessException((JMSException) ex) : ex);
+					}
+				});
+			}
+			catch (AbstractMethodError | UnsupportedOperationException ex) {
+				// JMS 1.1 provider: no asynchronous sending available.
+				logger.debug("Asynchronous sending not supported by JMS provider - sending synchronously", ex);
+				this.asyncSendSupported = false;
+				doSend(producer, message);
+				future.complete(null);
+			}
+		}
+		finally {
+			JmsUtils.closeMessageProducer(producer);
+		}
+	}
+
+	/**
+	 * Actually send the given JMS message asynchronously.
+	 * @param producer the JMS MessageProducer to send with
+	 * @param message the JMS Message to send
+	 * @param completionListener the listener to notify once the message
+	 * has been acknowledged by the JMS provider
+	 * @throws JMSException if thrown by JMS API methods
+	 * @since 5.2.19
+	 */
+	protected void doSendAsync(MessageProducer producer, Message message, CompletionListener completionListener)
+			throws JMSException {
+
+		if (this.deliveryDelay >= 0) {
+			producer.setDeliveryDelay(this.deliveryDelay);
+		}
+		if (isExplicitQosEnabled()) {
+			producer.send(message, getDeliveryMode(), getPriority(), getTimeToLive(), completionListener);
+		}
+		else {
+			producer.send(message, completionListener);
+		}
+	}
+
+
 	//---------------------------------------------------------------------------------------
 	// Convenience methods for receiving messages
 	//---------------------------------------------------------------------------------------
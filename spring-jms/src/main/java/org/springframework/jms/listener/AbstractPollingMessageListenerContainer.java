@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.jms.listener;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.jms.Connection;
 import javax.jms.Destination;
 import javax.jms.JMSException;
@@ -94,6 +97,10 @@ public abstract class AbstractPollingMessageListenerContainer extends AbstractMe
 
 	private long receiveTimeout = DEFAULT_RECEIVE_TIMEOUT;
 
+	private int batchSize = 1;
+
+	private long batchTimeout = 0;
+
 
 	@Override
 	public void setSessionTransacted(boolean sessionTransacted) {
@@ -182,6 +189,55 @@ public abstract class AbstractPollingMessageListenerContainer extends AbstractMe
 		return this.receiveTimeout;
 	}
 
+	/**
+	 * Set the maximum number of messages to receive within a single transaction
+	 * (or acknowledgement cycle) before invoking the listener.
+	 * <p>Once a first message has been received, up to the given number of
+	 * messages are collected and then handed to a {@link BatchMessageListener}
+	 * as a whole, or to any other listener message by message. The session is
+	 * committed (or the messages acknowledged) once per batch, which raises
+	 * throughput considerably at the cost of redelivering the entire batch
+	 * in case of a listener exception.
+	 * <p>By default this is 1, receiving and committing every message individually.
+	 * @since 5.2.19
+	 * @see #setBatchTimeout
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the maximum number of messages to receive per batch.
+	 * @since 5.2.19
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the time to wait for further messages to complete a batch, in
+	 * <b>milliseconds</b>, measured from the receipt of its first message.
+	 * <p>By default this is 0, completing a batch with the messages that are
+	 * immediately available. Note that this needs to be considerably smaller
+	 * than the transaction timeout, since the listener is only invoked once
+	 * the batch is complete.
+	 * @since 5.2.19
+	 * @see #setBatchSize
+	 */
+	public void setBatchTimeout(long batchTimeout) {
+		Assert.isTrue(batchTimeout >= 0, "Batch timeout must not be negative");
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * Return the time (ms) to wait for further messages to complete a batch.
+	 * @since 5.2.19
+	 */
+	public long getBatchTimeout() {
+		return this.batchTimeout;
+	}
+
 
 	@Override
 	public void initialize() {
@@ -307,6 +363,7 @@ public abstract class AbstractPollingMessageListenerContainer extends AbstractMe
 							consumerToUse + "] of " + (transactional ? "transactional " : "") + "session [" +
 							sessionToUse + "]");
 				}
+				List<Message> batch = (this.batchSize > 1 ? receiveBatch(consumerToUse, message) : null);
 				messageReceived(invoker, sessionToUse);
 				boolean exposeResource = (!transactional && isExposeListenerSession() &&
 						!TransactionSynchronizationManager.hasResource(obtainConnectionFactory()));
@@ -315,7 +372,12 @@ public abstract class AbstractPollingMessageListenerContainer extends AbstractMe
 							obtainConnectionFactory(), new LocallyExposedJmsResourceHolder(sessionToUse));
 				}
 				try {
-					doExecuteListener(sessionToUse, message);
+					if (batch != null) {
+						doExecuteListener(sessionToUse, batch);
+					}
+					else {
+						doExecuteListener(sessionToUse, message);
+					}
 				}
 				catch (Throwable ex) {
 					if (status != null) {
@@ -360,6 +422,35 @@ public abstract class AbstractPollingMessageListenerContainer extends AbstractMe
 		}
 	}
 
+	/**
+	 * Receive further messages from the given consumer, completing the batch
+	 * started by the given message within the configured batch timeout.
+	 * @param consumer the MessageConsumer to use
+	 * @param firstMessage the first message of the batch
+	 * @return the batch of messages, including the given first message
+	 * @throws JMSException if thrown by JMS methods
+	 * @since 5.2.19
+	 * @see #setBatchSize
+	 * @see #setBatchTimeout
+	 */
+	protected List<Message> receiveBatch(MessageConsumer consumer, Message firstMessage) throws JMSException {
+		List<Message> messages = new ArrayList<>(this.batchSize);
+		messages.add(firstMessage);
+		long deadline = System.currentTimeMillis() + this.batchTimeout;
+		while (messages.size() < this.batchSize) {
+			long remaining = deadline - System.currentTimeMillis();
+			Message message = receiveFromConsumer(consumer, (remaining > 0 ? remaining : RECEIVE_TIMEOUT_NO_WAIT));
+			if (message == null) {
+				break;
+			}
+			messages.add(message);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Received batch of " + messages.size() + " messages from consumer [" + consumer + "]");
+		}
+		return messages;
+	}
+
 	/**
 	 * This implementation checks whether the Session is externally synchronized.
 	 * In this case, the Session is not locally transacted, despite the listener
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link ConsumerScalingPolicy} driven by measured queue latency and by the
+ * ratio of receive attempts that time out without a message.
+ *
+ * <p>A consumer is added while none of the existing consumers is idle and
+ * messages either wait longer than the {@link #setTargetQueueLatency target
+ * queue latency} or hardly any receive attempt times out. A consumer is only
+ * removed once it has been idle for a number of receive attempts in a row,
+ * most receive attempts of the container time out, and the latest scaling
+ * event lies back at least the {@link #setScaleDownDelay scale-down delay}.
+ * This hysteresis lets the container react to bursts immediately while
+ * shrinking gradually, avoiding oscillation under bursty load.
+ *
+ * @since 5.2.19
+ * @see DefaultMessageListenerContainer#setConsumerScalingPolicy
+ */
+public class AdaptiveConsumerScalingPolicy implements ConsumerScalingPolicy {
+
+	private long targetQueueLatency = 1000;
+
+	private double scaleUpIdleRatio = 0.1;
+
+	private double scaleDownIdleRatio = 0.5;
+
+	private int idleReceiveLimit = 2;
+
+	private long scaleDownDelay = 10000;
+
+
+	/**
+	 * Set the queue latency (ms) above which consumers are added.
+	 * <p>By default this is 1000.
+	 * @see ConsumerMetrics#getAverageQueueLatency()
+	 */
+	public void setTargetQueueLatency(long targetQueueLatency) {
+		Assert.isTrue(targetQueueLatency >= 0, "'targetQueueLatency' must not be negative");
+		this.targetQueueLatency = targetQueueLatency;
+	}
+
+	/**
+	 * Set the idle receive ratio below which consumers are added,
+	 * regardless of the queue latency.
+	 * <p>By default this is 0.1.
+	 * @see ConsumerMetrics#getIdleReceiveRatio()
+	 */
+	public void setScaleUpIdleRatio(double scaleUpIdleRatio) {
+		Assert.isTrue(scaleUpIdleRatio >= 0 && scaleUpIdleRatio <= 1, "'scaleUpIdleRatio' must be between 0 and 1");
+		this.scaleUpIdleRatio = scaleUpIdleRatio;
+	}
+
+	/**
+	 * Set the idle receive ratio above which consumers may be removed.
+	 * <p>By default this is 0.5.
+	 * @see ConsumerMetrics#getIdleReceiveRatio()
+	 */
+	public void setScaleDownIdleRatio(double scaleDownIdleRatio) {
+		Assert.isTrue(scaleDownIdleRatio >= 0 && scaleDownIdleRatio <= 1,
+				"'scaleDownIdleRatio' must be between 0 and 1");
+		this.scaleDownIdleRatio = scaleDownIdleRatio;
+	}
+
+	/**
+	 * Set the number of receive attempts in a row without a message
+	 * after which a consumer may be removed.
+	 * <p>By default this is 2.
+	 */
+	public void setIdleReceiveLimit(int idleReceiveLimit) {
+		Assert.isTrue(idleReceiveLimit > 0, "'idleReceiveLimit' must be 1 or higher");
+		this.idleReceiveLimit = idleReceiveLimit;
+	}
+
+	/**
+	 * Set the minimum time (ms) between the latest scaling event
+	 * and the removal of a consumer.
+	 * <p>By default this is 10000.
+	 */
+	public void setScaleDownDelay(long scaleDownDelay) {
+		Assert.isTrue(scaleDownDelay >= 0, "'scaleDownDelay' must not be negative");
+		this.scaleDownDelay = scaleDownDelay;
+	}
+
+
+	@Override
+	public boolean shouldScaleUp(ConsumerMetrics metrics) {
+		return (metrics.getIdleConsumerCount() == 0 &&
+				(metrics.getAverageQueueLatency() > this.targetQueueLatency ||
+						metrics.getIdleReceiveRatio() < this.scaleUpIdleRatio));
+	}
+
+	@Override
+	public boolean shouldScaleDown(ConsumerMetrics metrics, int idleReceiveCount) {
+		return (idleReceiveCount >= this.idleReceiveLimit &&
+				metrics.getIdleReceiveRatio() >= this.scaleDownIdleRatio &&
+				System.currentTimeMillis() - metrics.getLastScalingTimestamp() >= this.scaleDownDelay);
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener;
+
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+/**
+ * Variant of the {@link SessionAwareMessageListener} interface, receiving
+ * a batch of messages at once.
+ *
+ * <p>Supported by Spring's {@link DefaultMessageListenerContainer}, which
+ * receives up to its configured {@link AbstractPollingMessageListenerContainer#setBatchSize
+ * batch size} of messages within a single transaction before handing them to
+ * this listener, acknowledging or committing them together afterwards.
+ * Other listener containers invoke this listener with one message at a time.
+ *
+ * @since 5.2.19
+ * @see AbstractPollingMessageListenerContainer#setBatchSize
+ * @see AbstractPollingMessageListenerContainer#setBatchTimeout
+ */
+@FunctionalInterface
+public interface BatchMessageListener {
+
+	/**
+	 * Callback for processing a batch of received JMS messages.
+	 * <p>If this method throws an exception, the entire batch will be
+	 * rolled back or recovered, as far as supported by the session.
+	 * @param messages the received JMS messages (never empty)
+	 * @param session the underlying JMS Session (never {@code null})
+	 * @throws JMSException if thrown by JMS methods
+	 */
+	void onMessageBatch(List<Message> messages, Session session) throws JMSException;
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener;
+
+/**
+ * Runtime metrics of the consumers of a {@link DefaultMessageListenerContainer},
+ * exposed for monitoring purposes and as input for a {@link ConsumerScalingPolicy}.
+ *
+ * <p>Averages are exponentially weighted moving averages, giving more weight
+ * to recent observations. They are 0 as long as no observation has been made.
+ *
+ * @since 5.2.19
+ * @see DefaultMessageListenerContainer#getConsumerMetrics()
+ */
+public interface ConsumerMetrics {
+
+	/**
+	 * Return the configured minimum number of consumers.
+	 * @see DefaultMessageListenerContainer#getConcurrentConsumers()
+	 */
+	int getConcurrentConsumers();
+
+	/**
+	 * Return the configured maximum number of consumers.
+	 * @see DefaultMessageListenerContainer#getMaxConcurrentConsumers()
+	 */
+	int getMaxConcurrentConsumers();
+
+	/**
+	 * Return the number of currently scheduled consumers.
+	 * @see DefaultMessageListenerContainer#getScheduledConsumerCount()
+	 */
+	int getScheduledConsumerCount();
+
+	/**
+	 * Return the number of currently active consumers.
+	 * @see DefaultMessageListenerContainer#getActiveConsumerCount()
+	 */
+	int getActiveConsumerCount();
+
+	/**
+	 * Return the number of scheduled consumers whose last receive
+	 * attempt did not return a message.
+	 */
+	int getIdleConsumerCount();
+
+	/**
+	 * Return the number of times that a consumer has been added
+	 * beyond the initial ones in response to incoming load.
+	 */
+	long getScaleUpCount();
+
+	/**
+	 * Return the number of times that a consumer has been removed
+	 * in response to a lack of incoming load.
+	 */
+	long getScaleDownCount();
+
+	/**
+	 * Return the timestamp of the latest scale-up or scale-down event,
+	 * or 0 if there has not been any.
+	 * @see System#currentTimeMillis()
+	 */
+	long getLastScalingTimestamp();
+
+	/**
+	 * Return the total number of messages handed to the listener.
+	 */
+	long getProcessedMessageCount();
+
+	/**
+	 * Return the average time (ms) between the {@code JMSTimestamp} of
+	 * incoming messages and the start of their processing, i.e. the time
+	 * that messages spent in the destination before being consumed.
+	 * <p>Note that this depends on the clocks of the sender and the
+	 * receiver being synchronized.
+	 */
+	double getAverageQueueLatency();
+
+	/**
+	 * Return the average time (ms) that the listener took to process a message.
+	 */
+	double getAverageProcessingTime();
+
+	/**
+	 * Return the average ratio of receive attempts that did not return a message
+	 * within the receive timeout, between 0 (always busy) and 1 (always idle).
+	 */
+	double getIdleReceiveRatio();
+
+}
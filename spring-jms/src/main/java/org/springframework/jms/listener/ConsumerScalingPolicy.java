@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener;
+
+/**
+ * Strategy for deciding when a {@link DefaultMessageListenerContainer} adds or
+ * removes consumers, replacing its default heuristics based on the
+ * {@link DefaultMessageListenerContainer#setIdleConsumerLimit "idleConsumerLimit"}
+ * and {@link DefaultMessageListenerContainer#setIdleTaskExecutionLimit
+ * "idleTaskExecutionLimit"} settings.
+ *
+ * <p>The container always keeps the number of consumers between its
+ * "concurrentConsumers" and "maxConcurrentConsumers" settings, only consulting
+ * this policy within that range. Implementations are invoked concurrently by
+ * all consumers of a container while holding its lifecycle lock, so they need
+ * to be thread-safe and should return quickly.
+ *
+ * @since 5.2.19
+ * @see DefaultMessageListenerContainer#setConsumerScalingPolicy
+ * @see AdaptiveConsumerScalingPolicy
+ */
+public interface ConsumerScalingPolicy {
+
+	/**
+	 * Determine whether to add a consumer, given that a consumer
+	 * has just received a message.
+	 * @param metrics the current metrics of the container
+	 * @return {@code true} to schedule an additional consumer
+	 */
+	boolean shouldScaleUp(ConsumerMetrics metrics);
+
+	/**
+	 * Determine whether to remove a consumer, given that its latest
+	 * receive attempts did not return a message.
+	 * @param metrics the current metrics of the container
+	 * @param idleReceiveCount the number of receive attempts in a row
+	 * that did not return a message for the consumer in question
+	 * @return {@code true} to shut down the consumer in question
+	 */
+	boolean shouldScaleDown(ConsumerMetrics metrics, int idleReceiveCount);
+
+}
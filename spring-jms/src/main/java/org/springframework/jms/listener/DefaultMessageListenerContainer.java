@@ -17,11 +17,14 @@
 package org.springframework.jms.listener;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
+import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.Session;
 
@@ -94,7 +97,9 @@ import org.springframework.util.backoff.FixedBackOff;
  * setting to control the lifespan of each new task, to avoid frequent scaling up
  * and down, in particular if the {@code ConnectionFactory} does not pool JMS
  * {@code Sessions} and/or the {@code TaskExecutor} does not pool threads (check
- * your configuration!). Note that dynamic scaling only really makes sense for a
+ * your configuration!). Alternatively, specify a {@link ConsumerScalingPolicy}
+ * driven by the {@link #getConsumerMetrics() consumer metrics} that this
+ * container collects. Note that dynamic scaling only really makes sense for a
  * queue in the first place; for a topic, you will typically stick with the default
  * number of 1 consumer, otherwise you'd receive the same message multiple times on
  * the same node.
@@ -192,6 +197,11 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 
 	private int idleTaskExecutionLimit = 1;
 
+	@Nullable
+	private ConsumerScalingPolicy consumerScalingPolicy;
+
+	private final ContainerConsumerMetrics consumerMetrics = new ContainerConsumerMetrics();
+
 	private final Set<AsyncMessageListenerInvoker> scheduledInvokers = new HashSet<>();
 
 	private int activeInvokerCount = 0;
@@ -508,6 +518,36 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 		}
 	}
 
+	/**
+	 * Specify a {@link ConsumerScalingPolicy} to decide when to add or remove
+	 * consumers between the "concurrentConsumers" and "maxConcurrentConsumers"
+	 * limits, based on the {@link #getConsumerMetrics() consumer metrics}.
+	 * <p>By default, no policy is set, applying the "idleConsumerLimit" and
+	 * "idleTaskExecutionLimit" heuristics instead. In contrast to those, a
+	 * policy may also shut down long-lived consumer tasks (see the
+	 * {@link #setMaxMessagesPerTask "maxMessagesPerTask"} setting) when
+	 * they turn out to be idle.
+	 * <p><b>This setting can be modified at runtime, for example through JMX.</b>
+	 * @since 5.2.19
+	 * @see AdaptiveConsumerScalingPolicy
+	 */
+	public void setConsumerScalingPolicy(@Nullable ConsumerScalingPolicy consumerScalingPolicy) {
+		synchronized (this.lifecycleMonitor) {
+			this.consumerScalingPolicy = consumerScalingPolicy;
+		}
+	}
+
+	/**
+	 * Return the {@link ConsumerScalingPolicy} to use, if any.
+	 * @since 5.2.19
+	 */
+	@Nullable
+	public final ConsumerScalingPolicy getConsumerScalingPolicy() {
+		synchronized (this.lifecycleMonitor) {
+			return this.consumerScalingPolicy;
+		}
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Implementation of AbstractMessageListenerContainer's template methods
@@ -690,6 +730,18 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 		}
 	}
 
+	/**
+	 * Return the runtime metrics of this container's consumers, e.g. for
+	 * monitoring the number of consumers, scaling events and latencies.
+	 * <p>The returned object is a live view, reflecting the current state
+	 * of this container on every call.
+	 * @since 5.2.19
+	 * @see #setConsumerScalingPolicy
+	 */
+	public ConsumerMetrics getConsumerMetrics() {
+		return this.consumerMetrics;
+	}
+
 
 	/**
 	 * Create a default TaskExecutor. Called if no explicit TaskExecutor has been specified.
@@ -742,6 +794,7 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 	@Override
 	protected void messageReceived(Object invoker, Session session) {
 		((AsyncMessageListenerInvoker) invoker).setIdle(false);
+		this.consumerMetrics.idleReceiveRatio.record(0);
 		scheduleNewInvokerIfAppropriate();
 	}
 
@@ -751,26 +804,66 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 	@Override
 	protected void noMessageReceived(Object invoker, Session session) {
 		((AsyncMessageListenerInvoker) invoker).setIdle(true);
+		this.consumerMetrics.idleReceiveRatio.record(1);
+	}
+
+	/**
+	 * Records queue latency and processing time of the given message.
+	 * @see #getConsumerMetrics()
+	 */
+	@Override
+	protected void doExecuteListener(Session session, Message message) throws JMSException {
+		long startTime = System.nanoTime();
+		this.consumerMetrics.recordQueueLatency(message);
+		try {
+			super.doExecuteListener(session, message);
+		}
+		finally {
+			this.consumerMetrics.recordProcessingTime(System.nanoTime() - startTime, 1);
+		}
+	}
+
+	/**
+	 * Records queue latency and processing time of the given messages.
+	 * @see #getConsumerMetrics()
+	 */
+	@Override
+	protected void doExecuteListener(Session session, List<Message> messages) throws JMSException {
+		long startTime = System.nanoTime();
+		for (Message message : messages) {
+			this.consumerMetrics.recordQueueLatency(message);
+		}
+		try {
+			super.doExecuteListener(session, messages);
+		}
+		finally {
+			this.consumerMetrics.recordProcessingTime(System.nanoTime() - startTime, messages.size());
+		}
 	}
 
 	/**
 	 * Schedule a new invoker, increasing the total number of scheduled
 	 * invokers for this listener container, but only if the specified
 	 * "maxConcurrentConsumers" limit has not been reached yet, and only
-	 * if the specified "idleConsumerLimit" has not been reached either.
+	 * if the specified "idleConsumerLimit" has not been reached either
+	 * (or, if set, the {@link ConsumerScalingPolicy} agrees).
 	 * <p>Called once a message has been received, in order to scale up while
 	 * processing the message in the invoker that originally received it.
 	 * @see #setTaskExecutor
 	 * @see #getMaxConcurrentConsumers()
 	 * @see #getIdleConsumerLimit()
+	 * @see #setConsumerScalingPolicy
 	 */
 	protected void scheduleNewInvokerIfAppropriate() {
 		if (isRunning()) {
 			resumePausedTasks();
 			synchronized (this.lifecycleMonitor) {
 				if (this.scheduledInvokers.size() < this.maxConcurrentConsumers &&
-						getIdleInvokerCount() < this.idleConsumerLimit) {
+						(this.consumerScalingPolicy != null ?
+								this.consumerScalingPolicy.shouldScaleUp(this.consumerMetrics) :
+								getIdleInvokerCount() < this.idleConsumerLimit)) {
 					scheduleNewInvoker();
+					this.consumerMetrics.recordScaling(this.consumerMetrics.scaleUpCount);
 					if (logger.isDebugEnabled()) {
 						logger.debug("Raised scheduled invoker count: " + this.scheduledInvokers.size());
 					}
@@ -782,16 +875,25 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 	/**
 	 * Determine whether the current invoker should be rescheduled,
 	 * given that it might not have received a message in a while.
-	 * @param idleTaskExecutionCount the number of idle executions
-	 * that this invoker task has already accumulated (in a row)
+	 * @param invoker the invoker task in question
 	 */
-	private boolean shouldRescheduleInvoker(int idleTaskExecutionCount) {
-		boolean superfluous =
-				(idleTaskExecutionCount >= this.idleTaskExecutionLimit && getIdleInvokerCount() > 1);
+	private boolean shouldRescheduleInvoker(AsyncMessageListenerInvoker invoker) {
+		boolean superfluous = (this.consumerScalingPolicy != null ? isSuperfluous(invoker) :
+				(invoker.idleTaskExecutionCount >= this.idleTaskExecutionLimit && getIdleInvokerCount() > 1));
 		return (this.scheduledInvokers.size() <=
 				(superfluous ? this.concurrentConsumers : this.maxConcurrentConsumers));
 	}
 
+	/**
+	 * Determine whether the given invoker may be shut down according to
+	 * the {@link ConsumerScalingPolicy}, given that it is idle.
+	 * @param invoker the invoker task in question
+	 */
+	private boolean isSuperfluous(AsyncMessageListenerInvoker invoker) {
+		return (this.consumerScalingPolicy != null && invoker.idleReceiveCount > 0 &&
+				this.consumerScalingPolicy.shouldScaleDown(this.consumerMetrics, invoker.idleReceiveCount));
+	}
+
 	/**
 	 * Determine whether this listener container currently has more
 	 * than one idle instance among its scheduled invokers.
@@ -1056,6 +1158,8 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 
 		private int idleTaskExecutionCount = 0;
 
+		private int idleReceiveCount = 0;
+
 		private volatile boolean idle = true;
 
 		@Nullable
@@ -1115,9 +1219,13 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 					this.idleTaskExecutionCount = 0;
 				}
 				synchronized (lifecycleMonitor) {
-					if (!shouldRescheduleInvoker(this.idleTaskExecutionCount) || !rescheduleTaskIfNecessary(this)) {
+					boolean reschedule = shouldRescheduleInvoker(this);
+					if (!reschedule || !rescheduleTaskIfNecessary(this)) {
 						// We're shutting down completely.
 						scheduledInvokers.remove(this);
+						if (!reschedule && isRunning()) {
+							consumerMetrics.recordScaling(consumerMetrics.scaleDownCount);
+						}
 						if (logger.isDebugEnabled()) {
 							logger.debug("Lowered scheduled invoker count: " + scheduledInvokers.size());
 						}
@@ -1168,7 +1276,8 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 					if (wasWaiting) {
 						activeInvokerCount++;
 					}
-					if (scheduledInvokers.size() > maxConcurrentConsumers) {
+					if (scheduledInvokers.size() > maxConcurrentConsumers ||
+							(scheduledInvokers.size() > concurrentConsumers && isSuperfluous(this))) {
 						active = false;
 					}
 				}
@@ -1269,6 +1378,7 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 
 		public void setIdle(boolean idle) {
 			this.idle = idle;
+			this.idleReceiveCount = (idle ? this.idleReceiveCount + 1 : 0);
 		}
 
 		public boolean isIdle() {
@@ -1276,4 +1386,147 @@ public class DefaultMessageListenerContainer extends AbstractPollingMessageListe
 		}
 	}
 
+
+	/**
+	 * {@link ConsumerMetrics} implementation exposing the state of this container.
+	 */
+	private class ContainerConsumerMetrics implements ConsumerMetrics {
+
+		final AtomicLong scaleUpCount = new AtomicLong();
+
+		final AtomicLong scaleDownCount = new AtomicLong();
+
+		private volatile long lastScalingTimestamp;
+
+		private final AtomicLong processedMessageCount = new AtomicLong();
+
+		private final MovingAverage queueLatency = new MovingAverage();
+
+		private final MovingAverage processingTime = new MovingAverage();
+
+		final MovingAverage idleReceiveRatio = new MovingAverage();
+
+		void recordScaling(AtomicLong counter) {
+			counter.incrementAndGet();
+			this.lastScalingTimestamp = System.currentTimeMillis();
+		}
+
+		void recordQueueLatency(Message message) {
+			try {
+				long timestamp = message.getJMSTimestamp();
+				if (timestamp > 0) {
+					this.queueLatency.record(Math.max(System.currentTimeMillis() - timestamp, 0));
+				}
+			}
+			catch (JMSException ex) {
+				// Timestamp not accessible - ignore for metrics purposes.
+			}
+		}
+
+		void recordProcessingTime(long nanos, int messageCount) {
+			this.processedMessageCount.addAndGet(messageCount);
+			this.processingTime.record(nanos / 1000000.0 / messageCount);
+		}
+
+		@Override
+		public int getConcurrentConsumers() {
+			return DefaultMessageListenerContainer.this.getConcurrentConsumers();
+		}
+
+		@Override
+		public int getMaxConcurrentConsumers() {
+			return DefaultMessageListenerContainer.this.getMaxConcurrentConsumers();
+		}
+
+		@Override
+		public int getScheduledConsumerCount() {
+			return DefaultMessageListenerContainer.this.getScheduledConsumerCount();
+		}
+
+		@Override
+		public int getActiveConsumerCount() {
+			return DefaultMessageListenerContainer.this.getActiveConsumerCount();
+		}
+
+		@Override
+		public int getIdleConsumerCount() {
+			synchronized (lifecycleMonitor) {
+				return getIdleInvokerCount();
+			}
+		}
+
+		@Override
+		public long getScaleUpCount() {
+			return this.scaleUpCount.get();
+		}
+
+		@Override
+		public long getScaleDownCount() {
+			return this.scaleDownCount.get();
+		}
+
+		@Override
+		public long getLastScalingTimestamp() {
+			return this.lastScalingTimestamp;
+		}
+
+		@Override
+		public long getProcessedMessageCount() {
+			return this.processedMessageCount.get();
+		}
+
+		@Override
+		public double getAverageQueueLatency() {
+			return this.queueLatency.get();
+		}
+
+		@Override
+		public double getAverageProcessingTime() {
+			return this.processingTime.get();
+		}
+
+		@Override
+		public double getIdleReceiveRatio() {
+			return this.idleReceiveRatio.get();
+		}
+
+		@Override
+		public String toString() {
+			return "ConsumerMetrics: scheduled=" + getScheduledConsumerCount() +
+					", active=" + getActiveConsumerCount() + ", idle=" + getIdleConsumerCount() +
+					", scaleUps=" + getScaleUpCount() + ", scaleDowns=" + getScaleDownCount() +
+					", processed=" + getProcessedMessageCount() +
+					", queueLatency=" + getAverageQueueLatency() + "ms" +
+					", processingTime=" + getAverageProcessingTime() + "ms" +
+					", idleReceiveRatio=" + getIdleReceiveRatio();
+		}
+	}
+
+
+	/**
+	 * Exponentially weighted moving average of recorded values.
+	 */
+	private static class MovingAverage {
+
+		private static final double ALPHA = 0.2;
+
+		private double value;
+
+		private boolean initialized;
+
+		synchronized void record(double sample) {
+			if (this.initialized) {
+				this.value += ALPHA * (sample - this.value);
+			}
+			else {
+				this.value = sample;
+				this.initialized = true;
+			}
+		}
+
+		synchronized double get() {
+			return this.value;
+		}
+	}
+
 }
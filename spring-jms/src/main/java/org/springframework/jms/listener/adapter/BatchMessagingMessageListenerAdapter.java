@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Session;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.jms.listener.BatchMessageListener;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.handler.invocation.InvocableHandlerMethod;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * A {@link MessagingMessageListenerAdapter} variant that also acts as a
+ * {@link BatchMessageListener}, invoking a handler method that accepts a
+ * {@link List} of messages.
+ *
+ * <p>The element type of the {@code List} parameter determines what the
+ * handler method receives: the raw {@link javax.jms.Message} objects, Spring's
+ * {@link Message} abstraction of each of them, or otherwise the payloads as
+ * extracted by the configured message converter.
+ *
+ * <p>A non-{@code null} result of the handler method is sent as a reply to
+ * the last message of the batch. Messages handed over one at a time, e.g. by
+ * a container without batch reception, are processed as single-element batches.
+ *
+ * @since 5.2.19
+ * @see org.springframework.jms.annotation.JmsListener#batch()
+ */
+public class BatchMessagingMessageListenerAdapter extends MessagingMessageListenerAdapter
+		implements BatchMessageListener {
+
+	/**
+	 * Process the given message as a single-element batch.
+	 * @see #onMessageBatch
+	 */
+	@Override
+	public void onMessage(javax.jms.Message jmsMessage, @Nullable Session session) throws JMSException {
+		onMessageBatch(Collections.singletonList(jmsMessage), session);
+	}
+
+	@Override
+	public void onMessageBatch(List<javax.jms.Message> jmsMessages, Session session) throws JMSException {
+		Message<?> message = MessageBuilder.withPayload(toBatchPayload(jmsMessages)).build();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Processing batch of " + jmsMessages.size() + " messages");
+		}
+		Object result = invokeHandler(session, message);
+		if (result != null) {
+			handleResult(result, jmsMessages.get(jmsMessages.size() - 1), session);
+		}
+		else {
+			logger.trace("No result object given - no result to handle");
+		}
+	}
+
+	/**
+	 * Convert the given JMS messages to the payload to pass to the handler method,
+	 * according to the element type of its {@code List} parameter.
+	 * @param jmsMessages the received JMS messages
+	 * @return the list to expose as payload
+	 */
+	protected List<?> toBatchPayload(List<javax.jms.Message> jmsMessages) {
+		Class<?> elementType = getBatchElementType();
+		if (elementType != null && javax.jms.Message.class.isAssignableFrom(elementType)) {
+			return jmsMessages;
+		}
+		List<Object> payload = new ArrayList<>(jmsMessages.size());
+		boolean messagingMessages = (elementType != null && Message.class.isAssignableFrom(elementType));
+		for (javax.jms.Message jmsMessage : jmsMessages) {
+			payload.add(messagingMessages ? toMessagingMessage(jmsMessage) : extractMessage(jmsMessage));
+		}
+		return payload;
+	}
+
+	@Nullable
+	private Class<?> getBatchElementType() {
+		for (MethodParameter parameter : getHandlerMethod().getMethodParameters()) {
+			if (List.class.isAssignableFrom(parameter.getParameterType())) {
+				return ResolvableType.forMethodParameter(parameter).asCollection().resolveGeneric();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Invoke the handler, wrapping any exception to a {@link ListenerExecutionFailedException}
+	 * with a dedicated error message.
+	 */
+	@Nullable
+	private Object invokeHandler(Session session, Message<?> message) {
+		InvocableHandlerMethod handlerMethod = getHandlerMethod();
+		try {
+			return handlerMethod.invoke(message, session);
+		}
+		catch (MessagingException ex) {
+			throw new ListenerExecutionFailedException(
+					createMessagingErrorMessage("Listener method could not be invoked with incoming messages"), ex);
+		}
+		catch (Exception ex) {
+			throw new ListenerExecutionFailedException("Listener method '" +
+					handlerMethod.getMethod().toGenericString() + "' threw exception", ex);
+		}
+	}
+
+}
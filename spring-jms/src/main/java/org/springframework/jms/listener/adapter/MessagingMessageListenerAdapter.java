@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,7 +62,12 @@ public class MessagingMessageListenerAdapter extends AbstractAdaptableMessageLis
 		this.handlerMethod = handlerMethod;
 	}
 
-	private InvocableHandlerMethod getHandlerMethod() {
+	/**
+	 * Return the {@link InvocableHandlerMethod} to use to invoke the method
+	 * processing an incoming {@link javax.jms.Message}.
+	 * @since 5.2.19
+	 */
+	protected InvocableHandlerMethod getHandlerMethod() {
 		Assert.state(this.handlerMethod != null, "No HandlerMethod set");
 		return this.handlerMethod;
 	}
@@ -123,7 +128,12 @@ public class MessagingMessageListenerAdapter extends AbstractAdaptableMessageLis
 		}
 	}
 
-	private String createMessagingErrorMessage(String description) {
+	/**
+	 * Build an error message for the given description, including
+	 * details about the endpoint handler method.
+	 * @since 5.2.19
+	 */
+	protected String createMessagingErrorMessage(String description) {
 		InvocableHandlerMethod handlerMethod = getHandlerMethod();
 		StringBuilder sb = new StringBuilder(description).append("\n")
 				.append("Endpoint handler details:\n")
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.jms.connection;
 
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.ExceptionListener;
@@ -23,6 +27,7 @@ import javax.jms.JMSException;
 import javax.jms.QueueConnection;
 import javax.jms.QueueConnectionFactory;
 import javax.jms.QueueSession;
+import javax.jms.ResourceAllocationException;
 import javax.jms.Session;
 import javax.jms.TopicConnection;
 import javax.jms.TopicConnectionFactory;
@@ -31,6 +36,8 @@ import javax.jms.TopicSession;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -533,4 +540,82 @@ public class SingleConnectionFactoryTests {
 		verify(con).close();
 	}
 
+	@Test
+	public void testCachingConnectionFactoryWithMaxSessions() throws Exception {
+		ConnectionFactory cf = mock(ConnectionFactory.class);
+		Connection con = mock(Connection.class);
+		Session session = mock(Session.class);
+
+		given(cf.createConnection()).willReturn(con);
+		given(con.createSession(false, Session.AUTO_ACKNOWLEDGE)).willReturn(session);
+
+		CachingConnectionFactory scf = new CachingConnectionFactory(cf);
+		scf.setMaxSessions(1);
+		scf.setSessionAcquireTimeout(0);
+		Connection con1 = scf.createConnection();
+		Session session1 = con1.createSession(false, Session.AUTO_ACKNOWLEDGE);
+		assertThatExceptionOfType(ResourceAllocationException.class).isThrownBy(() ->
+				con1.createSession(false, Session.AUTO_ACKNOWLEDGE));
+
+		scf.setSessionAcquireTimeout(-1);
+		CompletableFuture<Session> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return con1.createSession(false, Session.AUTO_ACKNOWLEDGE);
+			}
+			catch (JMSException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+		Thread.sleep(50);
+		assertThat(waiting.isDone()).isFalse();
+		session1.close();
+		Session session2 = waiting.get(5, TimeUnit.SECONDS);
+		assertThat(session2).isSameAs(session1);
+
+		scf.setSessionAcquireTimeout(0);
+		assertThatExceptionOfType(ResourceAllocationException.class).isThrownBy(() ->
+				con1.createSession(false, Session.AUTO_ACKNOWLEDGE));
+		session2.close();
+		con1.close();
+		scf.destroy();  // should trigger actual close
+
+		verify(con).createSession(false, Session.AUTO_ACKNOWLEDGE);
+		verify(session).close();
+	}
+
+	@Test
+	public void testCachingConnectionFactoryWithRepeatedSessionClose() throws JMSException {
+		ConnectionFactory cf = mock(ConnectionFactory.class);
+		Connection con = mock(Connection.class);
+		Session session = mock(Session.class);
+
+		given(cf.createConnection()).willReturn(con);
+		given(con.createSession(false, Session.AUTO_ACKNOWLEDGE)).willReturn(session);
+
+		CachingConnectionFactory scf = new CachingConnectionFactory(cf);
+		Connection con1 = scf.createConnection();
+		Session session1 = con1.createSession(false, Session.AUTO_ACKNOWLEDGE);
+		Session session2 = con1.createSession(false, Session.AUTO_ACKNOWLEDGE);
+		session1.close();
+		session1.close();  // should not return the Session to the pool twice
+		session2.close();  // should trigger actual close, with the pool being full
+		verify(session).close();
+
+		assertThat(con1.createSession(false, Session.AUTO_ACKNOWLEDGE)).isSameAs(session1);
+		assertThat(con1.createSession(false, Session.AUTO_ACKNOWLEDGE)).isNotSameAs(session1);
+		con1.close();
+		scf.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testCachingConnectionFactoryWithLegacySessionProxyOverride() {
+		assertThatIllegalStateException().isThrownBy(() -> new CachingConnectionFactory() {
+			@Override
+			protected Session getCachedSessionProxy(Session target, LinkedList<Session> sessionList) {
+				return target;
+			}
+		}).withMessageContaining("getCachedSessionProxy(Session, Deque)");
+	}
+
 }
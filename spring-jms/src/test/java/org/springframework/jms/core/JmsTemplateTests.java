@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,9 @@ package org.springframework.jms.core;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import javax.jms.CompletionListener;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.DeliveryMode;
@@ -36,6 +38,7 @@ import javax.naming.Context;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.jms.InvalidClientIDException;
 import org.springframework.jms.InvalidDestinationException;
@@ -63,6 +66,8 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
@@ -421,6 +426,75 @@ class JmsTemplateTests {
 		verify(this.connection).close();
 	}
 
+	@Test
+	void testSendAsyncDestination() throws Exception {
+		JmsTemplate template = createTemplate();
+		template.setConnectionFactory(this.connectionFactory);
+		MessageProducer messageProducer = mock(MessageProducer.class);
+		TextMessage textMessage = mock(TextMessage.class);
+		given(this.session.createProducer(this.queue)).willReturn(messageProducer);
+		given(this.session.createTextMessage("just testing")).willReturn(textMessage);
+
+		CompletableFuture<Void> future =
+				template.sendAsync(this.queue, session -> session.createTextMessage("just testing"));
+
+		if (useTransactedSession()) {
+			verify(messageProducer).send(textMessage);
+			assertThat(future).isCompleted();
+		}
+		else {
+			ArgumentCaptor<CompletionListener> listener = ArgumentCaptor.forClass(CompletionListener.class);
+			verify(messageProducer).send(eq(textMessage), listener.capture());
+			assertThat(future).isNotDone();
+			listener.getValue().onCompletion(textMessage);
+			assertThat(future).isCompleted();
+		}
+		verify(messageProducer).close();
+		verify(this.session).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	void testSendAsyncDestinationWithException() throws Exception {
+		JmsTemplate template = createTemplate();
+		template.setConnectionFactory(this.connectionFactory);
+		MessageProducer messageProducer = mock(MessageProducer.class);
+		TextMessage textMessage = mock(TextMessage.class);
+		given(this.session.createProducer(this.queue)).willReturn(messageProducer);
+		given(this.session.createTextMessage("just testing")).willReturn(textMessage);
+
+		CompletableFuture<Void> future =
+				template.sendAsync(this.queue, session -> session.createTextMessage("just testing"));
+
+		if (!useTransactedSession()) {
+			ArgumentCaptor<CompletionListener> listener = ArgumentCaptor.forClass(CompletionListener.class);
+			verify(messageProducer).send(eq(textMessage), listener.capture());
+			listener.getValue().onException(textMessage, new javax.jms.ResourceAllocationException("test"));
+			assertThat(future).isCompletedExceptionally();
+			assertThatExceptionOfType(Exception.class).isThrownBy(future::join)
+					.withCauseExactlyInstanceOf(ResourceAllocationException.class);
+		}
+	}
+
+	@Test
+	void testSendAsyncFallsBackToSynchronousSend() throws Exception {
+		JmsTemplate template = createTemplate();
+		template.setConnectionFactory(this.connectionFactory);
+		template.setQosSettings(this.qosSettings);
+		MessageProducer messageProducer = mock(MessageProducer.class);
+		TextMessage textMessage = mock(TextMessage.class);
+		given(this.session.createProducer(this.queue)).willReturn(messageProducer);
+		given(this.session.createTextMessage("just testing")).willReturn(textMessage);
+		willThrow(new AbstractMethodError()).given(messageProducer).send(eq(textMessage), eq(DeliveryMode.PERSISTENT), eq(9),
+				eq(10000L), any(CompletionListener.class));
+
+		CompletableFuture<Void> future =
+				template.sendAsync(this.queue, session -> session.createTextMessage("just testing"));
+		assertThat(future).isCompleted();
+		verify(messageProducer).send(textMessage, this.qosSettings.getDeliveryMode(),
+				this.qosSettings.getPriority(), this.qosSettings.getTimeToLive());
+	}
+
 	@Test
 	void testConverter() throws Exception {
 		JmsTemplate template = createTemplate();
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link AdaptiveConsumerScalingPolicy}.
+ */
+class AdaptiveConsumerScalingPolicyTests {
+
+	private final AdaptiveConsumerScalingPolicy policy = new AdaptiveConsumerScalingPolicy();
+
+	private final ConsumerMetrics metrics = mock(ConsumerMetrics.class);
+
+
+	@Test
+	void scaleUpOnHighQueueLatency() {
+		given(this.metrics.getIdleReceiveRatio()).willReturn(0.3);
+		given(this.metrics.getAverageQueueLatency()).willReturn(2000.0);
+		assertThat(this.policy.shouldScaleUp(this.metrics)).isTrue();
+
+		given(this.metrics.getAverageQueueLatency()).willReturn(200.0);
+		assertThat(this.policy.shouldScaleUp(this.metrics)).isFalse();
+	}
+
+	@Test
+	void scaleUpOnLowIdleReceiveRatio() {
+		given(this.metrics.getIdleReceiveRatio()).willReturn(0.05);
+		assertThat(this.policy.shouldScaleUp(this.metrics)).isTrue();
+	}
+
+	@Test
+	void noScaleUpWithIdleConsumers() {
+		given(this.metrics.getIdleReceiveRatio()).willReturn(0.05);
+		given(this.metrics.getAverageQueueLatency()).willReturn(2000.0);
+		given(this.metrics.getIdleConsumerCount()).willReturn(1);
+		assertThat(this.policy.shouldScaleUp(this.metrics)).isFalse();
+	}
+
+	@Test
+	void scaleDownWhenIdle() {
+		given(this.metrics.getIdleReceiveRatio()).willReturn(0.8);
+		assertThat(this.policy.shouldScaleDown(this.metrics, 1)).isFalse();
+		assertThat(this.policy.shouldScaleDown(this.metrics, 2)).isTrue();
+
+		given(this.metrics.getIdleReceiveRatio()).willReturn(0.2);
+		assertThat(this.policy.shouldScaleDown(this.metrics, 2)).isFalse();
+	}
+
+	@Test
+	void noScaleDownShortlyAfterScalingEvent() {
+		given(this.metrics.getIdleReceiveRatio()).willReturn(0.8);
+		given(this.metrics.getLastScalingTimestamp()).willReturn(System.currentTimeMillis());
+		assertThat(this.policy.shouldScaleDown(this.metrics, 5)).isFalse();
+
+		this.policy.setScaleDownDelay(0);
+		assertThat(this.policy.shouldScaleDown(this.metrics, 5)).isTrue();
+	}
+
+}
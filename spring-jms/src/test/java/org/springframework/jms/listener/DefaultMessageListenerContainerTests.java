@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.jms.listener;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -23,17 +27,28 @@ import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jms.StubTextMessage;
+import org.springframework.jms.config.MethodJmsListenerEndpoint;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.backoff.BackOff;
 import org.springframework.util.backoff.BackOffExecution;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -106,6 +121,138 @@ public class DefaultMessageListenerContainerTests {
 		runnable2.waitForCompletion();
 	}
 
+	@Test
+	public void batchListenerReceivesMessagesWithinSingleTransaction() throws JMSException {
+		Message message1 = mock(Message.class);
+		Message message2 = mock(Message.class);
+		Message message3 = mock(Message.class);
+		Session session = mock(Session.class);
+		given(session.getTransacted()).willReturn(true);
+		MessageConsumer consumer = mock(MessageConsumer.class);
+		given(consumer.receive(1000L)).willReturn(message1);
+		given(consumer.receiveNoWait()).willReturn(message2, message3, null);
+
+		List<List<Message>> batches = new ArrayList<>();
+		DefaultMessageListenerContainer container = createBatchContainer(5);
+		container.setMessageListener((BatchMessageListener) (messages, s) -> batches.add(new ArrayList<>(messages)));
+
+		assertThat(container.receiveAndExecute(new Object(), session, consumer)).isTrue();
+		assertThat(batches).containsExactly(Arrays.asList(message1, message2, message3));
+		verify(session).commit();
+	}
+
+	@Test
+	public void batchOfMessagesDispatchedToStandardListener() throws JMSException {
+		Message message1 = mock(Message.class);
+		Message message2 = mock(Message.class);
+		Session session = mock(Session.class);
+		given(session.getTransacted()).willReturn(true);
+		MessageConsumer consumer = mock(MessageConsumer.class);
+		given(consumer.receive(1000L)).willReturn(message1);
+		given(consumer.receiveNoWait()).willReturn(message2);
+
+		List<Message> received = new ArrayList<>();
+		DefaultMessageListenerContainer container = createBatchContainer(2);
+		container.setMessageListener((MessageListener) received::add);
+
+		assertThat(container.receiveAndExecute(new Object(), session, consumer)).isTrue();
+		assertThat(received).containsExactly(message1, message2);
+		verify(session).commit();
+	}
+
+	@Test
+	public void batchRolledBackOnListenerException() throws JMSException {
+		Session session = mock(Session.class);
+		given(session.getTransacted()).willReturn(true);
+		MessageConsumer consumer = mock(MessageConsumer.class);
+		given(consumer.receive(1000L)).willReturn(mock(Message.class));
+		given(consumer.receiveNoWait()).willReturn(mock(Message.class), (Message) null);
+
+		DefaultMessageListenerContainer container = createBatchContainer(5);
+		container.setMessageListener((BatchMessageListener) (messages, s) -> {
+			throw new IllegalStateException("Test exception");
+		});
+
+		assertThat(container.receiveAndExecute(new Object(), session, consumer)).isTrue();
+		verify(session).rollback();
+		verify(session, never()).commit();
+	}
+
+	@Test
+	public void batchListenerMethodReceivesSingleElementBatchWithBatchSizeOfOne() throws JMSException {
+		Session session = mock(Session.class);
+		given(session.getTransacted()).willReturn(true);
+		MessageConsumer consumer = mock(MessageConsumer.class);
+		given(consumer.receive(1000L)).willReturn(new StubTextMessage("a,b"));
+
+		DefaultMessageHandlerMethodFactory factory = new DefaultMessageHandlerMethodFactory();
+		factory.setBeanFactory(new StaticListableBeanFactory());
+		factory.afterPropertiesSet();
+		BatchListenerBean bean = new BatchListenerBean();
+		MethodJmsListenerEndpoint endpoint = new MethodJmsListenerEndpoint();
+		endpoint.setBean(bean);
+		endpoint.setMethod(ReflectionUtils.findMethod(BatchListenerBean.class, "handle", List.class));
+		endpoint.setMessageHandlerMethodFactory(factory);
+		endpoint.setBatchListener(true);
+		DefaultMessageListenerContainer container = createBatchContainer(1);
+		endpoint.setupListenerContainer(container);
+
+		assertThat(container.receiveAndExecute(new Object(), session, consumer)).isTrue();
+		assertThat(bean.batches).containsExactly(Collections.singletonList("a,b"));
+		verify(session).commit();
+	}
+
+	@Test
+	public void consumerMetricsRecordedForProcessedMessages() throws JMSException {
+		Message message = mock(Message.class);
+		given(message.getJMSTimestamp()).willReturn(System.currentTimeMillis() - 500);
+		Session session = mock(Session.class);
+		MessageConsumer consumer = mock(MessageConsumer.class);
+		given(consumer.receive(1000L)).willReturn(message);
+
+		DefaultMessageListenerContainer container = createBatchContainer(1);
+		container.setMessageListener((MessageListener) msg -> {});
+		ConsumerMetrics metrics = container.getConsumerMetrics();
+		assertThat(metrics.getProcessedMessageCount()).isEqualTo(0);
+
+		container.receiveAndExecute(new Object(), session, consumer);
+		assertThat(metrics.getProcessedMessageCount()).isEqualTo(1);
+		assertThat(metrics.getAverageQueueLatency()).isGreaterThanOrEqualTo(500);
+		assertThat(metrics.getAverageProcessingTime()).isGreaterThanOrEqualTo(0);
+		assertThat(metrics.getScaleUpCount()).isEqualTo(0);
+		assertThat(metrics.getScaleDownCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void consumerScalingPolicyConsultedForScaleUp() {
+		ConsumerScalingPolicy policy = mock(ConsumerScalingPolicy.class);
+		given(policy.shouldScaleUp(any())).willReturn(true, false);
+
+		DefaultMessageListenerContainer container = createRunningContainer(policy);
+		container.scheduleNewInvokerIfAppropriate();
+		container.scheduleNewInvokerIfAppropriate();
+
+		assertThat(container.getScheduledConsumerCount()).isEqualTo(2);
+		assertThat(container.getConsumerMetrics().getScaleUpCount()).isEqualTo(1);
+		assertThat(container.getConsumerMetrics().getLastScalingTimestamp()).isGreaterThan(0);
+		verify(policy, times(2)).shouldScaleUp(container.getConsumerMetrics());
+		container.shutdown();
+	}
+
+
+	private DefaultMessageListenerContainer createBatchContainer(int batchSize) {
+		DefaultMessageListenerContainer container = new DefaultMessageListenerContainer() {
+			@Override
+			protected void messageReceived(Object invoker, Session session) {
+			}
+		};
+		container.setConnectionFactory(mock(ConnectionFactory.class));
+		container.setDestination(new Destination() {});
+		container.setSessionTransacted(true);
+		container.setAcceptMessagesWhileStopping(true);
+		container.setBatchSize(batchSize);
+		return container;
+	}
 
 	private DefaultMessageListenerContainer createRunningContainer() {
 		DefaultMessageListenerContainer container = createContainer(createSuccessfulConnectionFactory());
@@ -114,6 +261,16 @@ public class DefaultMessageListenerContainerTests {
 		return container;
 	}
 
+	private DefaultMessageListenerContainer createRunningContainer(ConsumerScalingPolicy policy) {
+		DefaultMessageListenerContainer container = createContainer(createSuccessfulConnectionFactory());
+		container.setMaxConcurrentConsumers(3);
+		container.setConsumerScalingPolicy(policy);
+		container.setTaskExecutor(task -> {});
+		container.afterPropertiesSet();
+		container.start();
+		return container;
+	}
+
 	private DefaultMessageListenerContainer createContainer(ConnectionFactory connectionFactory) {
 		Destination destination = new Destination() {};
 
@@ -172,6 +329,17 @@ public class DefaultMessageListenerContainerTests {
 	}
 
 
+	private static class BatchListenerBean {
+
+		final List<List<String>> batches = new ArrayList<>();
+
+		@SuppressWarnings("unused")
+		public void handle(List<String> payloads) {
+			this.batches.add(payloads);
+		}
+	}
+
+
 	private static class TestRunnable implements Runnable {
 
 		private final CountDownLatch countDownLatch = new CountDownLatch(1);
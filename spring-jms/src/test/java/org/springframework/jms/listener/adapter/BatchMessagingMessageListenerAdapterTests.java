@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jms.listener.adapter;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jms.StubTextMessage;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link BatchMessagingMessageListenerAdapter}.
+ */
+class BatchMessagingMessageListenerAdapterTests {
+
+	private final DefaultMessageHandlerMethodFactory factory = new DefaultMessageHandlerMethodFactory();
+
+	private final SampleBean sample = new SampleBean();
+
+	private final Session session = mock(Session.class);
+
+	private final List<javax.jms.Message> messages =
+			Arrays.asList(new StubTextMessage("first"), new StubTextMessage("second"));
+
+
+	@BeforeEach
+	void setup() {
+		this.factory.setBeanFactory(new StaticListableBeanFactory());
+		this.factory.afterPropertiesSet();
+	}
+
+
+	@Test
+	void payloads() throws JMSException {
+		createInstance("payloads").onMessageBatch(this.messages, this.session);
+		assertThat(this.sample.received).containsExactly("first", "second");
+	}
+
+	@Test
+	void jmsMessages() throws JMSException {
+		createInstance("jmsMessages").onMessageBatch(this.messages, this.session);
+		assertThat(this.sample.received).containsExactlyElementsOf(this.messages);
+		assertThat(this.sample.session).isSameAs(this.session);
+	}
+
+	@Test
+	void messagingMessages() throws JMSException {
+		createInstance("messagingMessages").onMessageBatch(this.messages, this.session);
+		assertThat(this.sample.received).hasSize(2);
+		assertThat(((Message<?>) this.sample.received.get(0)).getPayload()).isEqualTo("first");
+		assertThat(((Message<?>) this.sample.received.get(1)).getPayload()).isEqualTo("second");
+	}
+
+	@Test
+	void singleMessageProcessedAsBatch() throws JMSException {
+		createInstance("payloads").onMessage(new StubTextMessage("first,second"), this.session);
+		assertThat(this.sample.received).containsExactly("first,second");
+	}
+
+	@Test
+	void exceptionWrapped() {
+		BatchMessagingMessageListenerAdapter listener = createInstance("fail");
+		assertThatExceptionOfType(ListenerExecutionFailedException.class).isThrownBy(() ->
+				listener.onMessageBatch(this.messages, this.session))
+			.withCauseExactlyInstanceOf(IllegalArgumentException.class);
+	}
+
+
+	private BatchMessagingMessageListenerAdapter createInstance(String methodName) {
+		Method method = ReflectionUtils.findMethod(SampleBean.class, methodName, (Class<?>[]) null);
+		BatchMessagingMessageListenerAdapter adapter = new BatchMessagingMessageListenerAdapter();
+		adapter.setHandlerMethod(this.factory.createInvocableHandlerMethod(this.sample, method));
+		return adapter;
+	}
+
+
+	@SuppressWarnings("unused")
+	private static class SampleBean {
+
+		final List<Object> received = new ArrayList<>();
+
+		Session session;
+
+		public void payloads(List<String> payloads) {
+			this.received.addAll(payloads);
+		}
+
+		public void jmsMessages(List<javax.jms.Message> messages, Session session) {
+			this.received.addAll(messages);
+			this.session = session;
+		}
+
+		public void messagingMessages(List<Message<String>> messages) {
+			this.received.addAll(messages);
+		}
+
+		public void fail(List<String> payloads) {
+			throw new IllegalArgumentException("Expected test exception");
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,11 @@ package org.springframework.transaction.interceptor;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
@@ -28,6 +32,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.core.MethodClassKey;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Abstract implementation of {@link TransactionAttributeSource} that caches
@@ -45,6 +50,13 @@ import org.springframework.util.ClassUtils;
  * (which is very unlikely), caching could be made configurable. Caching is
  * desirable because of the cost of evaluating rollback rules.
  *
+ * <p>As of 5.2.19, once a transaction attribute has been found for a method
+ * of a target class, the attributes for all other methods of that class are
+ * computed as well and kept in a per-class table, which subsequent lookups
+ * consult without creating a {@link #getCacheKey cache key}. Classes without
+ * any transactional methods do not get such a table. Subclasses that
+ * override {@code getCacheKey} keep the key-based caching throughout.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @since 1.1
@@ -78,6 +90,17 @@ public abstract class AbstractFallbackTransactionAttributeSource implements Tran
 	 */
 	private final Map<Object, TransactionAttribute> attributeCache = new ConcurrentHashMap<>(1024);
 
+	/**
+	 * Immutable tables of TransactionAttributes for all methods of a target class,
+	 * keyed by target class.
+	 * <p>As this base class is not marked Serializable, the cache will be recreated
+	 * after serialization - provided that the concrete subclass is Serializable.
+	 */
+	private final Map<Class<?>, Map<Method, TransactionAttribute>> attributeTableCache = new ConcurrentHashMap<>(256);
+
+	/** Whether {@link #getCacheKey} has not been overridden, allowing for attribute tables. */
+	private final boolean attributeTablesEnabled = !isCacheKeyOverridden(getClass());
+
 
 	/**
 	 * Determine the transaction attribute for this method invocation.
@@ -94,7 +117,18 @@ public abstract class AbstractFallbackTransactionAttributeSource implements Tran
 			return null;
 		}
 
-		// First, see if we have a cached value.
+		// First, see if we have a precomputed value for the target class.
+		if (targetClass != null && this.attributeTablesEnabled) {
+			Map<Method, TransactionAttribute> attributeTable = this.attributeTableCache.get(targetClass);
+			if (attributeTable != null) {
+				TransactionAttribute cached = attributeTable.get(method);
+				if (cached != null) {
+					return (cached != NULL_TRANSACTION_ATTRIBUTE ? cached : null);
+				}
+			}
+		}
+
+		// Otherwise, see if we have a cached value.
 		Object cacheKey = getCacheKey(method, targetClass);
 		TransactionAttribute cached = this.attributeCache.get(cacheKey);
 		if (cached != null) {
@@ -109,23 +143,64 @@ public abstract class AbstractFallbackTransactionAttributeSource implements Tran
 		}
 		else {
 			// We need to work it out.
-			TransactionAttribute txAttr = computeTransactionAttribute(method, targetClass);
+			TransactionAttribute txAttr = resolveTransactionAttribute(method, targetClass);
 			// Put it in the cache.
-			if (txAttr == null) {
-				this.attributeCache.put(cacheKey, NULL_TRANSACTION_ATTRIBUTE);
+			this.attributeCache.put(cacheKey, txAttr);
+			if (txAttr != NULL_TRANSACTION_ATTRIBUTE && targetClass != null && this.attributeTablesEnabled &&
+					!this.attributeTableCache.containsKey(targetClass)) {
+				// The target class is transactional: work out all of its methods right away.
+				this.attributeTableCache.putIfAbsent(targetClass, buildAttributeTable(targetClass));
 			}
-			else {
-				String methodIdentification = ClassUtils.getQualifiedMethodName(method, targetClass);
-				if (txAttr instanceof DefaultTransactionAttribute) {
-					((DefaultTransactionAttribute) txAttr).setDescriptor(methodIdentification);
+			return (txAttr != NULL_TRANSACTION_ATTRIBUTE ? txAttr : null);
+		}
+	}
+
+	/**
+	 * Compute the transaction attributes of all methods that may get invoked on
+	 * the given transactional target class, including inherited and interface
+	 * methods. A method whose attribute cannot be determined is left out, so that
+	 * the exception gets reported when that method is actually looked up.
+	 */
+	private Map<Method, TransactionAttribute> buildAttributeTable(Class<?> targetClass) {
+		Set<Method> methods = new LinkedHashSet<>();
+		Collections.addAll(methods, ReflectionUtils.getAllDeclaredMethods(targetClass));
+		for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+			Collections.addAll(methods, ifc.getMethods());
+		}
+		Map<Method, TransactionAttribute> attributeTable = new HashMap<>(methods.size() * 2);
+		for (Method method : methods) {
+			if (method.getDeclaringClass() != Object.class) {
+				try {
+					attributeTable.put(method, resolveTransactionAttribute(method, targetClass));
 				}
-				if (logger.isTraceEnabled()) {
-					logger.trace("Adding transactional method '" + methodIdentification + "' with attribute: " + txAttr);
+				catch (RuntimeException ex) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Failed to precompute transaction attribute for method '" +
+								ClassUtils.getQualifiedMethodName(method, targetClass) + "': " + ex);
+					}
 				}
-				this.attributeCache.put(cacheKey, txAttr);
 			}
-			return txAttr;
 		}
+		return Collections.unmodifiableMap(attributeTable);
+	}
+
+	/**
+	 * Compute the transaction attribute for the given method and target class,
+	 * returning the canonical {@code NULL_TRANSACTION_ATTRIBUTE} if none found.
+	 */
+	private TransactionAttribute resolveTransactionAttribute(Method method, @Nullable Class<?> targetClass) {
+		TransactionAttribute txAttr = computeTransactionAttribute(method, targetClass);
+		if (txAttr == null) {
+			return NULL_TRANSACTION_ATTRIBUTE;
+		}
+		String methodIdentification = ClassUtils.getQualifiedMethodName(method, targetClass);
+		if (txAttr instanceof DefaultTransactionAttribute) {
+			((DefaultTransactionAttribute) txAttr).setDescriptor(methodIdentification);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Adding transactional method '" + methodIdentification + "' with attribute: " + txAttr);
+		}
+		return txAttr;
 	}
 
 	/**
@@ -140,6 +215,11 @@ public abstract class AbstractFallbackTransactionAttributeSource implements Tran
 		return new MethodClassKey(method, targetClass);
 	}
 
+	private static boolean isCacheKeyOverridden(Class<?> sourceClass) {
+		Method method = ReflectionUtils.findMethod(sourceClass, "getCacheKey", Method.class, Class.class);
+		return (method != null && method.getDeclaringClass() != AbstractFallbackTransactionAttributeSource.class);
+	}
+
 	/**
 	 * Same signature as {@link #getTransactionAttribute}, but doesn't cache the result.
 	 * {@link #getTransactionAttribute} is effectively a caching decorator for this method.
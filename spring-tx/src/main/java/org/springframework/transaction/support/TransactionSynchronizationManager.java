@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,6 +64,11 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>As of 5.2.19, all of this state is held in a single {@link ThreadState}
+ * object per thread, which can be detached from the current thread and attached
+ * to another one via {@link #getCurrentState()} and {@link #setCurrentState},
+ * e.g. for handing over a transaction to a different thread or continuation.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +83,60 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
+	private static final ThreadLocal<ThreadState> currentState =
+			new NamedThreadLocal<>("Transaction synchronization state");
 
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
 
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
+	/**
+	 * Return the state object that holds the transactional resources,
+	 * synchronizations and transaction characteristics of the current thread.
+	 * <p>The returned object is live, not a snapshot: it may be handed to
+	 * {@link #setCurrentState} on a different thread in order to continue
+	 * the transaction there, provided that the current thread does not touch
+	 * the state anymore (typically after {@code setCurrentState(null)}).
+	 * @return the current state, or {@code null} if none bound
+	 * @since 5.2.19
+	 */
+	@Nullable
+	public static ThreadState getCurrentState() {
+		return currentState.get();
+	}
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
+	/**
+	 * Bind the given state object, as obtained from {@link #getCurrentState()},
+	 * to the current thread, replacing any state that is currently bound.
+	 * @param state the state to bind, or {@code null} to unbind the current state
+	 * @since 5.2.19
+	 */
+	public static void setCurrentState(@Nullable ThreadState state) {
+		if (state != null && !state.isEmpty()) {
+			currentState.set(state);
+		}
+		else {
+			currentState.remove();
+		}
+	}
 
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
+	/**
+	 * Return the state for the current thread, creating and binding it if necessary.
+	 */
+	private static ThreadState obtainState() {
+		ThreadState state = currentState.get();
+		if (state == null) {
+			state = new ThreadState();
+			currentState.set(state);
+		}
+		return state;
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Remove the state for the current thread if it does not hold anything anymore.
+	 */
+	private static void removeStateIfEmpty(ThreadState state) {
+		if (state.isEmpty()) {
+			currentState.remove();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -111,7 +153,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
+		ThreadState state = currentState.get();
+		Map<Object, Object> map = (state != null ? state.resources : null);
 		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
 	}
 
@@ -150,7 +193,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
+		ThreadState state = currentState.get();
+		Map<Object, Object> map = (state != null ? state.resources : null);
 		if (map == null) {
 			return null;
 		}
@@ -158,9 +202,10 @@ public abstract class TransactionSynchronizationManager {
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			map.remove(actualKey);
-			// Remove entire ThreadLocal if empty...
+			// Remove entire resource Map if empty...
 			if (map.isEmpty()) {
-				resources.remove();
+				state.resources = null;
+				removeStateIfEmpty(state);
 			}
 			value = null;
 		}
@@ -177,11 +222,12 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
+		ThreadState state = obtainState();
+		Map<Object, Object> map = state.resources;
+		// set resource Map if none found
 		if (map == null) {
 			map = new HashMap<>();
-			resources.set(map);
+			state.resources = map;
 		}
 		Object oldValue = map.put(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
@@ -231,14 +277,16 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
+		ThreadState state = currentState.get();
+		Map<Object, Object> map = (state != null ? state.resources : null);
 		if (map == null) {
 			return null;
 		}
 		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
+		// Remove entire resource Map if empty...
 		if (map.isEmpty()) {
-			resources.remove();
+			state.resources = null;
+			removeStateIfEmpty(state);
 		}
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
@@ -262,7 +310,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		ThreadState state = currentState.get();
+		return (state != null && state.synchronizations != null);
 	}
 
 	/**
@@ -275,7 +324,7 @@ public abstract class TransactionSynchronizationManager {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		obtainState().synchronizations = new LinkedHashSet<>();
 	}
 
 	/**
@@ -292,7 +341,8 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		Set<TransactionSynchronization> synchs = synchronizations.get();
+		ThreadState state = currentState.get();
+		Set<TransactionSynchronization> synchs = (state != null ? state.synchronizations : null);
 		if (synchs == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
@@ -307,7 +357,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
+		ThreadState state = currentState.get();
+		Set<TransactionSynchronization> synchs = (state != null ? state.synchronizations : null);
 		if (synchs == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
@@ -335,7 +386,9 @@ public abstract class TransactionSynchronizationManager {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		ThreadState state = obtainState();
+		state.synchronizations = null;
+		removeStateIfEmpty(state);
 	}
 
 
@@ -350,7 +403,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		if (name != null) {
+			obtainState().transactionName = name;
+		}
+		else {
+			ThreadState state = currentState.get();
+			if (state != null) {
+				state.transactionName = null;
+				removeStateIfEmpty(state);
+			}
+		}
 	}
 
 	/**
@@ -361,7 +423,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		ThreadState state = currentState.get();
+		return (state != null ? state.transactionName : null);
 	}
 
 	/**
@@ -372,7 +435,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		if (readOnly) {
+			obtainState().readOnly = true;
+		}
+		else {
+			ThreadState state = currentState.get();
+			if (state != null) {
+				state.readOnly = false;
+				removeStateIfEmpty(state);
+			}
+		}
 	}
 
 	/**
@@ -388,7 +460,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		ThreadState state = currentState.get();
+		return (state != null && state.readOnly);
 	}
 
 	/**
@@ -408,7 +481,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		if (isolationLevel != null) {
+			obtainState().isolationLevel = isolationLevel;
+		}
+		else {
+			ThreadState state = currentState.get();
+			if (state != null) {
+				state.isolationLevel = null;
+				removeStateIfEmpty(state);
+			}
+		}
 	}
 
 	/**
@@ -430,7 +512,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		ThreadState state = currentState.get();
+		return (state != null ? state.isolationLevel : null);
 	}
 
 	/**
@@ -440,7 +523,16 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		if (active) {
+			obtainState().actualTransactionActive = true;
+		}
+		else {
+			ThreadState state = currentState.get();
+			if (state != null) {
+				state.actualTransactionActive = false;
+				removeStateIfEmpty(state);
+			}
+		}
 	}
 
 	/**
@@ -455,7 +547,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		ThreadState state = currentState.get();
+		return (state != null && state.actualTransactionActive);
 	}
 
 
@@ -469,11 +562,51 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		ThreadState state = currentState.get();
+		if (state != null) {
+			state.synchronizations = null;
+			state.transactionName = null;
+			state.readOnly = false;
+			state.isolationLevel = null;
+			state.actualTransactionActive = false;
+			removeStateIfEmpty(state);
+		}
+	}
+
+
+	/**
+	 * Holder for the transactional resources, synchronizations and transaction
+	 * characteristics of a thread, bound to the thread as a whole.
+	 * <p>Opaque to callers: to be obtained via {@link #getCurrentState()}
+	 * and rebound via {@link #setCurrentState}. Not thread-safe: a state object
+	 * must only be bound to one thread at a time.
+	 * @since 5.2.19
+	 */
+	public static final class ThreadState {
+
+		@Nullable
+		private Map<Object, Object> resources;
+
+		@Nullable
+		private Set<TransactionSynchronization> synchronizations;
+
+		@Nullable
+		private String transactionName;
+
+		private boolean readOnly;
+
+		@Nullable
+		private Integer isolationLevel;
+
+		private boolean actualTransactionActive;
+
+		private ThreadState() {
+		}
+
+		private boolean isEmpty() {
+			return (this.resources == null && this.synchronizations == null && this.transactionName == null &&
+					!this.readOnly && this.isolationLevel == null && !this.actualTransactionActive);
+		}
 	}
 
 }
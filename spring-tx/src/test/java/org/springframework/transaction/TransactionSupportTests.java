@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.transaction;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -269,6 +271,46 @@ public class TransactionSupportTests {
 		assertThat(template.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ).as("Correct isolation level set").isTrue();
 	}
 
+	@Test
+	public void transactionStateHandedOverToOtherThread() throws Exception {
+		TestTransactionManager tm = new TestTransactionManager(false, true);
+		TransactionTemplate template = new TransactionTemplate(tm);
+		template.setName("handover");
+		template.setReadOnly(true);
+		AtomicReference<String> nameOnOtherThread = new AtomicReference<>();
+
+		template.executeWithoutResult(status -> {
+			TransactionSynchronizationManager.ThreadState state = TransactionSynchronizationManager.getCurrentState();
+			assertThat(state).isNotNull();
+			TransactionSynchronizationManager.setCurrentState(null);
+			assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+			assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+
+			Thread thread = new Thread(() -> {
+				TransactionSynchronizationManager.setCurrentState(state);
+				if (TransactionSynchronizationManager.isActualTransactionActive() &&
+						TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+					nameOnOtherThread.set(TransactionSynchronizationManager.getCurrentTransactionName());
+				}
+				TransactionSynchronizationManager.setCurrentState(null);
+			});
+			thread.start();
+			try {
+				thread.join();
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+
+			TransactionSynchronizationManager.setCurrentState(state);
+			assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+		});
+
+		assertThat(nameOnOtherThread.get()).isEqualTo("handover");
+		assertThat(tm.commit).isTrue();
+		assertThat(TransactionSynchronizationManager.getCurrentState()).isNull();
+	}
+
 	@Test
 	public void transactionTemplateEquality() {
 		TestTransactionManager tm1 = new TestTransactionManager(false, true);
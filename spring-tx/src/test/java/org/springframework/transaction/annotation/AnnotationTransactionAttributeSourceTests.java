@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,9 @@ import java.io.Serializable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ejb.TransactionAttributeType;
 
@@ -32,6 +35,7 @@ import org.springframework.aop.framework.Advised;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
 import org.springframework.transaction.interceptor.RollbackRuleAttribute;
 import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
@@ -83,6 +87,59 @@ public class AnnotationTransactionAttributeSourceTests {
 		assertThat(atas.getTransactionAttribute(method, null)).isNull();
 	}
 
+	@Test
+	public void transactionAttributesPrecomputedForTransactionalTargetClass() throws Exception {
+		AtomicInteger lookups = new AtomicInteger();
+		AnnotationTransactionAttributeSource atas = new AnnotationTransactionAttributeSource() {
+			@Override
+			protected TransactionAttribute findTransactionAttribute(Method method) {
+				lookups.incrementAndGet();
+				return super.findTransactionAttribute(method);
+			}
+		};
+
+		TransactionAttribute actual = atas.getTransactionAttribute(ITestBean1.class.getMethod("getAge"), TestBean1.class);
+		assertThat(actual).isNotNull();
+		int lookupsForTargetClass = lookups.get();
+
+		assertThat(atas.getTransactionAttribute(ITestBean1.class.getMethod("getName"), TestBean1.class)).isNull();
+		assertThat(atas.getTransactionAttribute(TestBean1.class.getMethod("getAge"), TestBean1.class)).isSameAs(
+				atas.getTransactionAttribute(TestBean1.class.getMethod("getAge"), TestBean1.class));
+		assertThat(lookups.get()).isEqualTo(lookupsForTargetClass);
+	}
+
+	@Test
+	public void transactionAttributesNotPrecomputedForNonTransactionalTargetClass() throws Exception {
+		Set<String> lookedUpMethods = new HashSet<>();
+		AnnotationTransactionAttributeSource atas = new AnnotationTransactionAttributeSource() {
+			@Override
+			protected TransactionAttribute findTransactionAttribute(Method method) {
+				lookedUpMethods.add(method.getName());
+				return super.findTransactionAttribute(method);
+			}
+		};
+
+		assertThat(atas.getTransactionAttribute(ITestBean1.class.getMethod("getAge"), Empty.class)).isNull();
+		assertThat(lookedUpMethods).containsExactly("getAge");
+	}
+
+	@Test
+	public void transactionAttributesNotPrecomputedWithCustomCacheKey() throws Exception {
+		AtomicInteger cacheKeys = new AtomicInteger();
+		AnnotationTransactionAttributeSource atas = new AnnotationTransactionAttributeSource() {
+			@Override
+			protected Object getCacheKey(Method method, @Nullable Class<?> targetClass) {
+				cacheKeys.incrementAndGet();
+				return super.getCacheKey(method, targetClass);
+			}
+		};
+
+		Method method = ITestBean1.class.getMethod("getAge");
+		assertThat(atas.getTransactionAttribute(method, TestBean1.class)).isNotNull();
+		assertThat(atas.getTransactionAttribute(method, TestBean1.class)).isNotNull();
+		assertThat(cacheKeys.get()).isEqualTo(2);
+	}
+
 	/**
 	 * Test the important case where the invocation is on a proxied interface method
 	 * but the attribute is defined on the target class.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,14 +18,21 @@ package org.springframework.http.codec;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.CodecException;
@@ -61,6 +68,10 @@ public class ServerSentEventHttpMessageWriter implements HttpMessageWriter<Objec
 	@Nullable
 	private final Encoder<?> encoder;
 
+	private int maxEventsPerFlush = 1;
+
+	private Duration maxFlushDelay = Duration.ofMillis(50);
+
 
 	/**
 	 * Constructor without an {@code Encoder}. In this mode only {@code String}
@@ -88,6 +99,58 @@ public class ServerSentEventHttpMessageWriter implements HttpMessageWriter<Objec
 		return this.encoder;
 	}
 
+	/**
+	 * Set the maximum number of events to coalesce into a single write and
+	 * flush. By default this is 1, i.e. every event is written and flushed
+	 * on its own.
+	 * <p>With a value greater than 1, consecutive events are joined into one
+	 * buffer which is written and flushed once the given number of events
+	 * has been encoded, or once the {@link #setMaxFlushDelay max flush delay}
+	 * has elapsed, whichever comes first. This reduces the number of flushes
+	 * (and hence syscalls) for high-rate event streams at the expense of a
+	 * bounded delay for individual events.
+	 * <p>Coalesced events are only written upon demand from the response, so
+	 * that backpressure is honored: while the client does not keep up, at most
+	 * the given number of events is held back, and no further events are
+	 * requested from the source.
+	 * @param maxEventsPerFlush the maximum number of events per flush
+	 * @since 5.2.19
+	 * @see #setMaxFlushDelay(Duration)
+	 */
+	public void setMaxEventsPerFlush(int maxEventsPerFlush) {
+		Assert.isTrue(maxEventsPerFlush > 0, "'maxEventsPerFlush' must be greater than 0");
+		this.maxEventsPerFlush = maxEventsPerFlush;
+	}
+
+	/**
+	 * Return the configured {@link #setMaxEventsPerFlush maxEventsPerFlush}.
+	 * @since 5.2.19
+	 */
+	public int getMaxEventsPerFlush() {
+		return this.maxEventsPerFlush;
+	}
+
+	/**
+	 * Set the maximum time to hold back encoded events before flushing them
+	 * when {@link #setMaxEventsPerFlush coalescing} events.
+	 * <p>By default this is 50 milliseconds.
+	 * @param maxFlushDelay the maximum delay before a flush
+	 * @since 5.2.19
+	 */
+	public void setMaxFlushDelay(Duration maxFlushDelay) {
+		Assert.notNull(maxFlushDelay, "'maxFlushDelay' must not be null");
+		Assert.isTrue(!maxFlushDelay.isNegative() && !maxFlushDelay.isZero(), "'maxFlushDelay' must be positive");
+		this.maxFlushDelay = maxFlushDelay;
+	}
+
+	/**
+	 * Return the configured {@link #setMaxFlushDelay maxFlushDelay}.
+	 * @since 5.2.19
+	 */
+	public Duration getMaxFlushDelay() {
+		return this.maxFlushDelay;
+	}
+
 	@Override
 	public List<MediaType> getWritableMediaTypes() {
 		return WRITABLE_MEDIA_TYPES;
@@ -108,7 +171,24 @@ public class ServerSentEventHttpMessageWriter implements HttpMessageWriter<Objec
 		DataBufferFactory bufferFactory = message.bufferFactory();
 
 		message.getHeaders().setContentType(mediaType);
-		return message.writeAndFlushWith(encode(input, elementType, mediaType, bufferFactory, hints));
+		Flux<Publisher<DataBuffer>> events = encode(input, elementType, mediaType, bufferFactory, hints);
+		if (this.maxEventsPerFlush > 1) {
+			events = coalesce(events, bufferFactory);
+		}
+		return message.writeAndFlushWith(events);
+	}
+
+	/**
+	 * Join consecutive events into one buffer per flush, according to the
+	 * {@link #setMaxEventsPerFlush maxEventsPerFlush} and
+	 * {@link #setMaxFlushDelay maxFlushDelay} settings.
+	 */
+	Flux<Publisher<DataBuffer>> coalesce(Flux<Publisher<DataBuffer>> events, DataBufferFactory bufferFactory) {
+		int maxEvents = this.maxEventsPerFlush;
+		long maxDelayMillis = this.maxFlushDelay.toMillis();
+		Flux<DataBuffer> buffers = events.concatMap(event -> event, maxEvents);
+		return Flux.create(sink ->
+				buffers.subscribe(new CoalescingSubscriber(sink, bufferFactory, maxEvents, maxDelayMillis)));
 	}
 
 	private Flux<Publisher<DataBuffer>> encode(Publisher<?> input, ResolvableType elementType,
@@ -204,4 +284,133 @@ public class ServerSentEventHttpMessageWriter implements HttpMessageWriter<Objec
 		return Hints.none();
 	}
 
+
+	/**
+	 * Subscriber that collects encoded events into batches and emits a batch,
+	 * joined into a single buffer, once it is full, the maximum delay since its
+	 * first event has elapsed, or the source has completed - but only if there
+	 * is demand. No more than {@code maxEvents} events are requested from the
+	 * source beyond those emitted, so a timer firing without demand never
+	 * leads to an overflow.
+	 */
+	private static class CoalescingSubscriber extends BaseSubscriber<DataBuffer> {
+
+		private final FluxSink<Publisher<DataBuffer>> sink;
+
+		private final DataBufferFactory bufferFactory;
+
+		private final int maxEvents;
+
+		private final long maxDelayMillis;
+
+		private List<DataBuffer> batch;
+
+		// Incremented for every emitted batch, to ignore timers of previous batches
+		private long batchNumber;
+
+		private boolean delayElapsed;
+
+		private boolean sourceCompleted;
+
+		private boolean disposed;
+
+		@Nullable
+		private Disposable timer;
+
+		CoalescingSubscriber(FluxSink<Publisher<DataBuffer>> sink, DataBufferFactory bufferFactory,
+				int maxEvents, long maxDelayMillis) {
+
+			this.sink = sink;
+			this.bufferFactory = bufferFactory;
+			this.maxEvents = maxEvents;
+			this.maxDelayMillis = maxDelayMillis;
+			this.batch = new ArrayList<>(maxEvents);
+			sink.onRequest(n -> drain());
+			sink.onDispose(this::release);
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			request(this.maxEvents);
+		}
+
+		@Override
+		protected void hookOnNext(DataBuffer buffer) {
+			synchronized (this) {
+				if (this.disposed) {
+					DataBufferUtils.release(buffer);
+					return;
+				}
+				this.batch.add(buffer);
+				if (this.batch.size() == 1) {
+					long currentBatch = this.batchNumber;
+					this.timer = Schedulers.parallel().schedule(
+							() -> onDelayElapsed(currentBatch), this.maxDelayMillis, TimeUnit.MILLISECONDS);
+				}
+			}
+			drain();
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			synchronized (this) {
+				this.sourceCompleted = true;
+			}
+			drain();
+		}
+
+		@Override
+		protected void hookOnError(Throwable ex) {
+			release();
+			this.sink.error(ex);
+		}
+
+		private void onDelayElapsed(long expiredBatch) {
+			synchronized (this) {
+				if (expiredBatch != this.batchNumber) {
+					return;
+				}
+				this.delayElapsed = true;
+			}
+			drain();
+		}
+
+		private synchronized void drain() {
+			if (this.disposed) {
+				return;
+			}
+			if (!this.batch.isEmpty() && this.sink.requestedFromDownstream() > 0 &&
+					(this.batch.size() >= this.maxEvents || this.delayElapsed || this.sourceCompleted)) {
+				List<DataBuffer> buffers = this.batch;
+				this.batch = new ArrayList<>(this.maxEvents);
+				this.batchNumber++;
+				this.delayElapsed = false;
+				disposeTimer();
+				DataBuffer joined = (buffers.size() == 1 ? buffers.get(0) : this.bufferFactory.join(buffers));
+				this.sink.next(Mono.just(joined));
+				if (!this.sourceCompleted) {
+					request(buffers.size());
+				}
+			}
+			if (this.sourceCompleted && this.batch.isEmpty() && !this.disposed) {
+				this.sink.complete();
+			}
+		}
+
+		private synchronized void release() {
+			this.disposed = true;
+			dispose();
+			disposeTimer();
+			this.batch.forEach(DataBufferUtils::release);
+			this.batch.clear();
+		}
+
+		private void disposeTimer() {
+			if (this.timer != null) {
+				this.timer.dispose();
+				this.timer = null;
+			}
+		}
+	}
+
 }
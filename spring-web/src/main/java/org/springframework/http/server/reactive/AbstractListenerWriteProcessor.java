@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -218,6 +218,31 @@ public abstract class AbstractListenerWriteProcessor<T> implements Processor<T,
 	 */
 	protected abstract boolean write(T data) throws IOException;
 
+	/**
+	 * Whether data from previously written items is held back by the sub-class,
+	 * e.g. in order to aggregate small items into a single write, and needs to
+	 * be written via {@link #writePendingData()} before completing.
+	 * <p>The default implementation returns {@code false}.
+	 * @since 5.2.19
+	 */
+	protected boolean isDataPending() {
+		return false;
+	}
+
+	/**
+	 * Write data held back from previously written items. Invoked after the
+	 * upstream, write Publisher has completed, and only if
+	 * {@link #isDataPending()} returns {@code true}.
+	 * <p>The default implementation is a no-op that returns {@code true}.
+	 * @return {@code true} if the pending data was written completely, or
+	 * {@code false} if it was written partially and we'll need more write
+	 * callbacks before it is fully written
+	 * @since 5.2.19
+	 */
+	protected boolean writePendingData() throws IOException {
+		return true;
+	}
+
 	/**
 	 * Invoked after the current data has been written and before requesting
 	 * the next item from the upstream, write Publisher.
@@ -284,6 +309,16 @@ public abstract class AbstractListenerWriteProcessor<T> implements Processor<T,
 		}
 	}
 
+	private void changeStateToCompleteAfterPendingData(State oldState) {
+		if (isDataPending()) {
+			this.readyToCompleteAfterLastWrite = true;
+			changeStateToReceived(oldState);
+		}
+		else {
+			changeStateToComplete(oldState);
+		}
+	}
+
 	private void writeIfPossible() {
 		boolean result = isWritePossible();
 		if (!result && rsWriteLogger.isTraceEnabled()) {
@@ -365,7 +400,22 @@ public abstract class AbstractListenerWriteProcessor<T> implements Processor<T,
 			@Override
 			public <T> void onWritePossible(AbstractListenerWriteProcessor<T> processor) {
 				if (processor.readyToCompleteAfterLastWrite) {
-					processor.changeStateToComplete(RECEIVED);
+					if (!processor.isDataPending()) {
+						processor.changeStateToComplete(RECEIVED);
+					}
+					else if (processor.changeState(this, WRITING)) {
+						try {
+							if (processor.writePendingData()) {
+								processor.changeStateToComplete(WRITING);
+							}
+							else {
+								processor.changeStateToReceived(WRITING);
+							}
+						}
+						catch (IOException ex) {
+							processor.writingFailed(ex);
+						}
+					}
 				}
 				else if (processor.changeState(this, WRITING)) {
 					T data = processor.currentData;
@@ -400,7 +450,7 @@ public abstract class AbstractListenerWriteProcessor<T> implements Processor<T,
 				processor.subscriberCompleted = true;
 				// A competing write might have completed very quickly
 				if (processor.state.get().equals(State.REQUESTED)) {
-					processor.changeStateToComplete(State.REQUESTED);
+					processor.changeStateToCompleteAfterPendingData(State.REQUESTED);
 				}
 			}
 		},
@@ -411,7 +461,7 @@ public abstract class AbstractListenerWriteProcessor<T> implements Processor<T,
 				processor.subscriberCompleted = true;
 				// A competing write might have completed very quickly
 				if (processor.state.get().equals(State.REQUESTED)) {
-					processor.changeStateToComplete(State.REQUESTED);
+					processor.changeStateToCompleteAfterPendingData(State.REQUESTED);
 				}
 			}
 		},
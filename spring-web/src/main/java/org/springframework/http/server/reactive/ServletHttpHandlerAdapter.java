@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -68,6 +68,8 @@ public class ServletHttpHandlerAdapter implements Servlet {
 
 	private int bufferSize = DEFAULT_BUFFER_SIZE;
 
+	private int writeAggregationSize = 0;
+
 	@Nullable
 	private String servletPath;
 
@@ -96,6 +98,32 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.bufferSize;
 	}
 
+	/**
+	 * Set the size in bytes below which response body buffers are aggregated
+	 * into a single buffer, rather than written to the Servlet container one
+	 * by one. Aggregated data is written once the given size would be exceeded,
+	 * when the body (or the part of it that is to be flushed) is complete, or
+	 * when no further buffer follows right away, so that data produced with
+	 * a delay, as in a streaming response, is not held back.
+	 * <p>This is useful for responses made up of many small buffers, avoiding
+	 * a container write call per buffer. The value should not exceed the
+	 * response buffer size of the Servlet container.
+	 * <p>By default this is set to 0, i.e. no aggregation.
+	 * @since 5.2.19
+	 */
+	public void setWriteAggregationSize(int writeAggregationSize) {
+		Assert.isTrue(writeAggregationSize >= 0, "Write aggregation size must not be negative");
+		this.writeAggregationSize = writeAggregationSize;
+	}
+
+	/**
+	 * Return the configured write aggregation size.
+	 * @since 5.2.19
+	 */
+	public int getWriteAggregationSize() {
+		return this.writeAggregationSize;
+	}
+
 	/**
 	 * Return the Servlet path under which the Servlet is deployed by checking
 	 * the Servlet registration from {@link #init(ServletConfig)}.
@@ -179,7 +207,11 @@ public class ServletHttpHandlerAdapter implements Servlet {
 			return;
 		}
 
-		ServerHttpResponse httpResponse = createResponse(((HttpServletResponse) response), asyncContext, httpRequest);
+		ServletServerHttpResponse servletResponse =
+				createResponse(((HttpServletResponse) response), asyncContext, httpRequest);
+		servletResponse.setWriteAggregationSize(getWriteAggregationSize());
+
+		ServerHttpResponse httpResponse = servletResponse;
 		if (httpRequest.getMethod() == HttpMethod.HEAD) {
 			httpResponse = new HttpHeadResponseDecorator(httpResponse);
 		}
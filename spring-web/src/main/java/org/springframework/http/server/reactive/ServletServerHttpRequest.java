@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.cert.X509Certificate;
 import java.util.Enumeration;
@@ -38,6 +39,7 @@ import reactor.core.publisher.Flux;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpCookie;
 import org.springframework.http.HttpHeaders;
@@ -69,7 +71,10 @@ class ServletServerHttpRequest extends AbstractServerHttpRequest {
 
 	private final DataBufferFactory bufferFactory;
 
-	private final byte[] buffer;
+	private final int bufferSize;
+
+	@Nullable
+	private byte[] buffer;
 
 	public ServletServerHttpRequest(HttpServletRequest request, AsyncContext asyncContext,
 			String servletPath, DataBufferFactory bufferFactory, int bufferSize)
@@ -89,7 +94,7 @@ class ServletServerHttpRequest extends AbstractServerHttpRequest {
 
 		this.request = request;
 		this.bufferFactory = bufferFactory;
-		this.buffer = new byte[bufferSize];
+		this.bufferSize = bufferSize;
 
 		asyncContext.addListener(new RequestAsyncListener());
 
@@ -217,20 +222,65 @@ class ServletServerHttpRequest extends AbstractServerHttpRequest {
 	 */
 	@Nullable
 	DataBuffer readFromInputStream() throws IOException {
-		int read = this.request.getInputStream().read(this.buffer);
-		logBytesRead(read);
+		ServletInputStream inputStream = this.request.getInputStream();
+		int capacity = this.bufferSize;
+		DataBuffer dataBuffer = null;
+		boolean release = true;
+		try {
+			int read;
+			if (inputStream.available() >= capacity) {
+				// Enough data for a full buffer: allocate it up front
+				dataBuffer = this.bufferFactory.allocateBuffer(capacity);
+				ByteBuffer byteBuffer = dataBuffer.asByteBuffer(0, capacity);
+				if (byteBuffer.hasArray()) {
+					// Read straight into the heap buffer's backing array, no copying
+					read = inputStream.read(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), capacity);
+					if (read > 0) {
+						dataBuffer.writePosition(read);
+					}
+				}
+				else {
+					read = inputStream.read(getReadBuffer());
+					if (read > 0) {
+						dataBuffer.write(getReadBuffer(), 0, read);
+					}
+				}
+			}
+			else {
+				// Small or unknown amount of data: copy, so that the buffer is sized to what was read
+				read = inputStream.read(getReadBuffer());
+				if (read > 0) {
+					dataBuffer = this.bufferFactory.allocateBuffer(read);
+					dataBuffer.write(getReadBuffer(), 0, read);
+				}
+			}
+			logBytesRead(read);
 
-		if (read > 0) {
-			DataBuffer dataBuffer = this.bufferFactory.allocateBuffer(read);
-			dataBuffer.write(this.buffer, 0, read);
-			return dataBuffer;
+			if (read > 0) {
+				release = false;
+				return dataBuffer;
+			}
+			else if (read == -1) {
+				return EOF_BUFFER;
+			}
+			else {
+				return null;
+			}
 		}
-
-		if (read == -1) {
-			return EOF_BUFFER;
+		finally {
+			if (release && dataBuffer != null) {
+				DataBufferUtils.release(dataBuffer);
+			}
 		}
+	}
 
-		return null;
+	private byte[] getReadBuffer() {
+		byte[] buffer = this.buffer;
+		if (buffer == null) {
+			buffer = new byte[this.bufferSize];
+			this.buffer = buffer;
+		}
+		return buffer;
 	}
 
 	protected final void logBytesRead(int read) {
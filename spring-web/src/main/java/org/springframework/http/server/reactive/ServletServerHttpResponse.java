@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.AsyncEvent;
@@ -53,8 +54,12 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 
 	private final ServletOutputStream outputStream;
 
+	private final AsyncContext asyncContext;
+
 	private final int bufferSize;
 
+	private int writeAggregationSize;
+
 	@Nullable
 	private volatile ResponseBodyFlushProcessor bodyFlushProcessor;
 
@@ -82,6 +87,7 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 
 		this.response = response;
 		this.outputStream = response.getOutputStream();
+		this.asyncContext = asyncContext;
 		this.bufferSize = bufferSize;
 		this.request = request;
 
@@ -92,6 +98,19 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 	}
 
 
+	/**
+	 * Set the size in bytes below which body buffers are aggregated before
+	 * being written, or 0 to write every buffer as it comes. Aggregated data
+	 * is written once the size would be exceeded, the current body or flush
+	 * boundary completes, or no further buffer follows right away.
+	 * @since 5.2.19
+	 * @see ServletHttpHandlerAdapter#setWriteAggregationSize(int)
+	 */
+	void setWriteAggregationSize(int writeAggregationSize) {
+		this.writeAggregationSize = writeAggregationSize;
+	}
+
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T getNativeResponse() {
@@ -268,6 +287,7 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 			ResponseBodyProcessor processor = bodyProcessor;
 			if (processor != null) {
 				processor.onWritePossible();
+				processor.resumeIdleWrite();
 			}
 			else {
 				ResponseBodyFlushProcessor flushProcessor = bodyFlushProcessor;
@@ -330,6 +350,14 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 
 	private class ResponseBodyProcessor extends AbstractListenerWriteProcessor<DataBuffer> {
 
+		private final Object pendingMonitor = new Object();
+
+		@Nullable
+		private volatile DataBuffer pendingBuffer;
+
+		private final AtomicBoolean idleWriteScheduled = new AtomicBoolean();
+
+		private volatile boolean idleWriteIncomplete;
 
 		public ResponseBodyProcessor() {
 			super(request.getLogPrefix());
@@ -347,13 +375,110 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 
 		@Override
 		protected boolean write(DataBuffer dataBuffer) throws IOException {
+			int aggregationSize = writeAggregationSize;
+			if (aggregationSize <= 0) {
+				return writeDirectly(dataBuffer);
+			}
+			synchronized (this.pendingMonitor) {
+				DataBuffer pending = this.pendingBuffer;
+				if (pending != null &&
+						pending.readableByteCount() + dataBuffer.readableByteCount() > aggregationSize) {
+					if (!writePendingData()) {
+						return false;
+					}
+					pending = null;
+				}
+				if (dataBuffer.readableByteCount() >= aggregationSize) {
+					return writeDirectly(dataBuffer);
+				}
+				if (pending == null) {
+					pending = bufferFactory().allocateBuffer(aggregationSize);
+					this.pendingBuffer = pending;
+				}
+				pending.write(dataBuffer);
+				DataBufferUtils.release(dataBuffer);
+			}
+			scheduleIdleWrite();
+			return true;
+		}
+
+		private boolean writeDirectly(DataBuffer dataBuffer) throws IOException {
+			flushIfNecessary();
+			if (writeDataBuffer(dataBuffer)) {
+				DataBufferUtils.release(dataBuffer);
+				return true;
+			}
+			return false;
+		}
+
+		private void flushIfNecessary() throws IOException {
 			if (ServletServerHttpResponse.this.flushOnNext) {
 				if (rsWriteLogger.isTraceEnabled()) {
 					rsWriteLogger.trace(getLogPrefix() + "Flush attempt");
 				}
 				flush();
 			}
+		}
+
+		@Override
+		protected boolean isDataPending() {
+			return (this.pendingBuffer != null);
+		}
+
+		@Override
+		protected boolean writePendingData() throws IOException {
+			synchronized (this.pendingMonitor) {
+				DataBuffer pending = this.pendingBuffer;
+				if (pending == null) {
+					return true;
+				}
+				flushIfNecessary();
+				if (pending.readableByteCount() > 0 && !writeDataBuffer(pending)) {
+					return false;
+				}
+				this.pendingBuffer = null;
+				DataBufferUtils.release(pending);
+				return true;
+			}
+		}
+
+		/**
+		 * Let the container write aggregated data, unless further buffers
+		 * are received and aggregated in the meantime.
+		 */
+		private void scheduleIdleWrite() {
+			if (this.idleWriteScheduled.compareAndSet(false, true)) {
+				try {
+					asyncContext.start(this::writeIdle);
+				}
+				catch (IllegalStateException ex) {
+					// Request completed: pending data is released in writingComplete
+					this.idleWriteScheduled.set(false);
+				}
+			}
+		}
+
+		/**
+		 * Resume an idle write that stopped because the container was not
+		 * ready for more data, once it is.
+		 */
+		void resumeIdleWrite() {
+			if (this.idleWriteIncomplete) {
+				writeIdle();
+			}
+		}
+
+		private void writeIdle() {
+			this.idleWriteScheduled.set(false);
+			try {
+				this.idleWriteIncomplete = !writePendingData();
+			}
+			catch (IOException ex) {
+				writingFailed(ex);
+			}
+		}
 
+		private boolean writeDataBuffer(DataBuffer dataBuffer) throws IOException {
 			boolean ready = ServletServerHttpResponse.this.isWritePossible();
 			int remaining = dataBuffer.readableByteCount();
 			if (ready && remaining > 0) {
@@ -366,7 +491,6 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 					rsWriteLogger.trace(getLogPrefix() + "Wrote " + written + " of " + remaining + " bytes");
 				}
 				if (written == remaining) {
-					DataBufferUtils.release(dataBuffer);
 					return true;
 				}
 			}
@@ -382,6 +506,13 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 		@Override
 		protected void writingComplete() {
 			bodyProcessor = null;
+			synchronized (this.pendingMonitor) {
+				DataBuffer pending = this.pendingBuffer;
+				if (pending != null) {
+					this.pendingBuffer = null;
+					DataBufferUtils.release(pending);
+				}
+			}
 		}
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.testfixture.io.buffer.AbstractDataBufferAllocatingTests;
@@ -199,6 +200,72 @@ class ServerSentEventHttpMessageWriterTests extends AbstractDataBufferAllocating
 				.verify();
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void writeStringWithMaxEventsPerFlush(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		this.messageWriter.setMaxEventsPerFlush(2);
+		this.messageWriter.setMaxFlushDelay(Duration.ofSeconds(5));
+
+		MockServerHttpResponse outputMessage = new MockServerHttpResponse(super.bufferFactory);
+		Flux<String> source = Flux.just("foo", "bar", "baz");
+		testWrite(source, outputMessage, String.class);
+
+		StepVerifier.create(outputMessage.getBody())
+				.consumeNextWith(stringConsumer("data:foo\n\ndata:bar\n\n"))
+				.consumeNextWith(stringConsumer("data:baz\n\n"))
+				.expectComplete()
+				.verify();
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void coalesceWithMaxFlushDelay(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		this.messageWriter.setMaxEventsPerFlush(10);
+		this.messageWriter.setMaxFlushDelay(Duration.ofMillis(10));
+
+		StepVerifier.withVirtualTime(() -> {
+					Flux<Publisher<DataBuffer>> events = Flux.concat(
+							Mono.fromSupplier(() -> event("foo")),
+							Mono.fromSupplier(() -> event("bar")).delaySubscription(Duration.ofSeconds(1)));
+					return this.messageWriter.coalesce(events, super.bufferFactory).concatMap(event -> event);
+				})
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(9))
+				.thenAwait(Duration.ofMillis(1))
+				.consumeNextWith(stringConsumer("data:foo\n\n"))
+				.thenAwait(Duration.ofSeconds(1))
+				.consumeNextWith(stringConsumer("data:bar\n\n"))
+				.expectComplete()
+				.verify();
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void coalesceWithSlowDemand(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		this.messageWriter.setMaxEventsPerFlush(2);
+		this.messageWriter.setMaxFlushDelay(Duration.ofMillis(10));
+
+		StepVerifier.withVirtualTime(() -> {
+					Flux<Publisher<DataBuffer>> events = Flux.just("foo", "bar", "baz").map(this::event);
+					return this.messageWriter.coalesce(events, super.bufferFactory);
+				}, 0)
+				.expectSubscription()
+				.expectNoEvent(Duration.ofSeconds(1))
+				.thenRequest(1)
+				.consumeNextWith(flush -> stringConsumer("data:foo\n\ndata:bar\n\n").accept(Mono.from(flush).block()))
+				.expectNoEvent(Duration.ofSeconds(1))
+				.thenRequest(1)
+				.consumeNextWith(flush -> stringConsumer("data:baz\n\n").accept(Mono.from(flush).block()))
+				.expectComplete()
+				.verify();
+	}
+
+	private Publisher<DataBuffer> event(String data) {
+		return Mono.just(stringBuffer("data:" + data + "\n\n"));
+	}
 
 	private <T> void testWrite(Publisher<T> source, MockServerHttpResponse response, Class<T> clazz) {
 		testWrite(source, MediaType.TEXT_EVENT_STREAM, response, clazz);
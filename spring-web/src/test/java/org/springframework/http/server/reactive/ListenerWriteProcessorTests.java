@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -102,6 +102,30 @@ public class ListenerWriteProcessorTests {
 		assertThat(this.processor.getDiscardedBuffers().get(1)).isSameAs(buffer1);
 	}
 
+	@Test
+	public void writePendingDataBeforeCompletion() {
+
+		// Write and leave data pending
+		this.processor.setWritePossible(true);
+		this.processor.onNext(mock(DataBuffer.class));
+		this.processor.setDataPending(true);
+
+		// Complete while writing is not possible
+		this.processor.setWritePossible(false);
+		this.processor.onComplete();
+
+		assertThat(this.processor.getPendingDataWriteCount()).isEqualTo(0);
+		assertThat(this.resultSubscriber.isCompleted()).isFalse();
+
+		// Pending data written on next write callback
+		this.processor.setWritePossible(true);
+		this.processor.onWritePossible();
+
+		assertThat(this.processor.getPendingDataWriteCount()).isEqualTo(1);
+		assertThat(this.resultSubscriber.isCompleted()).isTrue();
+		assertThat(this.resultSubscriber.getError()).isNull();
+	}
+
 
 	private static final class TestListenerWriteProcessor extends AbstractListenerWriteProcessor<DataBuffer> {
 
@@ -111,6 +135,10 @@ public class ListenerWriteProcessorTests {
 
 		private boolean failOnWrite;
 
+		private boolean dataPending;
+
+		private int pendingDataWriteCount;
+
 
 		public List<DataBuffer> getDiscardedBuffers() {
 			return this.discardedBuffers;
@@ -124,6 +152,14 @@ public class ListenerWriteProcessorTests {
 			this.failOnWrite = failOnWrite;
 		}
 
+		public void setDataPending(boolean dataPending) {
+			this.dataPending = dataPending;
+		}
+
+		public int getPendingDataWriteCount() {
+			return this.pendingDataWriteCount;
+		}
+
 
 		@Override
 		protected boolean isDataEmpty(DataBuffer dataBuffer) {
@@ -143,6 +179,18 @@ public class ListenerWriteProcessorTests {
 			return true;
 		}
 
+		@Override
+		protected boolean isDataPending() {
+			return this.dataPending;
+		}
+
+		@Override
+		protected boolean writePendingData() {
+			this.pendingDataWriteCount++;
+			this.dataPending = false;
+			return true;
+		}
+
 		@Override
 		protected void writingFailed(Throwable ex) {
 			cancel();
@@ -180,11 +228,17 @@ public class ListenerWriteProcessorTests {
 
 		private Throwable error;
 
+		private boolean completed;
+
 
 		public Throwable getError() {
 			return this.error;
 		}
 
+		public boolean isCompleted() {
+			return this.completed;
+		}
+
 
 		@Override
 		public void onSubscribe(Subscription subscription) {
@@ -201,6 +255,7 @@ public class ListenerWriteProcessorTests {
 
 		@Override
 		public void onComplete() {
+			this.completed = true;
 		}
 	}
 
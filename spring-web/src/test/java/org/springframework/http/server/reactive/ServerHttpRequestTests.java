@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.http.server.reactive;
 
 import java.io.ByteArrayInputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -27,6 +28,9 @@ import javax.servlet.ServletInputStream;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.MultiValueMap;
@@ -188,6 +192,52 @@ public class ServerHttpRequestTests {
 				.hasMessage("Invalid contextPath '/context': must match the start of requestPath: '/fail'");
 	}
 
+	@Test
+	void readFromInputStreamWithHeapBuffers() throws Exception {
+		testReadFromInputStream(new DefaultDataBufferFactory());
+	}
+
+	@Test
+	void readFromInputStreamWithDirectBuffers() throws Exception {
+		testReadFromInputStream(new DefaultDataBufferFactory(true));
+	}
+
+	private void testReadFromInputStream(DataBufferFactory bufferFactory) throws Exception {
+		MockHttpServletRequest request =
+				new TestHttpServletRequest(URI.create("/path"), "foo bar".getBytes(StandardCharsets.UTF_8));
+		AsyncContext asyncContext = new MockAsyncContext(request, new MockHttpServletResponse());
+		ServletServerHttpRequest httpRequest =
+				new ServletServerHttpRequest(request, asyncContext, "", bufferFactory, 4);
+
+		DataBuffer buffer = httpRequest.readFromInputStream();
+		assertThat(buffer).isNotNull();
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("foo ");
+		DataBufferUtils.release(buffer);
+
+		buffer = httpRequest.readFromInputStream();
+		assertThat(buffer).isNotNull();
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+		DataBufferUtils.release(buffer);
+
+		assertThat(httpRequest.readFromInputStream()).isSameAs(ServletServerHttpRequest.EOF_BUFFER);
+	}
+
+	@Test
+	void readFromInputStreamWithLessDataThanBufferSize() throws Exception {
+		MockHttpServletRequest request =
+				new TestHttpServletRequest(URI.create("/path"), "foo bar".getBytes(StandardCharsets.UTF_8));
+		AsyncContext asyncContext = new MockAsyncContext(request, new MockHttpServletResponse());
+		ServletServerHttpRequest httpRequest =
+				new ServletServerHttpRequest(request, asyncContext, "", new DefaultDataBufferFactory(), 1024);
+
+		DataBuffer buffer = httpRequest.readFromInputStream();
+		assertThat(buffer).isNotNull();
+		assertThat(buffer.capacity()).isEqualTo(7);
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("foo bar");
+		DataBufferUtils.release(buffer);
+	}
+
+
 	private ServerHttpRequest createHttpRequest(String uriString) throws Exception {
 		return createHttpRequest(uriString, "");
 	}
@@ -202,8 +252,15 @@ public class ServerHttpRequestTests {
 
 	private static class TestHttpServletRequest extends MockHttpServletRequest {
 
+		private final byte[] body;
+
 		TestHttpServletRequest(URI uri) {
+			this(uri, new byte[0]);
+		}
+
+		TestHttpServletRequest(URI uri, byte[] body) {
 			super("GET", uri.getRawPath());
+			this.body = body;
 			if (uri.getScheme() != null) {
 				setScheme(uri.getScheme());
 			}
@@ -220,7 +277,7 @@ public class ServerHttpRequestTests {
 
 		@Override
 		public ServletInputStream getInputStream() {
-			return new DelegatingServletInputStream(new ByteArrayInputStream(new byte[0])) {
+			return new DelegatingServletInputStream(new ByteArrayInputStream(this.body)) {
 				@Override
 				public void setReadListener(ReadListener readListener) {
 					// Ignore
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server.reactive;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.UnicastProcessor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.testfixture.servlet.MockAsyncContext;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for write aggregation in {@link ServletServerHttpResponse}.
+ */
+class ServletServerHttpResponseTests {
+
+	private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private final TestServletOutputStream outputStream = new TestServletOutputStream();
+
+	private final List<Runnable> asyncTasks = new ArrayList<>();
+
+
+	@Test
+	void buffersAggregatedBelowThreshold() throws Exception {
+		ServletServerHttpResponse response = createResponse(64, 1024);
+
+		CompletableFuture<Void> result = response.writeWith(
+				Flux.just(buffer("a"), buffer("b"), buffer("c"))).toFuture();
+
+		assertThat(result).isDone();
+		assertThat(this.outputStream.writes).containsExactly("abc");
+		runAsyncTasks();
+		assertThat(this.outputStream.writes).containsExactly("abc");
+	}
+
+	@Test
+	void aggregateWrittenWhenThresholdExceeded() throws Exception {
+		ServletServerHttpResponse response = createResponse(4, 1024);
+
+		CompletableFuture<Void> result = response.writeWith(
+				Flux.just(buffer("ab"), buffer("cd"), buffer("e"), buffer("fghij"))).toFuture();
+
+		assertThat(result).isDone();
+		assertThat(this.outputStream.writes).containsExactly("abcd", "e", "fghij");
+	}
+
+	@Test
+	void aggregateWrittenWhenNoFurtherBufferAvailable() throws Exception {
+		ServletServerHttpResponse response = createResponse(64, 1024);
+		UnicastProcessor<DataBuffer> body = UnicastProcessor.create();
+
+		CompletableFuture<Void> result = response.writeWith(body).toFuture();
+		body.onNext(buffer("a"));
+		assertThat(this.outputStream.writes).isEmpty();
+		runAsyncTasks();
+		assertThat(this.outputStream.writes).containsExactly("a");
+
+		body.onNext(buffer("b"));
+		body.onNext(buffer("c"));
+		runAsyncTasks();
+		assertThat(this.outputStream.writes).containsExactly("a", "bc");
+
+		body.onComplete();
+		assertThat(result).isDone();
+		assertThat(this.outputStream.writes).containsExactly("a", "bc");
+	}
+
+	@Test
+	void aggregateWrittenPartiallyWhenNotReady() throws Exception {
+		ServletServerHttpResponse response = createResponse(64, 2);
+		this.outputStream.notReadyAfterWrite = true;
+
+		CompletableFuture<Void> result = response.writeWith(
+				Flux.just(buffer("ab"), buffer("cd"), buffer("ef"))).toFuture();
+		assertThat(this.outputStream.writes).containsExactly("ab");
+		assertThat(result).isNotDone();
+
+		this.outputStream.onWritePossible();
+		assertThat(this.outputStream.writes).containsExactly("ab", "cd");
+		assertThat(result).isNotDone();
+
+		this.outputStream.notReadyAfterWrite = false;
+		this.outputStream.onWritePossible();
+		assertThat(this.outputStream.writes).containsExactly("ab", "cd", "ef");
+		assertThat(result).isDone();
+	}
+
+
+	private ServletServerHttpResponse createResponse(int writeAggregationSize, int bufferSize) throws IOException {
+		MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/");
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse() {
+			@Override
+			public ServletOutputStream getOutputStream() {
+				return outputStream;
+			}
+		};
+		MockAsyncContext asyncContext = new MockAsyncContext(servletRequest, servletResponse) {
+			@Override
+			public void start(Runnable runnable) {
+				asyncTasks.add(runnable);
+			}
+		};
+		ServletServerHttpRequest request = new ServletServerHttpRequest(
+				servletRequest, asyncContext, "", this.bufferFactory, 1024);
+		ServletServerHttpResponse response = new ServletServerHttpResponse(
+				servletResponse, asyncContext, this.bufferFactory, bufferSize, request);
+		response.setWriteAggregationSize(writeAggregationSize);
+		return response;
+	}
+
+	private DataBuffer buffer(String value) {
+		return this.bufferFactory.wrap(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void runAsyncTasks() {
+		List<Runnable> tasks = new ArrayList<>(this.asyncTasks);
+		this.asyncTasks.clear();
+		tasks.forEach(Runnable::run);
+	}
+
+
+	private static class TestServletOutputStream extends ServletOutputStream {
+
+		final List<String> writes = new ArrayList<>();
+
+		boolean ready = true;
+
+		boolean notReadyAfterWrite;
+
+		WriteListener writeListener;
+
+		@Override
+		public void write(int b) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			this.writes.add(new String(bytes, off, len, StandardCharsets.UTF_8));
+			if (this.notReadyAfterWrite) {
+				this.ready = false;
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			return this.ready;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			this.writeListener = writeListener;
+		}
+
+		void onWritePossible() throws IOException {
+			this.ready = true;
+			this.writeListener.onWritePossible();
+		}
+	}
+
+}
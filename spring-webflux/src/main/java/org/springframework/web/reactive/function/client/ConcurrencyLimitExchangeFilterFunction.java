@@ -0,0 +1,490 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ExchangeFilterFunction} that limits the number of concurrent
+ * exchanges per target host, adapting each host's limit to the observed
+ * response latency.
+ *
+ * <p>The limit follows an additive-increase/multiplicative-decrease (AIMD)
+ * policy: each exchange that completes within the
+ * {@link #setLatencyThreshold latency threshold} increases the limit by
+ * roughly one per round of exchanges, while each exchange that fails or
+ * exceeds the threshold multiplies the limit by the
+ * {@link #setBackoffRatio backoff ratio}. Exchanges beyond the current limit
+ * wait in a per-host queue until a permit becomes available. A permit is held
+ * from the start of an exchange until the {@link ClientResponse} (i.e. the
+ * status and headers) has been received.
+ *
+ * <p>Limits are kept for up to {@link #setMaxHosts "maxHosts"} hosts. Beyond
+ * that, hosts without exchanges in progress are evicted, and start over from
+ * the initial limit when they are seen again.
+ *
+ * <p>This is typically registered once per {@link WebClient} through
+ * {@link WebClient.Builder#filter(ExchangeFilterFunction)}, which keeps the
+ * instance accessible for {@link #getHostMetrics() metrics}:
+ * <pre class="code">
+ * ConcurrencyLimitExchangeFilterFunction limiter = new ConcurrencyLimitExchangeFilterFunction(1, 20, 200);
+ * WebClient client = WebClient.builder().filter(limiter).build();
+ * </pre>
+ *
+ * @since 5.2.19
+ */
+public class ConcurrencyLimitExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private final ConcurrentMap<String, HostLimit> hostLimits = new ConcurrentHashMap<>();
+
+	private final int minLimit;
+
+	private final int initialLimit;
+
+	private final int maxLimit;
+
+	private Duration latencyThreshold = Duration.ofSeconds(1);
+
+	private double backoffRatio = 0.9;
+
+	private int maxHosts = 1000;
+
+
+	/**
+	 * Create a new {@code ConcurrencyLimitExchangeFilterFunction} with an
+	 * initial limit of 20 per host, varying between 1 and 200.
+	 */
+	public ConcurrencyLimitExchangeFilterFunction() {
+		this(1, 20, 200);
+	}
+
+	/**
+	 * Create a new {@code ConcurrencyLimitExchangeFilterFunction} with the
+	 * given concurrency limits per host.
+	 * @param minLimit the limit below which a host's limit never decreases
+	 * @param initialLimit the limit to start with for a newly seen host
+	 * @param maxLimit the limit above which a host's limit never increases
+	 */
+	public ConcurrencyLimitExchangeFilterFunction(int minLimit, int initialLimit, int maxLimit) {
+		Assert.isTrue(minLimit > 0, "Min limit must be greater than 0");
+		Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit, () ->
+				"Initial limit " + initialLimit + " must be between min limit " + minLimit +
+				" and max limit " + maxLimit);
+		this.minLimit = minLimit;
+		this.initialLimit = initialLimit;
+		this.maxLimit = maxLimit;
+	}
+
+
+	/**
+	 * Return the configured minimum concurrency limit.
+	 */
+	public int getMinLimit() {
+		return this.minLimit;
+	}
+
+	/**
+	 * Return the configured initial concurrency limit.
+	 */
+	public int getInitialLimit() {
+		return this.initialLimit;
+	}
+
+	/**
+	 * Return the configured maximum concurrency limit.
+	 */
+	public int getMaxLimit() {
+		return this.maxLimit;
+	}
+
+	/**
+	 * Set the response latency above which an exchange is considered a sign
+	 * of an overloaded host, causing its limit to be decreased.
+	 * <p>By default this is 1 second.
+	 */
+	public void setLatencyThreshold(Duration latencyThreshold) {
+		Assert.notNull(latencyThreshold, "Latency threshold must not be null");
+		this.latencyThreshold = latencyThreshold;
+	}
+
+	/**
+	 * Return the configured latency threshold.
+	 */
+	public Duration getLatencyThreshold() {
+		return this.latencyThreshold;
+	}
+
+	/**
+	 * Set the factor by which a host's limit is multiplied after a failed
+	 * or slow exchange.
+	 * <p>By default this is 0.9.
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+		Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "Backoff ratio must be between 0 and 1");
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * Return the configured backoff ratio.
+	 */
+	public double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	/**
+	 * Set the number of hosts beyond which the limits of idle hosts, i.e.
+	 * hosts without exchanges in progress or waiting, are evicted.
+	 * <p>By default this is 1000.
+	 */
+	public void setMaxHosts(int maxHosts) {
+		Assert.isTrue(maxHosts > 0, "Max hosts must be greater than 0");
+		this.maxHosts = maxHosts;
+	}
+
+	/**
+	 * Return the configured maximum number of hosts.
+	 */
+	public int getMaxHosts() {
+		return this.maxHosts;
+	}
+
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		HostLimit hostLimit = getHostLimit(getHostKey(request.url()));
+		return Mono.<Permit>create(sink -> hostLimit.acquire(new PendingAcquire(hostLimit, sink)))
+				.flatMap(permit -> next.exchange(request)
+						.doOnSuccess(response -> permit.release(
+								response != null && response.rawStatusCode() < 500 ? Outcome.SUCCESS : Outcome.FAILURE))
+						.doOnError(ex -> permit.release(Outcome.FAILURE))
+						.doOnCancel(() -> permit.release(Outcome.CANCELLED)));
+	}
+
+	private HostLimit getHostLimit(String hostKey) {
+		HostLimit hostLimit = this.hostLimits.get(hostKey);
+		if (hostLimit == null) {
+			hostLimit = this.hostLimits.computeIfAbsent(hostKey, key -> new HostLimit());
+			if (this.hostLimits.size() > this.maxHosts) {
+				evictIdleHosts(hostLimit);
+			}
+		}
+		return hostLimit;
+	}
+
+	private void evictIdleHosts(HostLimit current) {
+		// An exchange that obtained an evicted HostLimit just before is still
+		// limited by it, just not reflected in the metrics or the new HostLimit
+		this.hostLimits.forEach((key, hostLimit) -> {
+			if (hostLimit != current && hostLimit.isIdle()) {
+				this.hostLimits.remove(key, hostLimit);
+			}
+		});
+	}
+
+	/**
+	 * Return a snapshot of the metrics for each host seen so far, keyed by
+	 * {@code scheme://host:port}, with the default port of the scheme if the
+	 * URL does not specify one.
+	 */
+	public Map<String, HostMetrics> getHostMetrics() {
+		Map<String, HostMetrics> result = new LinkedHashMap<>(this.hostLimits.size());
+		this.hostLimits.forEach((key, hostLimit) -> result.put(key, hostLimit.getMetrics()));
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Return a snapshot of the metrics for the given host.
+	 * @param url a URL of the host (only scheme, host and port are used)
+	 * @return the metrics, or {@code null} if no exchange with the host took place
+	 */
+	@Nullable
+	public HostMetrics getHostMetrics(URI url) {
+		HostLimit hostLimit = this.hostLimits.get(getHostKey(url));
+		return (hostLimit != null ? hostLimit.getMetrics() : null);
+	}
+
+	private static String getHostKey(URI url) {
+		String scheme = url.getScheme();
+		int port = url.getPort();
+		if (port == -1) {
+			if ("http".equalsIgnoreCase(scheme) || "ws".equalsIgnoreCase(scheme)) {
+				port = 80;
+			}
+			else if ("https".equalsIgnoreCase(scheme) || "wss".equalsIgnoreCase(scheme)) {
+				port = 443;
+			}
+		}
+		return scheme + "://" + url.getHost() + ":" + port;
+	}
+
+
+	/**
+	 * Snapshot of the concurrency limit and wait statistics for a host.
+	 */
+	public static final class HostMetrics {
+
+		private final int limit;
+
+		private final int inFlight;
+
+		private final int pendingAcquires;
+
+		private final long acquireCount;
+
+		private final Duration averageAcquireTime;
+
+		private final Duration maxAcquireTime;
+
+		HostMetrics(int limit, int inFlight, int pendingAcquires, long acquireCount,
+				Duration averageAcquireTime, Duration maxAcquireTime) {
+
+			this.limit = limit;
+			this.inFlight = inFlight;
+			this.pendingAcquires = pendingAcquires;
+			this.acquireCount = acquireCount;
+			this.averageAcquireTime = averageAcquireTime;
+			this.maxAcquireTime = maxAcquireTime;
+		}
+
+		/**
+		 * Return the current concurrency limit.
+		 */
+		public int getLimit() {
+			return this.limit;
+		}
+
+		/**
+		 * Return the number of exchanges currently in progress.
+		 */
+		public int getInFlight() {
+			return this.inFlight;
+		}
+
+		/**
+		 * Return the number of exchanges waiting for a permit.
+		 */
+		public int getPendingAcquires() {
+			return this.pendingAcquires;
+		}
+
+		/**
+		 * Return the total number of permits acquired.
+		 */
+		public long getAcquireCount() {
+			return this.acquireCount;
+		}
+
+		/**
+		 * Return the average time exchanges waited for a permit.
+		 */
+		public Duration getAverageAcquireTime() {
+			return this.averageAcquireTime;
+		}
+
+		/**
+		 * Return the longest time an exchange waited for a permit.
+		 */
+		public Duration getMaxAcquireTime() {
+			return this.maxAcquireTime;
+		}
+
+		@Override
+		public String toString() {
+			return "limit=" + this.limit + ", inFlight=" + this.inFlight +
+					", pendingAcquires=" + this.pendingAcquires + ", acquireCount=" + this.acquireCount +
+					", averageAcquireTime=" + this.averageAcquireTime + ", maxAcquireTime=" + this.maxAcquireTime;
+		}
+	}
+
+
+	/**
+	 * Concurrency limit and queue of pending acquires for a single host.
+	 */
+	private final class HostLimit {
+
+		private final Queue<PendingAcquire> pendingAcquires = new ArrayDeque<>();
+
+		private double limit = initialLimit;
+
+		private int inFlight;
+
+		private long acquireCount;
+
+		private long totalAcquireNanos;
+
+		private long maxAcquireNanos;
+
+		public void acquire(PendingAcquire pendingAcquire) {
+			boolean granted;
+			synchronized (this) {
+				granted = (this.inFlight < (int) this.limit);
+				if (granted) {
+					onGranted(pendingAcquire);
+				}
+				else {
+					this.pendingAcquires.add(pendingAcquire);
+				}
+			}
+			if (granted) {
+				pendingAcquire.grant();
+			}
+		}
+
+		public void cancel(PendingAcquire pendingAcquire) {
+			synchronized (this) {
+				this.pendingAcquires.remove(pendingAcquire);
+			}
+		}
+
+		public synchronized boolean isIdle() {
+			return (this.inFlight == 0 && this.pendingAcquires.isEmpty());
+		}
+
+		public void release(Outcome outcome, long latencyNanos) {
+			List<PendingAcquire> granted = null;
+			synchronized (this) {
+				this.inFlight--;
+				if (outcome == Outcome.SUCCESS && latencyNanos <= latencyThreshold.toNanos()) {
+					this.limit = Math.min(maxLimit, this.limit + 1 / this.limit);
+				}
+				else if (outcome != Outcome.CANCELLED) {
+					this.limit = Math.max(minLimit, this.limit * backoffRatio);
+				}
+				while (this.inFlight < (int) this.limit && !this.pendingAcquires.isEmpty()) {
+					PendingAcquire pendingAcquire = this.pendingAcquires.poll();
+					onGranted(pendingAcquire);
+					granted = (granted != null ? granted : new ArrayList<>());
+					granted.add(pendingAcquire);
+				}
+			}
+			if (granted != null) {
+				granted.forEach(PendingAcquire::grant);
+			}
+		}
+
+		private void onGranted(PendingAcquire pendingAcquire) {
+			long acquireNanos = System.nanoTime() - pendingAcquire.startNanos;
+			pendingAcquire.permit.start();
+			this.inFlight++;
+			this.acquireCount++;
+			this.totalAcquireNanos += acquireNanos;
+			this.maxAcquireNanos = Math.max(this.maxAcquireNanos, acquireNanos);
+		}
+
+		public synchronized HostMetrics getMetrics() {
+			long averageNanos = (this.acquireCount > 0 ? this.totalAcquireNanos / this.acquireCount : 0);
+			return new HostMetrics((int) this.limit, this.inFlight, this.pendingAcquires.size(),
+					this.acquireCount, Duration.ofNanos(averageNanos), Duration.ofNanos(this.maxAcquireNanos));
+		}
+	}
+
+
+	/**
+	 * An exchange waiting for, or holding, a permit for its host.
+	 */
+	private static final class PendingAcquire {
+
+		private final HostLimit hostLimit;
+
+		private final MonoSink<Permit> sink;
+
+		private final long startNanos = System.nanoTime();
+
+		private final Permit permit;
+
+		PendingAcquire(HostLimit hostLimit, MonoSink<Permit> sink) {
+			this.hostLimit = hostLimit;
+			this.sink = sink;
+			this.permit = new Permit(hostLimit);
+			sink.onCancel(this::cancel);
+		}
+
+		public void grant() {
+			this.sink.success(this.permit);
+		}
+
+		private void cancel() {
+			this.hostLimit.cancel(this);
+			// A permit granted concurrently with cancellation must not leak
+			this.permit.release(Outcome.CANCELLED);
+		}
+	}
+
+
+	/**
+	 * A permit to perform an exchange, released exactly once.
+	 */
+	private static final class Permit {
+
+		private final HostLimit hostLimit;
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private volatile long startNanos;
+
+		Permit(HostLimit hostLimit) {
+			this.hostLimit = hostLimit;
+		}
+
+		public void start() {
+			this.startNanos = System.nanoTime();
+			this.started.set(true);
+		}
+
+		public void release(Outcome outcome) {
+			if (this.started.get() && this.released.compareAndSet(false, true)) {
+				this.hostLimit.release(outcome, System.nanoTime() - this.startNanos);
+			}
+		}
+	}
+
+
+	/**
+	 * How an exchange ended, as far as the limit of its host is concerned.
+	 */
+	private enum Outcome {
+
+		/** Response received, without a server error. */
+		SUCCESS,
+
+		/** Server error response or exchange failure: back off. */
+		FAILURE,
+
+		/** Cancelled: release the permit, but leave the limit unchanged. */
+		CANCELLED
+	}
+
+}
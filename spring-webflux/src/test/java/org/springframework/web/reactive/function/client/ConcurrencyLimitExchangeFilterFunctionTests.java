@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ConcurrencyLimitExchangeFilterFunction.HostMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link ConcurrencyLimitExchangeFilterFunction}.
+ */
+class ConcurrencyLimitExchangeFilterFunctionTests {
+
+	private static final URI URL = URI.create("https://example.com/path");
+
+	private ConcurrencyLimitExchangeFilterFunction filter = new ConcurrencyLimitExchangeFilterFunction();
+
+	private final List<MonoProcessor<ClientResponse>> exchanges = new ArrayList<>();
+
+	private final ExchangeFunction exchangeFunction = request -> {
+		MonoProcessor<ClientResponse> processor = MonoProcessor.create();
+		this.exchanges.add(processor);
+		return processor;
+	};
+
+
+	@Test
+	void exchangesBeyondLimitWaitForPermit() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 1, 200);
+
+		exchange();
+		exchange();
+
+		assertThat(this.exchanges).hasSize(1);
+		HostMetrics metrics = this.filter.getHostMetrics(URL);
+		assertThat(metrics).isNotNull();
+		assertThat(metrics.getInFlight()).isEqualTo(1);
+		assertThat(metrics.getPendingAcquires()).isEqualTo(1);
+
+		this.exchanges.get(0).onNext(response(200));
+
+		assertThat(this.exchanges).hasSize(2);
+		metrics = this.filter.getHostMetrics(URL);
+		assertThat(metrics.getInFlight()).isEqualTo(1);
+		assertThat(metrics.getPendingAcquires()).isEqualTo(0);
+		assertThat(metrics.getAcquireCount()).isEqualTo(2);
+	}
+
+	@Test
+	void limitIncreasesOnFastResponses() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 1, 200);
+
+		exchange();
+		this.exchanges.get(0).onNext(response(200));
+
+		assertThat(this.filter.getHostMetrics(URL).getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void limitDecreasesOnErrors() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 10, 200);
+		this.filter.setBackoffRatio(0.5);
+
+		exchange();
+		this.exchanges.get(0).onNext(response(503));
+		assertThat(this.filter.getHostMetrics(URL).getLimit()).isEqualTo(5);
+
+		exchange();
+		this.exchanges.get(1).onError(new IllegalStateException());
+		assertThat(this.filter.getHostMetrics(URL).getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void limitDecreasesOnSlowResponses() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 10, 200);
+		this.filter.setBackoffRatio(0.5);
+		this.filter.setLatencyThreshold(Duration.ZERO);
+
+		exchange();
+		this.exchanges.get(0).onNext(response(200));
+
+		assertThat(this.filter.getHostMetrics(URL).getLimit()).isEqualTo(5);
+	}
+
+	@Test
+	void limitNotBelowMinLimit() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(2, 2, 200);
+
+		exchange();
+		this.exchanges.get(0).onNext(response(500));
+
+		assertThat(this.filter.getHostMetrics(URL).getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void cancelPendingAcquire() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 1, 200);
+
+		exchange();
+		Disposable pending = exchange();
+		pending.dispose();
+
+		assertThat(this.filter.getHostMetrics(URL).getPendingAcquires()).isEqualTo(0);
+
+		this.exchanges.get(0).onNext(response(200));
+		assertThat(this.exchanges).hasSize(1);
+		assertThat(this.filter.getHostMetrics(URL).getInFlight()).isEqualTo(0);
+	}
+
+	@Test
+	void cancelInFlightExchangeReleasesPermit() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 1, 200);
+
+		Disposable inFlight = exchange();
+		exchange();
+		inFlight.dispose();
+
+		assertThat(this.exchanges).hasSize(2);
+		assertThat(this.filter.getHostMetrics(URL).getInFlight()).isEqualTo(1);
+		assertThat(this.filter.getHostMetrics(URL).getLimit()).isEqualTo(1);
+	}
+
+	@Test
+	void hostsAreLimitedSeparately() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 1, 200);
+
+		exchange();
+		exchange(URI.create("https://example.org"));
+
+		assertThat(this.exchanges).hasSize(2);
+		assertThat(this.filter.getHostMetrics()).containsOnlyKeys(
+				"https://example.com:443", "https://example.org:443");
+	}
+
+	@Test
+	void idleHostsEvictedBeyondMaxHosts() {
+		this.filter.setMaxHosts(1);
+
+		exchange();
+		exchange(URI.create("https://example.org"));
+		assertThat(this.filter.getHostMetrics()).containsOnlyKeys(
+				"https://example.com:443", "https://example.org:443");
+
+		this.exchanges.get(0).onNext(response(200));
+		exchange(URI.create("https://example.net"));
+		assertThat(this.filter.getHostMetrics()).containsOnlyKeys(
+				"https://example.org:443", "https://example.net:443");
+	}
+
+	@Test
+	void hostsWithDefaultPortAreLimitedTogether() {
+		this.filter = new ConcurrencyLimitExchangeFilterFunction(1, 1, 200);
+
+		exchange();
+		exchange(URI.create("https://example.com:443/other"));
+		exchange(URI.create("http://example.com/path"));
+
+		assertThat(this.exchanges).hasSize(2);
+		assertThat(this.filter.getHostMetrics()).containsOnlyKeys(
+				"https://example.com:443", "http://example.com:80");
+		assertThat(this.filter.getHostMetrics(URI.create("https://example.com:443")).getPendingAcquires()).isEqualTo(1);
+	}
+
+	@Test
+	void initialLimitMustBeWithinMinAndMaxLimit() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new ConcurrencyLimitExchangeFilterFunction(1, 10, 5));
+		assertThatIllegalArgumentException().isThrownBy(() -> new ConcurrencyLimitExchangeFilterFunction(5, 2, 10));
+	}
+
+
+	private Disposable exchange() {
+		return exchange(URL);
+	}
+
+	private Disposable exchange(URI url) {
+		ClientRequest request = ClientRequest.create(HttpMethod.GET, url).build();
+		return this.filter.filter(request, this.exchangeFunction).subscribe();
+	}
+
+	private static ClientResponse response(int status) {
+		ClientResponse response = mock(ClientResponse.class);
+		given(response.rawStatusCode()).willReturn(status);
+		return response;
+	}
+
+}